@@ -0,0 +1,46 @@
+package com.sfz.mungpy.benchmark;
+
+import com.sfz.mungpy.dto.DogSpecific;
+import com.sfz.mungpy.entity.Dog;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Dog → DogSpecific 변환 비용. 성향 문자열 split 이 차지하는 몫을 따로 볼 수 있게 parse 만 재는 벤치마크도 둔다.
+ * 목록이 커져 캐시에 다 들어가지 않을 때의 비용도 보도록 강아지 수를 1천에서 1백만까지 바꿔 가며 잰다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DogMappingBenchmark {
+    @Param({"1000", "10000", "100000", "1000000"})
+    private int catalogue;
+
+    private Dog[] dogs;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        dogs = SyntheticDogs.generate(catalogue, 42).toArray(Dog[]::new);
+    }
+
+    @Benchmark
+    public DogSpecific toDogSpecificDto() {
+        return nextDog().toDogSpecificDto();
+    }
+
+    @Benchmark
+    public List<String> parsePersonality() {
+        return Arrays.stream(nextDog().getPersonality().split(", ")).toList();
+    }
+
+    // 크기가 2의 거듭제곱이 아니므로 마스크 대신 끝에서 처음으로 돌아간다.
+    private Dog nextDog() {
+        Dog dog = dogs[next];
+        if (++next == dogs.length) next = 0;
+        return dog;
+    }
+}
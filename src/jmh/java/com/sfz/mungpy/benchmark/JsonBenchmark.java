@@ -0,0 +1,54 @@
+package com.sfz.mungpy.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sfz.mungpy.dto.DogSpecific;
+import com.sfz.mungpy.dto.ShelterInformation;
+import com.sfz.mungpy.entity.Dog;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 응답 목록 직렬화 비용. ObjectMapper 는 스프링 MVC 와 같은 기본 설정으로 만든다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JsonBenchmark {
+    @Param({"10", "100", "1000"})
+    private int size;
+
+    private ObjectMapper objectMapper;
+    private List<DogSpecific> dogs;
+    private List<ShelterInformation> shelters;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+        List<Dog> catalogue = SyntheticDogs.generate(size, 42);
+        dogs = catalogue.stream().map(Dog::toDogSpecificDto).toList();
+        shelters = catalogue.stream()
+                .map(dog -> ShelterInformation.builder()
+                        .name(dog.getProtectPlace())
+                        .address(dog.getRescuePlace())
+                        .telno(dog.getProtectTelno())
+                        .latitude(dog.getLatitude())
+                        .longitude(dog.getLongitude())
+                        .build())
+                .toList();
+    }
+
+    @Benchmark
+    public byte[] dogSpecificList() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(dogs);
+    }
+
+    @Benchmark
+    public byte[] shelterInformationList() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(shelters);
+    }
+}
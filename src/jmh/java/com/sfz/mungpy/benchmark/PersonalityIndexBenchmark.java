@@ -0,0 +1,48 @@
+package com.sfz.mungpy.benchmark;
+
+import com.sfz.mungpy.service.PersonalityIndex;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * matchDog 후보 선정(성향 점수 계산 + 상위 후보 선택) 비용.
+ * 사용자 성향은 미리 만든 64개를 돌려 가며 써서 한 입력에 최적화되지 않게 한다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PersonalityIndexBenchmark {
+    private static final int USERS = 64;
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    private int dogs;
+
+    @Param({"10"})
+    private int candidates;
+
+    private PersonalityIndex index;
+    private List<String>[] users;
+    private int next;
+
+    @Setup(Level.Trial)
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        index = new PersonalityIndex(SyntheticDogs.repository(SyntheticDogs.generate(dogs, 42)));
+        index.rebuild();
+
+        SplittableRandom random = new SplittableRandom(7);
+        users = new List[USERS];
+        for (int i = 0; i < USERS; i++) {
+            users[i] = SyntheticDogs.personality(random);
+        }
+    }
+
+    @Benchmark
+    public List<String> selectCandidates() {
+        List<String> user = users[next++ & (USERS - 1)];
+        return index.selectCandidates(user, candidates);
+    }
+}
@@ -0,0 +1,76 @@
+package com.sfz.mungpy.benchmark;
+
+import com.sfz.mungpy.entity.Dog;
+import com.sfz.mungpy.repository.DogRepository;
+
+import java.lang.reflect.Proxy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * 벤치마크용 가상 강아지 목록. 성향은 실제 데이터처럼 항목마다 두 값 중 하나다.
+ * 같은 seed 면 항상 같은 목록을 만든다.
+ */
+final class SyntheticDogs {
+    private static final String[][] TRAITS = {
+            {"활발", "차분"},
+            {"외향", "내향"},
+            {"산책", "집콕"},
+            {"애교", "무심"},
+            {"독립", "의존"},
+            {"순함", "예민"},
+    };
+    private static final String[] KINDS = {"믹스견", "진돗개", "푸들", "말티즈", "시바견", "리트리버"};
+
+    private SyntheticDogs() {
+    }
+
+    static List<Dog> generate(int size, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        LocalDateTime now = LocalDateTime.of(2024, 8, 1, 0, 0);
+
+        List<Dog> dogs = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            long id = i + 1;
+            dogs.add(Dog.builder()
+                    .id(id)
+                    .age(random.nextInt(1, 15))
+                    .sex(random.nextBoolean() ? "수컷" : "암컷")
+                    .kind(KINDS[random.nextInt(KINDS.length)])
+                    .name("멍멍이" + id)
+                    .image("dog" + id + ".jpg")
+                    .personality(String.join(", ", personality(random)))
+                    .description("사람을 좋아하고 산책을 즐기는 순한 아이예요.")
+                    .rescuePlace("서울특별시 마포구 월드컵로 " + random.nextInt(1, 300))
+                    .protectPlace("마포구 동물보호센터")
+                    .protectTelno("02-000-" + String.format("%04d", random.nextInt(10000)))
+                    .expirationDate(now.plusDays(random.nextInt(30)))
+                    .latitude(37.5 + random.nextDouble() / 10)
+                    .longitude(126.9 + random.nextDouble() / 10)
+                    .build());
+        }
+        return dogs;
+    }
+
+    static List<String> personality(SplittableRandom random) {
+        List<String> personality = new ArrayList<>(TRAITS.length);
+        for (String[] values : TRAITS) {
+            personality.add(values[random.nextInt(values.length)]);
+        }
+        return personality;
+    }
+
+    // PersonalityIndex.rebuild 가 쓰는 findAll 만 지원하는 리포지토리
+    static DogRepository repository(List<Dog> dogs) {
+        return (DogRepository) Proxy.newProxyInstance(DogRepository.class.getClassLoader(),
+                new Class<?>[]{DogRepository.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "findAll" -> dogs;
+                    case "toString" -> "SyntheticDogs.repository(" + dogs.size() + ")";
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}
@@ -0,0 +1,61 @@
+package com.sfz.mungpy.loadtest;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 시뮬레이터 응답 지연 분포. 값은 모두 밀리초다.
+ * <ul>
+ *     <li>{@code none}</li>
+ *     <li>{@code fixed:200}</li>
+ *     <li>{@code uniform:100:300}</li>
+ *     <li>{@code lognormal:200:1500} - 중앙값 200, p99 1500. 실제 모델 서버처럼 꼬리가 긴 분포</li>
+ * </ul>
+ */
+sealed interface Latency {
+    // 표준정규분포의 99 백분위수
+    double Z99 = 2.3263;
+
+    long sampleMillis();
+
+    default void sleep() throws InterruptedException {
+        long millis = sampleMillis();
+        if (millis > 0) Thread.sleep(millis);
+    }
+
+    static Latency parse(String spec) {
+        String[] parts = spec.split(":");
+        return switch (parts[0]) {
+            case "none" -> new Fixed(0);
+            case "fixed" -> new Fixed(Long.parseLong(parts[1]));
+            case "uniform" -> new Uniform(Long.parseLong(parts[1]), Long.parseLong(parts[2]));
+            case "lognormal" -> LogNormal.of(Double.parseDouble(parts[1]), Double.parseDouble(parts[2]));
+            default -> throw new IllegalArgumentException("unknown latency: " + spec);
+        };
+    }
+
+    record Fixed(long millis) implements Latency {
+        @Override
+        public long sampleMillis() {
+            return millis;
+        }
+    }
+
+    record Uniform(long min, long max) implements Latency {
+        @Override
+        public long sampleMillis() {
+            return ThreadLocalRandom.current().nextLong(min, max + 1);
+        }
+    }
+
+    record LogNormal(double mu, double sigma) implements Latency {
+        static LogNormal of(double median, double p99) {
+            double mu = Math.log(median);
+            return new LogNormal(mu, (Math.log(p99) - mu) / Z99);
+        }
+
+        @Override
+        public long sampleMillis() {
+            return Math.round(Math.exp(mu + sigma * ThreadLocalRandom.current().nextGaussian()));
+        }
+    }
+}
@@ -0,0 +1,270 @@
+package com.sfz.mungpy.loadtest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * POST /dog 와 GET /dog/{id} 를 정해진 초당 요청 수로 보내고 처리량, 지연 백분위수, 오류 내역을 출력한다.
+ * 요청은 응답을 기다리지 않고 예정된 시각에 보내며(open model), 지연은 예정 시각부터 재므로
+ * 서버가 밀려도 측정에서 빠지는 요청이 없다. 동시 요청이 max-in-flight 를 넘으면 보내지 않고 dropped 로 센다.
+ *
+ * <pre>
+ * ./gradlew loadTest -PloadArgs="--rps=50 --duration=60s --match-ratio=0.3"
+ * </pre>
+ *
+ * <ul>
+ *     <li>{@code base-url} http://localhost:8080, {@code rps} 20, {@code duration} 60s, {@code warmup} 10s</li>
+ *     <li>{@code match-ratio} 0.2 - POST /dog 비율, 나머지는 GET /dog/{id}</li>
+ *     <li>{@code dog-ids} 1-27, {@code image} 업로드할 사진, {@code timeout} 30s, {@code max-in-flight} 2000</li>
+ *     <li>{@code unique-images} false - 사진마다 무작위 JPEG 주석(COM) 세그먼트를 넣어 바이트를 다르게 한다.
+ *     중복 요청 묶기(matching.dedup)를 켠 채로 재도 매번 파이프라인을 끝까지 타게 할 때 쓴다.
+ *     서버가 업로드를 다시 인코딩하면(upload.downscale) 주석이 사라지므로 max-dimension 이하인 사진과 함께 쓴다.</li>
+ * </ul>
+ */
+public class LoadGenerator {
+    private static final String[][] TRAITS = {
+            {"활발", "차분"},
+            {"외향", "내향"},
+            {"산책", "집콕"},
+            {"애교", "무심"},
+            {"독립", "의존"},
+            {"순함", "예민"},
+    };
+    private static final String BOUNDARY = "mungpy-loadtest-boundary";
+    private static final double[] PERCENTILES = {50, 90, 95, 99, 99.9};
+
+    public static void main(String[] args) throws Exception {
+        Options options = new Options(args);
+
+        String baseUrl = options.get("base-url", "http://localhost:8080");
+        int rps = options.getInt("rps", 20);
+        Duration duration = options.getDuration("duration", Duration.ofSeconds(60));
+        Duration warmup = options.getDuration("warmup", Duration.ofSeconds(10));
+        double matchRatio = options.getDouble("match-ratio", 0.2);
+        Duration timeout = options.getDuration("timeout", Duration.ofSeconds(30));
+        int maxInFlight = options.getInt("max-in-flight", 2000);
+        boolean uniqueImages = options.getBoolean("unique-images", false);
+        byte[] image = Files.readAllBytes(Path.of(options.get("image", "src/main/resources/static/images/Jeju-Jeju-2024-00043.jpg")));
+        String[] dogIds = options.get("dog-ids", "1-27").split("-");
+        long firstDogId = Long.parseLong(dogIds[0]);
+        long lastDogId = Long.parseLong(dogIds[dogIds.length - 1]);
+
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+
+        LoadGenerator generator = new LoadGenerator(client, baseUrl, timeout, image, uniqueImages, matchRatio,
+                firstDogId, lastDogId, maxInFlight);
+
+        System.out.printf("warming up %ds at %d rps against %s%n", warmup.toSeconds(), rps, baseUrl);
+        generator.run(rps, warmup, null);
+
+        int expected = (int) Math.min(Integer.MAX_VALUE - 8, (long) rps * duration.toSeconds() + rps);
+        Report report = new Report(expected);
+        System.out.printf("measuring %ds at %d rps%n", duration.toSeconds(), rps);
+        long started = System.nanoTime();
+        generator.run(rps, duration, report);
+        report.print(Duration.ofNanos(System.nanoTime() - started), rps);
+    }
+
+    private final HttpClient client;
+    private final String baseUrl;
+    private final Duration timeout;
+    private final byte[] image;
+    private final boolean uniqueImages;
+    private final double matchRatio;
+    private final long firstDogId;
+    private final long lastDogId;
+    private final Semaphore inFlight;
+
+    private LoadGenerator(HttpClient client, String baseUrl, Duration timeout, byte[] image, boolean uniqueImages,
+                          double matchRatio, long firstDogId, long lastDogId, int maxInFlight) {
+        this.client = client;
+        this.baseUrl = baseUrl;
+        this.timeout = timeout;
+        this.image = image;
+        this.uniqueImages = uniqueImages;
+        this.matchRatio = matchRatio;
+        this.firstDogId = firstDogId;
+        this.lastDogId = lastDogId;
+        this.inFlight = new Semaphore(maxInFlight);
+    }
+
+    // 모든 요청이 끝나거나 타임아웃될 때까지 기다린 뒤 돌아온다.
+    private void run(int rps, Duration duration, Report report) throws InterruptedException {
+        long interval = 1_000_000_000L / rps;
+        long total = rps * duration.toSeconds();
+        long start = System.nanoTime();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (long i = 0; i < total; i++) {
+                long intended = start + i * interval;
+                long wait = intended - System.nanoTime();
+                if (wait > 0) TimeUnit.NANOSECONDS.sleep(wait);
+
+                boolean match = ThreadLocalRandom.current().nextDouble() < matchRatio;
+                String endpoint = match ? "POST /dog" : "GET /dog/{id}";
+                if (!inFlight.tryAcquire()) {
+                    if (report != null) report.error(endpoint, "dropped");
+                    continue;
+                }
+
+                executor.execute(() -> {
+                    try {
+                        HttpResponse<Void> response = client.send(match ? matchRequest() : showRequest(),
+                                HttpResponse.BodyHandlers.discarding());
+                        if (report == null) return;
+                        if (response.statusCode() >= 400) report.error(endpoint, String.valueOf(response.statusCode()));
+                        else report.success(endpoint, System.nanoTime() - intended);
+                    } catch (IOException e) {
+                        if (report != null) report.error(endpoint, e.getClass().getSimpleName());
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            }
+        }
+    }
+
+    private HttpRequest showRequest() {
+        long dogId = ThreadLocalRandom.current().nextLong(firstDogId, lastDogId + 1);
+        return HttpRequest.newBuilder(URI.create(baseUrl + "/dog/" + dogId))
+                .timeout(timeout)
+                .GET()
+                .build();
+    }
+
+    private HttpRequest matchRequest() {
+        return HttpRequest.newBuilder(URI.create(baseUrl + "/dog"))
+                .timeout(timeout)
+                .header("Content-Type", "multipart/form-data; boundary=" + BOUNDARY)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(multipart()))
+                .build();
+    }
+
+    private byte[] multipart() {
+        ByteArrayOutputStream body = new ByteArrayOutputStream(image.length + 1024);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (String[] values : TRAITS) {
+            write(body, "--" + BOUNDARY + "\r\nContent-Disposition: form-data; name=\"personality\"\r\n\r\n"
+                    + values[random.nextInt(values.length)] + "\r\n");
+        }
+        write(body, "--" + BOUNDARY + "\r\nContent-Disposition: form-data; name=\"image\"; filename=\"face.jpg\"\r\n"
+                + "Content-Type: image/jpeg\r\n\r\n");
+        if (uniqueImages) writeUnique(body, random);
+        else body.writeBytes(image);
+        write(body, "\r\n--" + BOUNDARY + "--\r\n");
+        return body.toByteArray();
+    }
+
+    // SOI(FFD8) 바로 뒤에 16바이트 무작위 값을 담은 COM(FFFE) 세그먼트를 넣는다. 디코딩 결과는 같고 바이트만 달라진다.
+    private void writeUnique(ByteArrayOutputStream body, ThreadLocalRandom random) {
+        byte[] marker = new byte[16];
+        random.nextBytes(marker);
+
+        body.write(image, 0, 2);
+        body.write(0xFF);
+        body.write(0xFE);
+        body.write(0);
+        body.write(marker.length + 2);
+        body.writeBytes(marker);
+        body.write(image, 2, image.length - 2);
+    }
+
+    private static void write(ByteArrayOutputStream out, String text) {
+        out.writeBytes(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 엔드포인트별 성공 지연(나노초)과 오류 원인별 건수.
+     */
+    static class Report {
+        private final int capacity;
+        private final Map<String, Latencies> latencies = new ConcurrentHashMap<>();
+        private final Map<String, LongAdder> errors = new ConcurrentSkipListMap<>();
+
+        Report(int capacity) {
+            this.capacity = capacity;
+        }
+
+        void success(String endpoint, long nanos) {
+            latencies.computeIfAbsent(endpoint, key -> new Latencies(capacity)).add(nanos);
+        }
+
+        void error(String endpoint, String cause) {
+            errors.computeIfAbsent(endpoint + " " + cause, key -> new LongAdder()).increment();
+        }
+
+        void print(Duration elapsed, int rps) {
+            long succeeded = 0;
+            long failed = errors.values().stream().mapToLong(LongAdder::sum).sum();
+
+            System.out.println();
+            System.out.printf("%-16s %8s %9s %9s %9s %9s %9s %9s%n", "endpoint", "count",
+                    "p50", "p90", "p95", "p99", "p99.9", "max");
+            for (Map.Entry<String, Latencies> entry : new TreeMap<>(latencies).entrySet()) {
+                long[] sorted = entry.getValue().sorted();
+                succeeded += sorted.length;
+
+                StringBuilder line = new StringBuilder(String.format("%-16s %8d", entry.getKey(), sorted.length));
+                for (double percentile : PERCENTILES) {
+                    line.append(String.format(" %7.1fms", percentile(sorted, percentile) / 1e6));
+                }
+                line.append(String.format(" %7.1fms", sorted.length == 0 ? 0 : sorted[sorted.length - 1] / 1e6));
+                System.out.println(line);
+            }
+
+            double seconds = elapsed.toNanos() / 1e9;
+            System.out.println();
+            System.out.printf("target %d rps, achieved %.1f rps (%d ok, %d failed in %.1fs)%n",
+                    rps, succeeded / seconds, succeeded, failed, seconds);
+
+            if (!errors.isEmpty()) {
+                System.out.println("errors:");
+                errors.forEach((cause, count) -> System.out.printf("  %-32s %d%n", cause, count.sum()));
+            }
+        }
+
+        private static long percentile(long[] sorted, double percentile) {
+            if (sorted.length == 0) return 0;
+            int index = (int) Math.ceil(percentile / 100 * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+        }
+    }
+
+    private static class Latencies {
+        private final long[] values;
+        private final AtomicInteger size = new AtomicInteger();
+
+        Latencies(int capacity) {
+            this.values = new long[capacity];
+        }
+
+        void add(long nanos) {
+            int index = size.getAndIncrement();
+            if (index < values.length) values[index] = nanos;
+        }
+
+        long[] sorted() {
+            long[] copy = Arrays.copyOf(values, Math.min(size.get(), values.length));
+            Arrays.sort(copy);
+            return copy;
+        }
+    }
+}
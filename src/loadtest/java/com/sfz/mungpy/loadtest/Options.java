@@ -0,0 +1,56 @@
+package com.sfz.mungpy.loadtest;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * {@code --key=value} 형식의 실행 인자. 없는 키는 기본값을 쓴다.
+ */
+final class Options {
+    private final Map<String, String> values = new HashMap<>();
+
+    Options(String[] args) {
+        for (String arg : args) {
+            if (!arg.startsWith("--")) throw new IllegalArgumentException("expected --key=value: " + arg);
+
+            int eq = arg.indexOf('=');
+            if (eq < 0) values.put(arg.substring(2), "true");
+            else values.put(arg.substring(2, eq), arg.substring(eq + 1));
+        }
+    }
+
+    String get(String key, String defaultValue) {
+        return values.getOrDefault(key, defaultValue);
+    }
+
+    int getInt(String key, int defaultValue) {
+        String value = values.get(key);
+        return value == null ? defaultValue : Integer.parseInt(value);
+    }
+
+    boolean getBoolean(String key, boolean defaultValue) {
+        String value = values.get(key);
+        return value == null ? defaultValue : Boolean.parseBoolean(value);
+    }
+
+    double getDouble(String key, double defaultValue) {
+        String value = values.get(key);
+        return value == null ? defaultValue : Double.parseDouble(value);
+    }
+
+    // 30s, 500ms, 2m 처럼 단위를 붙이거나 숫자만 쓰면 초로 본다.
+    Duration getDuration(String key, Duration defaultValue) {
+        String value = values.get(key);
+        if (value == null) return defaultValue;
+
+        if (value.endsWith("ms")) return Duration.ofMillis(Long.parseLong(value.substring(0, value.length() - 2)));
+        if (value.endsWith("s")) return Duration.ofSeconds(Long.parseLong(value.substring(0, value.length() - 1)));
+        if (value.endsWith("m")) return Duration.ofMinutes(Long.parseLong(value.substring(0, value.length() - 1)));
+        return Duration.ofSeconds(Long.parseLong(value));
+    }
+
+    Latency getLatency(String key, String defaultValue) {
+        return Latency.parse(get(key, defaultValue));
+    }
+}
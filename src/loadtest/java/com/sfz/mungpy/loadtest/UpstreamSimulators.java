@@ -0,0 +1,265 @@
+package com.sfz.mungpy.loadtest;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 부하 테스트용 외부 서버 대역. 얼굴 매칭 서버, 카카오 로컬 API, OpenAI 채팅 API 를 각각 다른 포트로 띄운다.
+ * 지연 분포와 오류율은 대상별로 정하며, 오류는 503 으로 응답한다.
+ * 앱은 loadtest 프로필(application-loadtest.yml)로 띄우면 이 서버들을 바라본다.
+ *
+ * <pre>
+ * ./gradlew upstreamSimulators -PsimArgs="--face.latency=lognormal:300:2000 --openai.error-rate=0.02"
+ * </pre>
+ *
+ * <ul>
+ *     <li>{@code face.port} 18081, {@code face.latency}, {@code face.error-rate}, {@code face.embedding-dim} 512</li>
+ *     <li>{@code kakao.port} 18082, {@code kakao.latency}, {@code kakao.error-rate}, {@code kakao.miss-rate}</li>
+ *     <li>{@code openai.port} 18083, {@code openai.latency}(첫 토큰까지), {@code openai.token-latency}, {@code openai.error-rate},
+ *     {@code openai.description}, {@code openai.match-reason}</li>
+ * </ul>
+ */
+public class UpstreamSimulators {
+    private static final String ANALYZE_FORMAT = "{첫 번째 응답 결과}/{두 번째 응답 결과}";
+
+    public static void main(String[] args) throws IOException {
+        Options options = new Options(args);
+
+        start(options.getInt("face.port", 18081), new FaceMatcher(
+                options.getLatency("face.latency", "lognormal:300:1500"),
+                options.getDouble("face.error-rate", 0),
+                options.getInt("face.embedding-dim", 512)));
+
+        start(options.getInt("kakao.port", 18082), new Kakao(
+                options.getLatency("kakao.latency", "lognormal:40:200"),
+                options.getDouble("kakao.error-rate", 0),
+                options.getDouble("kakao.miss-rate", 0)));
+
+        start(options.getInt("openai.port", 18083), new OpenAI(
+                options.getLatency("openai.latency", "lognormal:800:4000"),
+                options.getLatency("openai.token-latency", "uniform:10:40"),
+                options.getDouble("openai.error-rate", 0),
+                options.get("openai.description", "순둥순둥한 방콕러"),
+                options.get("openai.match-reason", "당신에게 이 아이를 추천한 이유는 둘 다 느긋한 하루를 좋아하기 때문이에요. "
+                        + "함께 산책하고 쉬는 시간이 서로에게 위로가 될 거예요. 서두르지 않는 당신과 잘 어울려요.")));
+    }
+
+    private static void start(int port, HttpHandler handler) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress(port), 1024);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext("/", exchange -> {
+            try (exchange) {
+                handler.handle(exchange);
+            } catch (IOException e) {
+                // 클라이언트 타임아웃으로 끊긴 연결
+            }
+        });
+        server.start();
+        System.out.printf("%s listening on http://localhost:%d%n", handler.getClass().getSimpleName(), port);
+    }
+
+    private static boolean fail(double errorRate) {
+        return errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate;
+    }
+
+    private static void sleep(Latency latency) throws IOException {
+        try {
+            latency.sleep();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        }
+    }
+
+    private static void send(HttpExchange exchange, int status, String contentType, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+        if (bytes.length > 0) {
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        }
+    }
+
+    private static void unavailable(HttpExchange exchange) throws IOException {
+        send(exchange, 503, "application/json", "{\"error\":\"simulated failure\"}");
+    }
+
+    static String json(String value) {
+        StringBuilder escaped = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> escaped.append("\\\"");
+                case '\\' -> escaped.append("\\\\");
+                case '\n' -> escaped.append("\\n");
+                case '\r' -> escaped.append("\\r");
+                case '\t' -> escaped.append("\\t");
+                default -> {
+                    if (c < 0x20) escaped.append(String.format("\\u%04x", (int) c));
+                    else escaped.append(c);
+                }
+            }
+        }
+        return escaped.append('"').toString();
+    }
+
+    /**
+     * /find_similar_dogs 는 multipart 의 list 파트("[a.jpg, b.jpg]")에서 후보 하나를 골라 돌려주고,
+     * /embed 는 길이 1 인 임의 벡터를 돌려준다.
+     */
+    record FaceMatcher(Latency latency, double errorRate, int embeddingDim) implements HttpHandler {
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.ISO_8859_1);
+            sleep(latency);
+            if (fail(errorRate)) {
+                unavailable(exchange);
+                return;
+            }
+
+            switch (exchange.getRequestURI().getPath()) {
+                case "/find_similar_dogs" -> {
+                    List<String> candidates = candidates(body);
+                    if (candidates.isEmpty()) {
+                        send(exchange, 400, "application/json", "{\"error\":\"no candidates\"}");
+                        return;
+                    }
+                    String image = candidates.get(ThreadLocalRandom.current().nextInt(candidates.size()));
+                    send(exchange, 200, "application/json", "{\"data\":" + json(image) + "}");
+                }
+                case "/embed" -> send(exchange, 200, "application/json", "{\"embedding\":" + embedding() + "}");
+                default -> send(exchange, 404, "application/json", "{}");
+            }
+        }
+
+        private static List<String> candidates(String multipart) {
+            int part = multipart.indexOf("name=\"list\"");
+            if (part < 0) return List.of();
+            int start = multipart.indexOf('[', part);
+            int end = multipart.indexOf(']', start);
+            if (start < 0 || end < 0) return List.of();
+
+            List<String> candidates = new ArrayList<>();
+            for (String candidate : multipart.substring(start + 1, end).split(",")) {
+                if (!candidate.isBlank()) candidates.add(candidate.trim());
+            }
+            return candidates;
+        }
+
+        private String embedding() {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            double[] vector = new double[embeddingDim];
+            double norm = 0;
+            for (int i = 0; i < embeddingDim; i++) {
+                vector[i] = random.nextGaussian();
+                norm += vector[i] * vector[i];
+            }
+            norm = Math.sqrt(norm);
+
+            StringBuilder json = new StringBuilder(embeddingDim * 12).append('[');
+            for (int i = 0; i < embeddingDim; i++) {
+                if (i > 0) json.append(',');
+                json.append((float) (vector[i] / norm));
+            }
+            return json.append(']').toString();
+        }
+    }
+
+    /**
+     * /v2/local/search/keyword. 서울 시내 임의 좌표 한 곳을 돌려주고, miss-rate 비율로 빈 결과를 준다.
+     */
+    record Kakao(Latency latency, double errorRate, double missRate) implements HttpHandler {
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            sleep(latency);
+            if (fail(errorRate)) {
+                unavailable(exchange);
+                return;
+            }
+            if (!exchange.getRequestURI().getPath().equals("/v2/local/search/keyword")) {
+                send(exchange, 404, "application/json", "{}");
+                return;
+            }
+
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            String documents = "[]";
+            if (!fail(missRate)) {
+                documents = "[{\"id\":\"" + random.nextInt(1_000_000) + "\",\"place_name\":\"동물보호센터\","
+                        + "\"address_name\":\"서울 마포구\",\"road_address_name\":\"서울 마포구 월드컵로\","
+                        + "\"x\":\"" + (126.9 + random.nextDouble() / 10) + "\",\"y\":\"" + (37.5 + random.nextDouble() / 10) + "\"}]";
+            }
+            send(exchange, 200, "application/json", "{\"documents\":" + documents + ",\"meta\":{\"total_count\":1}}");
+        }
+    }
+
+    /**
+     * /v1/chat/completions. 요청 본문에 "stream":true 가 있으면 SSE 청크로, 아니면 한 번에 응답한다.
+     * 설명과 매칭 이유를 함께 요청하는 프롬프트에는 "설명/이유" 형식으로 답한다.
+     */
+    record OpenAI(Latency latency, Latency tokenLatency, double errorRate,
+                  String description, String matchReason) implements HttpHandler {
+
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            sleep(latency);
+            if (fail(errorRate)) {
+                unavailable(exchange);
+                return;
+            }
+            if (!exchange.getRequestURI().getPath().endsWith("/chat/completions")) {
+                send(exchange, 404, "application/json", "{}");
+                return;
+            }
+
+            String content = body.contains(ANALYZE_FORMAT) ? description + "/" + matchReason
+                    : body.contains("한 마디만 말해줘") ? description
+                    : matchReason;
+
+            if (body.replace(" ", "").contains("\"stream\":true")) stream(exchange, content);
+            else send(exchange, 200, "application/json", completion(content));
+        }
+
+        private static String completion(String content) {
+            return "{\"id\":\"chatcmpl-sim\",\"object\":\"chat.completion\",\"created\":" + System.currentTimeMillis() / 1000
+                    + ",\"model\":\"gpt-4o\",\"choices\":[{\"index\":0,\"message\":{\"role\":\"assistant\",\"content\":"
+                    + json(content) + "},\"finish_reason\":\"stop\"}],"
+                    + "\"usage\":{\"prompt_tokens\":100,\"completion_tokens\":" + content.length() + ",\"total_tokens\":" + (100 + content.length()) + "}}";
+        }
+
+        // 실제 모델처럼 어절 단위 조각을 token-latency 간격으로 보낸다.
+        private void stream(HttpExchange exchange, String content) throws IOException {
+            exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
+            exchange.sendResponseHeaders(200, 0);
+
+            try (OutputStream out = exchange.getResponseBody()) {
+                String[] words = content.split("(?<= )");
+                for (String word : words) {
+                    out.write(chunk(json(word), "null"));
+                    out.flush();
+                    sleep(tokenLatency);
+                }
+                out.write(chunk("\"\"", "\"stop\""));
+                out.write("data: [DONE]\n\n".getBytes(StandardCharsets.UTF_8));
+            }
+        }
+
+        private static byte[] chunk(String content, String finishReason) {
+            return ("data: {\"id\":\"chatcmpl-sim\",\"object\":\"chat.completion.chunk\",\"created\":" + System.currentTimeMillis() / 1000
+                    + ",\"model\":\"gpt-4o\",\"choices\":[{\"index\":0,\"delta\":{\"role\":\"assistant\",\"content\":" + content
+                    + "},\"finish_reason\":" + finishReason + "}]}\n\n").getBytes(StandardCharsets.UTF_8);
+        }
+    }
+}
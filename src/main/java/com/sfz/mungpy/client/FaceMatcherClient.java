@@ -0,0 +1,66 @@
+package com.sfz.mungpy.client;
+
+import com.sfz.mungpy.dto.FaceEmbeddingResponse;
+import com.sfz.mungpy.dto.PythonResponse;
+import com.sfz.mungpy.exception.DogNotFoundException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+
+import java.net.URI;
+import java.util.List;
+
+@Slf4j
+@Component
+public class FaceMatcherClient {
+    private final UpstreamClient upstream;
+
+    public FaceMatcherClient(@Qualifier("faceMatcherUpstream") UpstreamClient upstream) {
+        this.upstream = upstream;
+    }
+
+    // 후보 이미지 중 사용자 얼굴과 가장 닮은 강아지의 이미지 이름
+    public String findSimilarDog(Resource image, List<String> candidates) {
+        MultiValueMap<String, Object> bodyMap = new LinkedMultiValueMap<>();
+        bodyMap.add("image", image);
+        bodyMap.add("list", candidates.toString());
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.MULTIPART_FORM_DATA);
+
+        URI uri = upstream.uri("/find_similar_dogs").build().toUri();
+        PythonResponse response = upstream.call("find_similar_dogs",
+                restTemplate -> restTemplate.postForObject(uri, new HttpEntity<>(bodyMap, headers), PythonResponse.class));
+
+        if (response == null) throw new DogNotFoundException();
+
+        log.debug("find_similar_dogs: {}", response.getData());
+
+        return response.getData();
+    }
+
+    // 이미지 한 장의 얼굴 임베딩
+    public float[] embed(Resource image) {
+        MultiValueMap<String, Object> bodyMap = new LinkedMultiValueMap<>();
+        bodyMap.add("image", image);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.MULTIPART_FORM_DATA);
+
+        URI uri = upstream.uri("/embed").build().toUri();
+        FaceEmbeddingResponse response = upstream.call("embed",
+                restTemplate -> restTemplate.postForObject(uri, new HttpEntity<>(bodyMap, headers), FaceEmbeddingResponse.class));
+
+        if (response == null || response.getEmbedding() == null || response.getEmbedding().length == 0) {
+            throw new DogNotFoundException();
+        }
+
+        return response.getEmbedding();
+    }
+}
@@ -0,0 +1,47 @@
+package com.sfz.mungpy.client;
+
+import com.sfz.mungpy.dto.KakaoMapResponse;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.util.Optional;
+
+@Component
+public class KakaoLocalClient {
+    private final String kakaoKey;
+    private final UpstreamClient upstream;
+
+    public KakaoLocalClient(@Value("${kakaoapi.secret-key}") String kakaoKey,
+                            @Qualifier("kakaoUpstream") UpstreamClient upstream) {
+
+        this.kakaoKey = kakaoKey;
+        this.upstream = upstream;
+    }
+
+    // 키워드 검색 결과의 첫 번째 장소
+    public Optional<KakaoMapResponse.Document> searchKeyword(String query) {
+        URI uri = upstream.uri("/v2/local/search/keyword")
+                .queryParam("size", 1)
+                .queryParam("query", query)
+                .encode()
+                .build()
+                .toUri();
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("Authorization", "KakaoAK " + kakaoKey);
+
+        KakaoMapResponse response = upstream.call("search_keyword",
+                restTemplate -> restTemplate.exchange(uri, HttpMethod.GET, new HttpEntity<>(headers), KakaoMapResponse.class).getBody());
+
+        if (response == null || response.getDocuments() == null || response.getDocuments().isEmpty()) {
+            return Optional.empty();
+        }
+
+        return Optional.of(response.getDocuments().get(0));
+    }
+}
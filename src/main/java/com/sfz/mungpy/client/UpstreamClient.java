@@ -0,0 +1,159 @@
+package com.sfz.mungpy.client;
+
+import com.sfz.mungpy.config.UpstreamProperties;
+import com.sfz.mungpy.exception.UpstreamUnavailableException;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.Getter;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClientBuilder;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.io.IOException;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * 외부 호출 대상 하나에 대한 공용 클라이언트.
+ * 대상마다 별도의 연결 풀을 두고, bulkhead 로 동시 호출 수를, 서킷 브레이커로 장애 전파를 제한한다.
+ * 느린 대상 하나가 Tomcat 워커 스레드를 모두 붙잡지 못하도록 한도를 넘는 호출은 바로 거절한다.
+ */
+public class UpstreamClient implements AutoCloseable {
+    @Getter
+    private final String name;
+    private final String baseUrl;
+    private final CloseableHttpClient httpClient;
+    private final RestTemplate restTemplate;
+    private final CircuitBreaker circuitBreaker;
+    private final Bulkhead bulkhead;
+    private final MeterRegistry meterRegistry;
+    private final Counter rejected;
+
+    public UpstreamClient(String name, UpstreamProperties.Client properties, UpstreamProperties.Proxy proxy,
+                          RestTemplateBuilder restTemplateBuilder, MeterRegistry meterRegistry) {
+
+        this.name = name;
+        this.baseUrl = properties.getBaseUrl();
+        this.meterRegistry = meterRegistry;
+
+        // 연결 시간 제한은 5.2 부터 RequestConfig 가 아니라 연결 관리자의 ConnectionConfig 에 둔다.
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(properties.getMaxConnections())
+                .setMaxConnPerRoute(properties.getMaxConnections())
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.of(properties.getConnectTimeout()))
+                        .build())
+                .build();
+
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectionRequestTimeout(Timeout.of(properties.getConnectTimeout()))
+                .setResponseTimeout(Timeout.of(properties.getReadTimeout()))
+                .build();
+
+        HttpClientBuilder httpClientBuilder = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .setKeepAliveStrategy((response, context) -> TimeValue.of(properties.getKeepAlive()))
+                .evictIdleConnections(TimeValue.of(properties.getKeepAlive()));
+        if (proxy.getHost() != null && !proxy.getHost().isBlank()) {
+            httpClientBuilder.setProxy(new HttpHost(proxy.getHost(), proxy.getPort()));
+        }
+        this.httpClient = httpClientBuilder.build();
+
+        HttpComponentsClientHttpRequestFactory factory = new HttpComponentsClientHttpRequestFactory(httpClient);
+        this.restTemplate = restTemplateBuilder.requestFactory(() -> factory).build();
+
+        this.circuitBreaker = CircuitBreaker.of(name, CircuitBreakerConfig.custom()
+                .failureRateThreshold(properties.getFailureRateThreshold())
+                .slowCallDurationThreshold(properties.getReadTimeout())
+                .slidingWindowSize(20)
+                .minimumNumberOfCalls(10)
+                .waitDurationInOpenState(properties.getOpenStateWait())
+                .permittedNumberOfCallsInHalfOpenState(2)
+                .ignoreExceptions(HttpClientErrorException.class)
+                .build());
+
+        this.bulkhead = Bulkhead.of(name, BulkheadConfig.custom()
+                .maxConcurrentCalls(properties.getMaxConcurrentCalls())
+                .maxWaitDuration(properties.getMaxWait())
+                .build());
+
+        this.rejected = Counter.builder("mungpy.upstream.rejected")
+                .tag("upstream", name)
+                .register(meterRegistry);
+
+        Gauge.builder("mungpy.upstream.pool.leased", connectionManager, cm -> cm.getTotalStats().getLeased())
+                .tag("upstream", name)
+                .register(meterRegistry);
+        Gauge.builder("mungpy.upstream.pool.pending", connectionManager, cm -> cm.getTotalStats().getPending())
+                .tag("upstream", name)
+                .register(meterRegistry);
+        Gauge.builder("mungpy.upstream.pool.available", connectionManager, cm -> cm.getTotalStats().getAvailable())
+                .tag("upstream", name)
+                .register(meterRegistry);
+        Gauge.builder("mungpy.upstream.pool.max", connectionManager, cm -> cm.getTotalStats().getMax())
+                .tag("upstream", name)
+                .register(meterRegistry);
+        Gauge.builder("mungpy.upstream.bulkhead.available", bulkhead, b -> b.getMetrics().getAvailableConcurrentCalls())
+                .tag("upstream", name)
+                .register(meterRegistry);
+        Gauge.builder("mungpy.upstream.circuit.state", circuitBreaker, cb -> cb.getState().getOrder())
+                .tag("upstream", name)
+                .register(meterRegistry);
+    }
+
+    public UriComponentsBuilder uri(String path) {
+        return UriComponentsBuilder.fromHttpUrl(baseUrl).path(path);
+    }
+
+    public <T> T call(String operation, Function<RestTemplate, T> request) {
+        Supplier<T> timed = () -> {
+            Timer.Sample sample = Timer.start(meterRegistry);
+            String outcome = "error";
+            try {
+                T result = request.apply(restTemplate);
+                outcome = "success";
+                return result;
+            } finally {
+                sample.stop(Timer.builder("mungpy.upstream.requests")
+                        .tag("upstream", name)
+                        .tag("operation", operation)
+                        .tag("outcome", outcome)
+                        .publishPercentileHistogram()
+                        .register(meterRegistry));
+            }
+        };
+
+        try {
+            return Bulkhead.decorateSupplier(bulkhead, CircuitBreaker.decorateSupplier(circuitBreaker, timed)).get();
+        } catch (BulkheadFullException | CallNotPermittedException e) {
+            rejected.increment();
+            throw new UpstreamUnavailableException(name + ": " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        httpClient.close();
+    }
+}
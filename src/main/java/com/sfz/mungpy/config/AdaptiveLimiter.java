@@ -0,0 +1,209 @@
+package com.sfz.mungpy.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * AIMD 로 동시 처리 한도를 조절한다.
+ * 지연이 latency-threshold 를 넘거나 5xx 로 끝나면 한도를 backoff-ratio 만큼 줄이고,
+ * 한도의 절반 이상을 쓰는 동안 빠르게 끝나면 한도를 조금씩(1/한도) 늘린다.
+ * 한도가 차면 max-queue 까지 max-wait 동안 순서대로 기다리고, 그래도 자리가 없으면 거절한다.
+ * 빈 자리는 줄의 맨 앞 요청에게 바로 넘겨, 줄이 있는 동안 새로 온 요청이 끼어들지 못하게 한다.
+ * 가상 스레드가 기다리는 동안 캐리어 스레드를 잡지 않도록 synchronized 대신 ReentrantLock 을 쓴다.
+ */
+public class AdaptiveLimiter {
+    public enum Outcome {
+        ADMITTED, QUEUED, REJECTED_QUEUE_FULL, REJECTED_TIMEOUT
+    }
+
+    private final String name;
+    private final AdmissionProperties.Limit settings;
+    private final ReentrantLock lock = new ReentrantLock(true);
+    private final ArrayDeque<Waiter> waiters = new ArrayDeque<>();
+
+    private double limit;
+    private int inFlight;
+    // 처리 시간 지수 이동 평균. Retry-After 계산에 쓴다.
+    private double averageLatencyNanos;
+
+    private final Counter admitted;
+    private final Counter queued;
+    private final Counter rejectedQueueFull;
+    private final Counter rejectedTimeout;
+    private final Counter dropped;
+
+    public AdaptiveLimiter(String name, AdmissionProperties.Limit settings, MeterRegistry meterRegistry) {
+        this.name = name;
+        this.settings = settings;
+        this.limit = settings.getInitialLimit();
+
+        Gauge.builder("mungpy.admission.limit", this, AdaptiveLimiter::limit)
+                .description("현재 동시 처리 한도")
+                .tag("limiter", name)
+                .register(meterRegistry);
+        Gauge.builder("mungpy.admission.inflight", this, AdaptiveLimiter::inFlight)
+                .tag("limiter", name)
+                .register(meterRegistry);
+        Gauge.builder("mungpy.admission.queued", this, AdaptiveLimiter::waiting)
+                .tag("limiter", name)
+                .register(meterRegistry);
+        this.admitted = requests(meterRegistry, name, "admitted");
+        this.queued = requests(meterRegistry, name, "queued");
+        this.rejectedQueueFull = requests(meterRegistry, name, "rejected_queue_full");
+        this.rejectedTimeout = requests(meterRegistry, name, "rejected_timeout");
+        this.dropped = Counter.builder("mungpy.admission.drops")
+                .description("한도를 줄인 느린 응답이나 5xx")
+                .tag("limiter", name)
+                .register(meterRegistry);
+    }
+
+    public String name() {
+        return name;
+    }
+
+    /**
+     * 자리가 나면 ADMITTED 또는 QUEUED(기다린 뒤 들어감)를, 못 들어가면 REJECTED_* 를 돌려준다.
+     * 들어간 경우에만 끝난 뒤 {@link #release} 를 불러야 한다.
+     */
+    public Outcome acquire() throws InterruptedException {
+        lock.lock();
+        try {
+            if (waiters.isEmpty() && inFlight < currentLimit()) {
+                inFlight++;
+                admitted.increment();
+                return Outcome.ADMITTED;
+            }
+            if (waiters.size() >= settings.getMaxQueue()) {
+                rejectedQueueFull.increment();
+                return Outcome.REJECTED_QUEUE_FULL;
+            }
+
+            Waiter waiter = new Waiter(lock.newCondition());
+            waiters.addLast(waiter);
+            long nanos = settings.getMaxWait().toNanos();
+            try {
+                while (!waiter.granted) {
+                    if (nanos <= 0) {
+                        waiters.remove(waiter);
+                        rejectedTimeout.increment();
+                        return Outcome.REJECTED_TIMEOUT;
+                    }
+                    nanos = waiter.condition.awaitNanos(nanos);
+                }
+            } catch (InterruptedException e) {
+                // 자리를 받은 뒤에 끊겼으면 다음 요청에게 넘긴다.
+                if (waiter.granted) {
+                    inFlight--;
+                    grant();
+                } else {
+                    waiters.remove(waiter);
+                }
+                throw e;
+            }
+            queued.increment();
+            return Outcome.QUEUED;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @param latencyNanos 들어간 뒤 끝날 때까지 걸린 시간
+     * @param failed       5xx 나 예외로 끝났는지
+     */
+    public void release(long latencyNanos, boolean failed) {
+        lock.lock();
+        try {
+            int before = inFlight;
+            inFlight--;
+            averageLatencyNanos = averageLatencyNanos == 0 ? latencyNanos : averageLatencyNanos * 0.9 + latencyNanos * 0.1;
+
+            if (failed || latencyNanos > settings.getLatencyThreshold().toNanos()) {
+                limit = Math.max(settings.getMinLimit(), limit * settings.getBackoffRatio());
+                dropped.increment();
+            } else if (before * 2 >= limit) {
+                limit = Math.min(settings.getMaxLimit(), limit + 1 / limit);
+            }
+
+            grant();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // 지금 줄에 선 요청이 모두 빠지는 데 걸릴 대략의 시간. 최소 1초.
+    public long retryAfterSeconds() {
+        lock.lock();
+        try {
+            double seconds = averageLatencyNanos / TimeUnit.SECONDS.toNanos(1) * (waiters.size() + 1) / Math.max(1, currentLimit());
+            return Math.max(1, (long) Math.ceil(seconds));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int limit() {
+        lock.lock();
+        try {
+            return currentLimit();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int inFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int waiting() {
+        lock.lock();
+        try {
+            return waiters.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int currentLimit() {
+        return (int) limit;
+    }
+
+    // 한도 안에서 줄의 앞쪽부터 자리를 넘긴다. 넘긴 자리는 여기서 inFlight 에 더한다.
+    private void grant() {
+        while (!waiters.isEmpty() && inFlight < currentLimit()) {
+            Waiter waiter = waiters.pollFirst();
+            waiter.granted = true;
+            inFlight++;
+            waiter.condition.signal();
+        }
+    }
+
+    private static final class Waiter {
+        private final Condition condition;
+        // lock 을 쥔 채로만 읽고 쓴다.
+        private boolean granted;
+
+        Waiter(Condition condition) {
+            this.condition = condition;
+        }
+    }
+
+    private static Counter requests(MeterRegistry meterRegistry, String name, String outcome) {
+        return Counter.builder("mungpy.admission.requests")
+                .description("동시 처리 한도 판정 결과")
+                .tag("limiter", name)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,28 @@
+package com.sfz.mungpy.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+@Configuration
+@EnableConfigurationProperties(AdmissionProperties.class)
+@ConditionalOnProperty(name = "admission.enabled", havingValue = "true", matchIfMissing = true)
+public class AdmissionControlConfig {
+    // 요청 지표 필터(HIGHEST_PRECEDENCE + 1) 뒤에 두어 429 응답도 http.server.requests 에 남게 한다.
+    @Bean
+    public FilterRegistrationBean<AdmissionControlFilter> admissionControlFilter(AdmissionProperties properties,
+                                                                                 MeterRegistry meterRegistry) {
+        AdmissionControlFilter filter = new AdmissionControlFilter(
+                new AdaptiveLimiter("match", properties.getMatch(), meterRegistry),
+                new AdaptiveLimiter("read", properties.getRead(), meterRegistry));
+
+        FilterRegistrationBean<AdmissionControlFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+        registration.setAsyncSupported(true);
+        return registration;
+    }
+}
@@ -0,0 +1,132 @@
+package com.sfz.mungpy.config;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Pattern;
+
+/**
+ * 비싼 매칭 요청(POST /dog, /dog/stream)과 가벼운 조회(GET /dog/{id}, GET /shelter)에 각각 적응형 동시 처리 한도를 건다.
+ * 자리가 없으면 잠시 줄을 세우고, 그래도 안 되면 429 와 Retry-After 로 바로 돌려보낸다.
+ * SSE 처럼 비동기로 이어지는 요청은 비동기 처리가 끝날 때 자리를 반납한다.
+ */
+@Slf4j
+public class AdmissionControlFilter extends OncePerRequestFilter {
+    private static final Pattern DOG_BY_ID = Pattern.compile("/dog/\\d+");
+
+    private final AdaptiveLimiter match;
+    private final AdaptiveLimiter read;
+
+    public AdmissionControlFilter(AdaptiveLimiter match, AdaptiveLimiter read) {
+        this.match = match;
+        this.read = read;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+
+        AdaptiveLimiter limiter = limiterFor(request);
+        if (limiter == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        AdaptiveLimiter.Outcome outcome;
+        try {
+            outcome = limiter.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            reject(limiter, response);
+            return;
+        }
+        if (outcome == AdaptiveLimiter.Outcome.REJECTED_QUEUE_FULL || outcome == AdaptiveLimiter.Outcome.REJECTED_TIMEOUT) {
+            reject(limiter, response);
+            return;
+        }
+
+        Permit permit = new Permit(limiter, System.nanoTime());
+        boolean failed = true;
+        try {
+            chain.doFilter(request, response);
+            failed = false;
+        } finally {
+            if (!failed && request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(permit);
+            } else {
+                permit.release(failed || response.getStatus() >= 500);
+            }
+        }
+    }
+
+    private AdaptiveLimiter limiterFor(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        String method = request.getMethod();
+
+        if ("POST".equals(method) && (path.equals("/dog") || path.equals("/dog/stream"))) return match;
+        if ("GET".equals(method) && (DOG_BY_ID.matcher(path).matches() || path.equals("/shelter") || path.startsWith("/shelter/"))) {
+            return read;
+        }
+        return null;
+    }
+
+    private static void reject(AdaptiveLimiter limiter, HttpServletResponse response) throws IOException {
+        log.debug("admission rejected: limiter={}, limit={}", limiter.name(), limiter.limit());
+
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(limiter.retryAfterSeconds()));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.getWriter().write("{\"message\":\"요청이 많아 잠시 후 다시 시도해 주세요.\"}");
+    }
+
+    // 동기 요청은 필터에서, 비동기 요청은 완료, 시간 초과, 오류 중 먼저 온 것에서 한 번만 반납한다.
+    private static final class Permit implements AsyncListener {
+        private final AdaptiveLimiter limiter;
+        private final long started;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        Permit(AdaptiveLimiter limiter, long started) {
+            this.limiter = limiter;
+            this.started = started;
+        }
+
+        void release(boolean failed) {
+            if (released.compareAndSet(false, true)) limiter.release(System.nanoTime() - started, failed);
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            HttpServletResponse response = (HttpServletResponse) event.getSuppliedResponse();
+            release(response != null && response.getStatus() >= 500);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            release(true);
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            release(true);
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            // 같은 요청이 비동기를 다시 시작하면 계속 따라간다.
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.sfz.mungpy.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 경로별 동시 처리 한도. match 는 POST /dog 처럼 외부 모델을 부르는 요청, read 는 GET /dog/{id}, GET /shelter 이다.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "admission")
+public class AdmissionProperties {
+    private boolean enabled = true;
+    private Limit match = new Limit(8, 2, 64, 16, Duration.ofSeconds(2), Duration.ofSeconds(20));
+    private Limit read = new Limit(100, 10, 400, 200, Duration.ofMillis(200), Duration.ofMillis(500));
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Limit {
+        private int initialLimit;
+        private int minLimit;
+        private int maxLimit;
+        // 한도가 찼을 때 기다릴 수 있는 요청 수와 시간
+        private int maxQueue;
+        private Duration maxWait;
+        // 이보다 오래 걸리면 과부하로 보고 한도를 줄인다
+        private Duration latencyThreshold;
+        private double backoffRatio = 0.9;
+
+        Limit(int initialLimit, int minLimit, int maxLimit, int maxQueue, Duration maxWait, Duration latencyThreshold) {
+            this(initialLimit, minLimit, maxLimit, maxQueue, maxWait, latencyThreshold, 0.9);
+        }
+    }
+}
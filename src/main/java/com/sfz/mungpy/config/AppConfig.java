@@ -1,24 +1,25 @@
 package com.sfz.mungpy.config;
 
-import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
-import org.apache.hc.client5.http.impl.classic.HttpClients;
-import org.apache.hc.core5.http.HttpHost;
+import com.sfz.mungpy.client.UpstreamClient;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
-import org.springframework.web.client.RestTemplate;
 
 
 @Configuration
+@EnableConfigurationProperties(UpstreamProperties.class)
 public class AppConfig {
     @Bean
-    public RestTemplate restTemplate(RestTemplateBuilder builder) {
-        HttpHost proxy = new HttpHost("krmp-proxy.9rum.cc", 3128);
-        CloseableHttpClient httpClient = HttpClients.custom()
-                .setProxy(proxy)
-                .build();
-        HttpComponentsClientHttpRequestFactory factory = new HttpComponentsClientHttpRequestFactory(httpClient);
-        return builder.requestFactory(() -> factory).build();
+    public UpstreamClient faceMatcherUpstream(UpstreamProperties properties, RestTemplateBuilder builder,
+                                              MeterRegistry meterRegistry) {
+        return new UpstreamClient("face-matcher", properties.getFaceMatcher(), properties.getProxy(), builder, meterRegistry);
+    }
+
+    @Bean
+    public UpstreamClient kakaoUpstream(UpstreamProperties properties, RestTemplateBuilder builder,
+                                        MeterRegistry meterRegistry) {
+        return new UpstreamClient("kakao", properties.getKakao(), properties.getProxy(), builder, meterRegistry);
     }
 }
@@ -0,0 +1,72 @@
+package com.sfz.mungpy.config;
+
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.transaction.TransactionExecution;
+import org.springframework.transaction.TransactionExecutionListener;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.util.WebUtils;
+
+import java.time.Duration;
+
+/**
+ * 쓰기 트랜잭션이 커밋되면 그 요청과, 쿠키를 돌려보내는 이후 요청의 읽기를 잠시 주 DB 로 보낸다.
+ * 복제 지연 때문에 방금 쓴 내용이 안 보이는 일을 막는다. 요청 밖(배치, 스케줄러)에서는 아무것도 하지 않는다.
+ */
+public class ReadYourWrites implements TransactionExecutionListener {
+    public static final String COOKIE = "mungpy-primary";
+    private static final String ATTRIBUTE = ReadYourWrites.class.getName() + ".until";
+
+    private final Duration window;
+
+    public ReadYourWrites(Duration window) {
+        this.window = window;
+    }
+
+    @Override
+    public void afterCommit(TransactionExecution transaction, Throwable commitFailure) {
+        if (commitFailure != null || transaction.isReadOnly()) return;
+
+        ServletRequestAttributes attributes = current();
+        if (attributes == null) return;
+
+        long until = System.currentTimeMillis() + window.toMillis();
+        attributes.getRequest().setAttribute(ATTRIBUTE, until);
+
+        HttpServletResponse response = attributes.getResponse();
+        if (response != null && !response.isCommitted()) {
+            Cookie cookie = new Cookie(COOKIE, Long.toString(until));
+            cookie.setPath("/");
+            cookie.setHttpOnly(true);
+            cookie.setMaxAge((int) Math.max(1, window.toSeconds()));
+            response.addCookie(cookie);
+        }
+    }
+
+    // 클라이언트가 보낸 값은 창 길이를 넘겨 잡을 수 없다.
+    public boolean pinnedToPrimary() {
+        ServletRequestAttributes attributes = current();
+        if (attributes == null) return false;
+
+        HttpServletRequest request = attributes.getRequest();
+        long now = System.currentTimeMillis();
+        if (request.getAttribute(ATTRIBUTE) instanceof Long until && until > now) return true;
+
+        Cookie cookie = WebUtils.getCookie(request, COOKIE);
+        if (cookie == null) return false;
+        try {
+            long until = Long.parseLong(cookie.getValue());
+            return until > now && until - now <= window.toMillis();
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private static ServletRequestAttributes current() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        return attributes instanceof ServletRequestAttributes servlet ? servlet : null;
+    }
+}
@@ -0,0 +1,186 @@
+package com.sfz.mungpy.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 읽기 전용 연결을 건강한 복제본에 돌아가며 나눠 준다.
+ * 건강한 복제본이 없거나, 연결을 못 얻거나, 방금 쓴 사용자의 요청이면 주 DB 연결을 준다.
+ * <p>
+ * 지연은 주 DB 의 replication_heartbeat 에 health-interval 마다 시각을 쓰고 복제본에서 읽어 잰다.
+ * 시각을 한 주기에 한 번만 쓰므로 한 주기만큼의 오차는 지연으로 보지 않는다.
+ */
+@Slf4j
+public class ReplicaDataSource extends AbstractDataSource {
+    private static final String CREATE_HEARTBEAT = "create table if not exists replication_heartbeat (id int not null primary key, beat bigint not null)";
+    private static final String UPDATE_HEARTBEAT = "update replication_heartbeat set beat = ? where id = 1";
+    private static final String INSERT_HEARTBEAT = "insert into replication_heartbeat (id, beat) values (1, ?)";
+    private static final String SELECT_HEARTBEAT = "select beat from replication_heartbeat where id = 1";
+
+    private final DataSource primary;
+    private final List<Replica> replicas;
+    private final ReadYourWrites readYourWrites;
+    private final long maxLagMillis;
+    private final long intervalMillis;
+    private final JdbcTemplate primaryTemplate;
+    private final AtomicInteger next = new AtomicInteger();
+
+    private final Counter toReplica;
+    private final Counter pinned;
+    private final Counter fallback;
+
+    public ReplicaDataSource(DataSource primary, List<Replica> replicas, ReadYourWrites readYourWrites,
+                             Duration maxLag, Duration healthInterval, MeterRegistry meterRegistry) {
+
+        this.primary = primary;
+        this.replicas = List.copyOf(replicas);
+        this.readYourWrites = readYourWrites;
+        this.maxLagMillis = maxLag.toMillis();
+        this.intervalMillis = healthInterval.toMillis();
+        this.primaryTemplate = new JdbcTemplate(primary);
+        this.primaryTemplate.setQueryTimeout(timeoutSeconds(healthInterval));
+
+        this.toReplica = reads(meterRegistry, "replica");
+        this.pinned = reads(meterRegistry, "primary_read_your_writes");
+        this.fallback = reads(meterRegistry, "primary_fallback");
+        for (Replica replica : this.replicas) {
+            replica.jdbcTemplate.setQueryTimeout(timeoutSeconds(healthInterval));
+            Gauge.builder("mungpy.datasource.replica.lag", replica,
+                            r -> r.lagMillis < 0 || r.lagMillis == Long.MAX_VALUE ? Double.NaN : r.lagMillis / 1000.0)
+                    .description("복제본 지연(초)")
+                    .tag("replica", replica.name)
+                    .baseUnit("seconds")
+                    .register(meterRegistry);
+            Gauge.builder("mungpy.datasource.replica.healthy", replica, r -> r.healthy ? 1 : 0)
+                    .tag("replica", replica.name)
+                    .register(meterRegistry);
+        }
+    }
+
+    // 복제본 하나. name 은 지표와 로그에 쓴다.
+    public static final class Replica {
+        private final String name;
+        private final DataSource dataSource;
+        private final JdbcTemplate jdbcTemplate;
+        private volatile boolean healthy;
+        private volatile long lagMillis = -1;
+
+        public Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+            this.jdbcTemplate = new JdbcTemplate(dataSource);
+        }
+
+        public boolean isHealthy() {
+            return healthy;
+        }
+    }
+
+    // 하트비트 표를 만들고 첫 검사를 한다. 그 전까지는 모든 읽기가 주 DB 로 간다.
+    public void start() {
+        try {
+            primaryTemplate.execute(CREATE_HEARTBEAT);
+        } catch (DataAccessException e) {
+            log.warn("replication heartbeat table could not be created", e);
+        }
+        checkHealth();
+    }
+
+    @Scheduled(fixedDelayString = "${datasource.replicas.health-interval:PT2S}")
+    public void checkHealth() {
+        try {
+            long beat = System.currentTimeMillis();
+            if (primaryTemplate.update(UPDATE_HEARTBEAT, beat) == 0) primaryTemplate.update(INSERT_HEARTBEAT, beat);
+        } catch (DataAccessException e) {
+            log.warn("replication heartbeat write failed", e);
+        }
+
+        for (Replica replica : replicas) {
+            boolean wasHealthy = replica.healthy;
+            try {
+                List<Long> beats = replica.jdbcTemplate.queryForList(SELECT_HEARTBEAT, Long.class);
+                replica.lagMillis = beats.isEmpty() ? Long.MAX_VALUE
+                        : Math.max(0, System.currentTimeMillis() - beats.get(0) - intervalMillis);
+                replica.healthy = replica.lagMillis <= maxLagMillis;
+            } catch (DataAccessException e) {
+                replica.healthy = false;
+                log.debug("replica {} health check failed", replica.name, e);
+            }
+
+            if (wasHealthy != replica.healthy) {
+                log.warn("replica {} is now {} (lag {}ms)", replica.name, replica.healthy ? "in service" : "out of service",
+                        replica.lagMillis == Long.MAX_VALUE ? "unknown" : replica.lagMillis);
+            }
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (readYourWrites != null && readYourWrites.pinnedToPrimary()) {
+            pinned.increment();
+            return primary.getConnection();
+        }
+
+        int size = replicas.size();
+        int start = Math.floorMod(next.getAndIncrement(), Math.max(size, 1));
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            if (!replica.healthy) continue;
+            try {
+                Connection connection = replica.dataSource.getConnection();
+                toReplica.increment();
+                return connection;
+            } catch (SQLException e) {
+                // 다음 검사 때까지 빼 둔다.
+                replica.healthy = false;
+                log.warn("replica {} connection failed, routing reads elsewhere", replica.name, e);
+            }
+        }
+
+        fallback.increment();
+        return primary.getConnection();
+    }
+
+    // 복제본 풀은 설정된 계정으로만 연결하므로 계정을 직접 지정한 연결은 주 DB 로 보낸다.
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        fallback.increment();
+        return primary.getConnection(username, password);
+    }
+
+    public void close() {
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof AutoCloseable closeable) {
+                try {
+                    closeable.close();
+                } catch (Exception e) {
+                    log.warn("replica {} pool close failed", replica.name, e);
+                }
+            }
+        }
+    }
+
+    private static int timeoutSeconds(Duration healthInterval) {
+        return (int) Math.max(1, healthInterval.toSeconds());
+    }
+
+    private static Counter reads(MeterRegistry meterRegistry, String target) {
+        return Counter.builder("mungpy.datasource.reads")
+                .description("읽기 전용 연결을 받은 곳")
+                .tag("target", target)
+                .register(meterRegistry);
+    }
+}
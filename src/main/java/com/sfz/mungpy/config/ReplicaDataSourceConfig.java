@@ -0,0 +1,70 @@
+package com.sfz.mungpy.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * readOnly 트랜잭션은 복제본으로, 나머지는 주 DB 로 보낸다.
+ * 연결을 첫 쿼리 때 얻도록 미뤄 두어, 그 시점에는 트랜잭션의 readOnly 여부가 정해져 있다.
+ * ReadYourWrites 는 TransactionExecutionListener 빈이라 스프링 부트가 트랜잭션 매니저에 등록한다.
+ */
+@Configuration
+@EnableConfigurationProperties(ReplicaProperties.class)
+@ConditionalOnProperty(name = "datasource.replicas.enabled", havingValue = "true")
+public class ReplicaDataSourceConfig {
+    @Bean
+    public ReadYourWrites readYourWrites(ReplicaProperties properties) {
+        return new ReadYourWrites(properties.getReadYourWrites());
+    }
+
+    @Bean(destroyMethod = "close")
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "close")
+    public ReplicaDataSource replicaDataSource(HikariDataSource primaryDataSource, ReplicaProperties properties,
+                                               ReadYourWrites readYourWrites, MeterRegistry meterRegistry) {
+        List<ReplicaDataSource.Replica> replicas = new ArrayList<>();
+        for (int i = 0; i < properties.getNodes().size(); i++) {
+            ReplicaProperties.Node node = properties.getNodes().get(i);
+
+            // 복제본이 내려가 있어도 기동은 되도록 첫 연결 때 풀을 만든다.
+            HikariDataSource pool = new HikariDataSource();
+            pool.setPoolName("replica-" + (i + 1));
+            pool.setJdbcUrl(node.getUrl());
+            pool.setUsername(node.getUsername());
+            pool.setPassword(node.getPassword());
+            pool.setMaximumPoolSize(properties.getMaximumPoolSize());
+            pool.setConnectionTimeout(properties.getConnectionTimeout().toMillis());
+            pool.setReadOnly(true);
+            pool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            replicas.add(new ReplicaDataSource.Replica(pool.getPoolName(), pool));
+        }
+
+        return new ReplicaDataSource(primaryDataSource, replicas, readYourWrites,
+                properties.getMaxLag(), properties.getHealthInterval(), meterRegistry);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primaryDataSource, ReplicaDataSource replicaDataSource) {
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(primaryDataSource);
+        dataSource.setReadOnlyDataSource(replicaDataSource);
+        return dataSource;
+    }
+}
@@ -0,0 +1,36 @@
+package com.sfz.mungpy.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 읽기 전용 트랜잭션을 보낼 복제본 설정. 주 DB 는 spring.datasource 를 그대로 쓴다.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "datasource.replicas")
+public class ReplicaProperties {
+    private boolean enabled;
+    private List<Node> nodes = new ArrayList<>();
+    // 이보다 뒤처진 복제본은 읽기에서 뺀다
+    private Duration maxLag = Duration.ofSeconds(2);
+    private Duration healthInterval = Duration.ofSeconds(2);
+    // 쓰기 뒤 이 시간 동안은 같은 사용자의 읽기를 주 DB 로 보낸다
+    private Duration readYourWrites = Duration.ofSeconds(5);
+    private int maximumPoolSize = 10;
+    // 복제본이 응답하지 않으면 이만큼만 기다리고 주 DB 로 넘긴다
+    private Duration connectionTimeout = Duration.ofMillis(500);
+
+    @Getter
+    @Setter
+    public static class Node {
+        private String url;
+        private String username;
+        private String password;
+    }
+}
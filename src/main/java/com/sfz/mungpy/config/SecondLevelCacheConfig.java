@@ -0,0 +1,79 @@
+package com.sfz.mungpy.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import com.sfz.mungpy.entity.Dog;
+import com.sfz.mungpy.entity.Shelter;
+import com.sfz.mungpy.repository.DogRepository;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.spi.CachingProvider;
+import java.net.URI;
+import java.time.Duration;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+/**
+ * Dog, Shelter 엔티티와 findByImage 쿼리 결과를 Hibernate 2차 캐시(Caffeine JCache)에 둔다.
+ * 영역마다 최대 개수와 TTL 을 두며, JDBC 로 직접 쓰는 곳은 쓴 뒤에 해당 영역을 비운다.
+ * 적중률은 hibernate.second.level.cache.requests, hibernate.cache.query.requests 지표로 확인한다.
+ */
+@Configuration
+@ConditionalOnProperty(name = "cache.second-level.enabled", havingValue = "true", matchIfMissing = true)
+public class SecondLevelCacheConfig {
+    // Hibernate 가 쿼리 캐시를 켜면 항상 찾는 영역들
+    private static final String TIMESTAMPS_REGION = "default-update-timestamps-region";
+    private static final String DEFAULT_QUERY_REGION = "default-query-results-region";
+
+    // 테스트처럼 한 JVM 에 컨텍스트가 여럿이어도 캐시를 섞어 쓰지 않도록 컨텍스트마다 따로 만든다.
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager(
+            @Value("${cache.second-level.dogs.max-size:10000}") long dogsMaxSize,
+            @Value("${cache.second-level.dogs.ttl:PT10M}") Duration dogsTtl,
+            @Value("${cache.second-level.shelters.max-size:2000}") long sheltersMaxSize,
+            @Value("${cache.second-level.shelters.ttl:PT30M}") Duration sheltersTtl) {
+
+        CachingProvider provider = Caching.getCachingProvider(CaffeineCachingProvider.class.getName());
+        CacheManager cacheManager = provider.getCacheManager(
+                URI.create("mungpy-hibernate-" + UUID.randomUUID()), getClass().getClassLoader());
+
+        cacheManager.createCache(Dog.CACHE_REGION, region(dogsMaxSize, dogsTtl));
+        cacheManager.createCache(DogRepository.BY_IMAGE_REGION, region(dogsMaxSize, dogsTtl));
+        cacheManager.createCache(Shelter.CACHE_REGION, region(sheltersMaxSize, sheltersTtl));
+        cacheManager.createCache(DEFAULT_QUERY_REGION, region(1000, dogsTtl));
+        // 테이블별 마지막 변경 시각이라 항목이 테이블 수만큼이며, 만료되면 쿼리 캐시가 오래된 결과를 돌려줄 수 있다.
+        cacheManager.createCache(TIMESTAMPS_REGION, region(-1, null));
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCache(CacheManager hibernateCacheManager,
+                                                          @Value("${cache.second-level.statistics:true}") boolean statistics) {
+        return properties -> {
+            properties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, true);
+            properties.put(AvailableSettings.USE_QUERY_CACHE, true);
+            properties.put(AvailableSettings.CACHE_REGION_FACTORY, "jcache");
+            properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+            // 위에서 만들지 않은 영역을 쓰려 하면 크기 제한 없는 캐시가 생기지 않도록 기동을 멈춘다.
+            properties.put(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+            properties.put(AvailableSettings.GENERATE_STATISTICS, statistics);
+        };
+    }
+
+    // 값은 Hibernate 가 이미 분해해 둔 캐시 항목이므로 복사 없이 참조로 담는다.
+    private static CaffeineConfiguration<Object, Object> region(long maxSize, Duration ttl) {
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        configuration.setStoreByValue(false);
+        if (maxSize > 0) configuration.setMaximumSize(OptionalLong.of(maxSize));
+        if (ttl != null) configuration.setExpireAfterWrite(OptionalLong.of(ttl.toNanos()));
+        return configuration;
+    }
+}
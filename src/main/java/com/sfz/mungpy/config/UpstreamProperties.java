@@ -0,0 +1,47 @@
+package com.sfz.mungpy.config;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 외부 호출 대상별 연결 풀, 타임아웃, 동시 호출 제한, 서킷 브레이커 설정.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "upstream")
+public class UpstreamProperties {
+    private Proxy proxy = new Proxy();
+    private Client faceMatcher = new Client("https://74c1-123-214-153-130.ngrok-free.app", Duration.ofSeconds(15));
+    private Client kakao = new Client("https://dapi.kakao.com", Duration.ofSeconds(3));
+
+    @Getter
+    @Setter
+    public static class Proxy {
+        private String host;
+        private int port = 3128;
+    }
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    public static class Client {
+        private String baseUrl;
+        private Duration connectTimeout = Duration.ofSeconds(2);
+        private Duration readTimeout = Duration.ofSeconds(10);
+        private Duration keepAlive = Duration.ofSeconds(30);
+        private int maxConnections = 50;
+        private int maxConcurrentCalls = 20;
+        private Duration maxWait = Duration.ofMillis(200);
+        private float failureRateThreshold = 50;
+        private Duration openStateWait = Duration.ofSeconds(30);
+
+        Client(String baseUrl, Duration readTimeout) {
+            this.baseUrl = baseUrl;
+            this.readTimeout = readTimeout;
+        }
+    }
+}
@@ -2,62 +2,181 @@ package com.sfz.mungpy.controller;
 
 import com.sfz.mungpy.dto.DogMatch;
 import com.sfz.mungpy.dto.DogSpecific;
+import com.sfz.mungpy.dto.MatchJobStatus;
+import com.sfz.mungpy.dto.UploadedImage;
 import com.sfz.mungpy.dto.UserInfomation;
 import com.sfz.mungpy.exception.DogNotFoundException;
+import com.sfz.mungpy.exception.IdempotencyKeyConflictException;
+import com.sfz.mungpy.exception.InvalidImageException;
 import com.sfz.mungpy.exception.ShelterNotFoundException;
+import com.sfz.mungpy.exception.UpstreamUnavailableException;
 import com.sfz.mungpy.service.DogService;
-import lombok.RequiredArgsConstructor;
+import com.sfz.mungpy.service.MatchJobService;
+import com.sfz.mungpy.service.MatchStreamService;
+import com.sfz.mungpy.service.UploadImageService;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.time.Duration;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
 
 @Slf4j
 @RestController
-@RequiredArgsConstructor
 @RequestMapping("/dog")
 public class DogController {
+    private static final int MAX_IDEMPOTENCY_KEY_LENGTH = 200;
+
     private final DogService dogService;
+    private final MatchStreamService matchStreamService;
+    private final MatchJobService matchJobService;
+    private final UploadImageService uploadImageService;
+    private final Duration maxJobWait;
+
+    public DogController(DogService dogService, MatchStreamService matchStreamService, MatchJobService matchJobService,
+                         UploadImageService uploadImageService,
+                         @Value("${matching.jobs.max-wait:30s}") Duration maxJobWait) {
+
+        this.dogService = dogService;
+        this.matchStreamService = matchStreamService;
+        this.matchJobService = matchJobService;
+        this.uploadImageService = uploadImageService;
+        this.maxJobWait = maxJobWait;
+    }
 
     @PostMapping
     public ResponseEntity<?> getDog(@ModelAttribute UserInfomation userInfomation) {
-        String jsonMessage = "{\"message\":";
+        String invalid = validate(userInfomation);
+        if (invalid != null) {
+            return ResponseEntity.badRequest().body("{\"message\":\"" + invalid + "\"");
+        }
 
-        List<String> personality = userInfomation.getPersonality();
-        if (personality == null || personality.isEmpty()) {
-            jsonMessage += "\"사용자 성향 데이터가 존재하지 않습니다.\"";
-            return ResponseEntity.badRequest().body(jsonMessage);
+        DogMatch dogMatch;
+        try (UploadedImage image = uploadImageService.prepare(userInfomation.getImage())) {
+            dogMatch = dogService.matchDog(userInfomation.getPersonality(), image);
+        } catch (InvalidImageException e) {
+            return ResponseEntity.badRequest().body("{\"message\":\"" + e.getMessage() + "\"");
+        } catch (DogNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        } catch (UpstreamUnavailableException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
 
-        List<String> personalityList = userInfomation.getPersonality();
-        for (int i = 0; i < personalityList.size(); i++) {
-            log.info("{}: {}", i, personalityList.get(i));
+        return ResponseEntity.ok(dogMatch);
+    }
+
+    // 매칭 단계별 결과를 SSE 로 보낸다. 얼굴 매칭이 끝나는 즉시 강아지 정보를 받을 수 있다.
+    @PostMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<?> streamDog(@ModelAttribute UserInfomation userInfomation) {
+        String invalid = validate(userInfomation);
+        if (invalid != null) {
+            return ResponseEntity.badRequest().body("{\"message\":\"" + invalid + "\"");
         }
-        log.info("imageName: {}", userInfomation.getImage().getOriginalFilename());
 
-        if (personality.size() != 6) {
-            jsonMessage += "\"사용자 성향 데이터의 갯수는 6개여야 합니다.\"";
-            return ResponseEntity.badRequest().body(jsonMessage);
+        UploadedImage image;
+        try {
+            image = uploadImageService.prepare(userInfomation.getImage());
+        } catch (InvalidImageException e) {
+            return ResponseEntity.badRequest().body("{\"message\":\"" + e.getMessage() + "\"");
         }
 
-        MultipartFile image = userInfomation.getImage();
-        if (image == null || image.isEmpty()) {
-            jsonMessage += "\"사용자 이미지가 존재하지 않습니다.\"";
-            return ResponseEntity.badRequest().body(jsonMessage);
+        return ResponseEntity.ok(matchStreamService.stream(userInfomation.getPersonality(), image));
+    }
+
+    // 매칭을 작업으로 맡기고 바로 작업 id 를 받는다. 같은 Idempotency-Key 로 다시 보내면 기존 작업이 돌아오고,
+    // 키는 같은데 사진이나 성향이 다르면 422 로 거절한다.
+    @PostMapping("/jobs")
+    public ResponseEntity<?> submitMatchJob(@RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+                                            @ModelAttribute UserInfomation userInfomation) {
+        if (idempotencyKey != null && (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_IDEMPOTENCY_KEY_LENGTH)) {
+            return ResponseEntity.badRequest().body("{\"message\":\"Idempotency-Key 가 올바르지 않습니다.\"");
+        }
+        String invalid = validate(userInfomation);
+        if (invalid != null) {
+            return ResponseEntity.badRequest().body("{\"message\":\"" + invalid + "\"");
         }
 
-        DogMatch dogMatch;
+        MatchJobStatus job;
         try {
-            dogMatch = dogService.matchDog(personality, image);
-        } catch (DogNotFoundException e) {
-            return ResponseEntity.notFound().build();
+            job = matchJobService.submit(idempotencyKey, userInfomation.getPersonality(), userInfomation.getImage());
+        } catch (InvalidImageException e) {
+            return ResponseEntity.badRequest().body("{\"message\":\"" + e.getMessage() + "\"");
+        } catch (IdempotencyKeyConflictException e) {
+            return ResponseEntity.unprocessableEntity().body("{\"message\":\"" + e.getMessage() + "\"");
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, "5")
+                    .body("{\"message\":\"요청이 많아 잠시 후 다시 시도해 주세요.\"");
         }
 
-        log.info(dogMatch.toString());
+        return ResponseEntity.accepted()
+                .location(URI.create("/dog/jobs/" + job.getId()))
+                .body(job);
+    }
+
+    // wait(초)를 주면 작업이 끝나거나 그 시간이 지날 때까지 응답을 미룬다. 최대 대기 시간은 matching.jobs.max-wait 이다.
+    @GetMapping("/jobs/{jobId}")
+    public DeferredResult<ResponseEntity<?>> getMatchJob(@PathVariable String jobId,
+                                                         @RequestParam(defaultValue = "0") long wait) {
+        DeferredResult<ResponseEntity<?>> deferred;
+        CompletableFuture<MatchJobStatus> completion = matchJobService.completion(jobId).orElse(null);
+        if (completion == null) {
+            deferred = new DeferredResult<>();
+            deferred.setResult(ResponseEntity.notFound().build());
+            return deferred;
+        }
 
-        return ResponseEntity.ok(dogMatch);
+        Duration timeout = Duration.ofSeconds(Math.max(0, Math.min(wait, maxJobWait.toSeconds())));
+        if (timeout.isZero() || completion.isDone()) {
+            deferred = new DeferredResult<>();
+            deferred.setResult(currentJob(jobId));
+            return deferred;
+        }
+
+        deferred = new DeferredResult<>(timeout.toMillis());
+        DeferredResult<ResponseEntity<?>> pending = deferred;
+        deferred.onTimeout(() -> pending.setResult(currentJob(jobId)));
+        completion.thenAccept(status -> pending.setResult(ResponseEntity.ok(status)));
+        return deferred;
+    }
+
+    private ResponseEntity<?> currentJob(String jobId) {
+        return matchJobService.status(jobId)
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    private String validate(UserInfomation userInfomation) {
+        List<String> personality = userInfomation.getPersonality();
+        if (personality == null || personality.isEmpty()) {
+            return "사용자 성향 데이터가 존재하지 않습니다.";
+        }
+
+        if (personality.size() != 6) {
+            return "사용자 성향 데이터의 갯수는 6개여야 합니다.";
+        }
+
+        MultipartFile image = userInfomation.getImage();
+        if (image == null || image.isEmpty()) {
+            return "사용자 이미지가 존재하지 않습니다.";
+        }
+
+        log.debug("personality: {}, imageName: {}, size: {}", personality, image.getOriginalFilename(), image.getSize());
+
+        return null;
     }
 
     @GetMapping("/{dogId}")
@@ -72,6 +191,8 @@ public class DogController {
             dogSpecific = dogService.showDog(dogId);
         } catch (DogNotFoundException | ShelterNotFoundException e) {
             return ResponseEntity.notFound().build();
+        } catch (UpstreamUnavailableException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
         }
 
         return ResponseEntity.ok().body(dogSpecific);
@@ -0,0 +1,46 @@
+package com.sfz.mungpy.controller;
+
+import com.sfz.mungpy.dto.DogSpecific;
+import com.sfz.mungpy.exception.DogNotFoundException;
+import com.sfz.mungpy.exception.InvalidImageException;
+import com.sfz.mungpy.service.DogService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
+
+/**
+ * 강아지 사진 교체. 이미지 저장소에 올리므로 재배포 없이 반영된다.
+ * 관리용 쓰기 기능이라 images.store.replace-enabled=true 일 때만 열린다.
+ */
+@RestController
+@RequestMapping("/dog")
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "images.store.replace-enabled", havingValue = "true")
+public class DogImageController {
+    private final DogService dogService;
+
+    @PutMapping(value = "/{dogId}/image", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<?> putDogImage(@PathVariable Long dogId, @RequestParam("image") MultipartFile image) {
+        if (image == null || image.isEmpty()) {
+            return ResponseEntity.badRequest().body("{\"message\":\"강아지 이미지가 존재하지 않습니다.\"");
+        }
+
+        DogSpecific dogSpecific;
+        try {
+            dogSpecific = dogService.replaceImage(dogId, image);
+        } catch (InvalidImageException e) {
+            return ResponseEntity.badRequest().body("{\"message\":\"" + e.getMessage() + "\"");
+        } catch (DogNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        }
+
+        return ResponseEntity.ok().body(dogSpecific);
+    }
+}
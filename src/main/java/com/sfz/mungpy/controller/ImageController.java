@@ -0,0 +1,122 @@
+package com.sfz.mungpy.controller;
+
+import com.sfz.mungpy.service.ImageDeliveryService;
+import com.sfz.mungpy.service.ImageDeliveryService.ImageFile;
+import com.sfz.mungpy.service.ImageDeliveryService.Variant;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * 해시가 들어간 사진 주소(/images/v/{hash}/{variant}/{name})를 처리한다. 이름은 내려받을 때 보기 좋으라고 붙여 둘 뿐 조회에는 쓰지 않는다.
+ * 내용이 바뀌면 주소가 바뀌므로 1년짜리 immutable 캐시를 주고, ETag 와 Range 요청을 지원한다.
+ * 톰캣에서는 sendfile 요청 속성을 넘겨 파일 내용이 힙을 거치지 않고 소켓으로 바로 나가게 한다.
+ */
+@RestController
+@RequiredArgsConstructor
+public class ImageController {
+    private static final String IMMUTABLE = "public, max-age=31536000, immutable";
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+    // 톰캣 DefaultServlet 과 같은 기준. 이보다 작은 파일은 그냥 쓰는 편이 빠르다.
+    private static final long SENDFILE_MIN_SIZE = 48 * 1024;
+
+    private final ImageDeliveryService imageDeliveryService;
+
+    @GetMapping("/images/v/{hash}/{variant}/{name:.+}")
+    public void image(@PathVariable String hash, @PathVariable String variant,
+                      HttpServletRequest request, HttpServletResponse response) throws IOException {
+
+        Optional<ImageFile> found = Variant.of(variant)
+                .flatMap(requested -> imageDeliveryService.file(hash, requested));
+        if (found.isEmpty()) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        ImageFile file = found.get();
+        String etag = "\"" + hash + "-" + variant + "\"";
+
+        response.setHeader(HttpHeaders.CACHE_CONTROL, IMMUTABLE);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        if (new ServletWebRequest(request, response).checkNotModified(etag)) return;
+
+        response.setContentType(file.getContentType());
+
+        long length = file.getLength();
+        long start = 0;
+        long end = length - 1;
+
+        HttpRange range = singleRange(request, etag);
+        if (range != null) {
+            try {
+                start = range.getRangeStart(length);
+                end = range.getRangeEnd(length);
+            } catch (IllegalArgumentException e) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
+            }
+            response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+        }
+
+        send(file, start, end, request, response);
+    }
+
+    // 여러 구간 요청은 전체 응답으로 대신한다. If-Range 가 현재 ETag 와 다르면 Range 를 무시한다.
+    private static HttpRange singleRange(HttpServletRequest request, String etag) {
+        String header = request.getHeader(HttpHeaders.RANGE);
+        if (header == null) return null;
+
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange != null && !ifRange.equals(etag)) return null;
+
+        try {
+            List<HttpRange> ranges = HttpRange.parseRanges(header);
+            return ranges.size() == 1 ? ranges.get(0) : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static void send(ImageFile file, long start, long end, HttpServletRequest request,
+                             HttpServletResponse response) throws IOException {
+
+        long count = end - start + 1;
+        response.setContentLengthLong(count);
+        if ("HEAD".equals(request.getMethod())) return;
+
+        if (count >= SENDFILE_MIN_SIZE && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, file.getPath().toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(file.getPath(), StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            while (position <= end) {
+                position += channel.transferTo(position, end + 1 - position, out);
+            }
+        }
+    }
+}
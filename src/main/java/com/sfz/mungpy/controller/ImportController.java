@@ -0,0 +1,87 @@
+package com.sfz.mungpy.controller;
+
+import com.sfz.mungpy.dto.ImportReport;
+import com.sfz.mungpy.service.BulkImportService;
+import com.sfz.mungpy.service.BulkImportService.Format;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * 강아지와 보호소 일괄 등록. 본문을 읽는 대로 바로 넣으므로 큰 파일도 그대로 올리면 된다.
+ * 관리용 기능이라 import.enabled=true 일 때만 열린다.
+ */
+@RestController
+@RequestMapping("/import")
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "import.enabled", havingValue = "true")
+public class ImportController {
+    private static final String NDJSON = "application/x-ndjson";
+
+    private final BulkImportService bulkImportService;
+
+    @PostMapping("/dogs")
+    public ResponseEntity<?> importDogs(@RequestParam(required = false) String format, HttpServletRequest request) {
+        return run(format, request, true);
+    }
+
+    @PostMapping("/shelters")
+    public ResponseEntity<?> importShelters(@RequestParam(required = false) String format, HttpServletRequest request) {
+        return run(format, request, false);
+    }
+
+    private ResponseEntity<?> run(String format, HttpServletRequest request, boolean dogs) {
+        Format resolved = format(format, request.getContentType());
+        if (resolved == null) {
+            return ResponseEntity.status(HttpStatus.UNSUPPORTED_MEDIA_TYPE)
+                    .body("{\"message\":\"text/csv 또는 " + NDJSON + " 본문만 받습니다.\"");
+        }
+
+        ImportReport report;
+        try {
+            report = dogs
+                    ? bulkImportService.importDogs(request.getInputStream(), resolved)
+                    : bulkImportService.importShelters(request.getInputStream(), resolved);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("{\"message\":\"" + e.getMessage() + "\"");
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body("{\"message\":\"" + e.getMessage() + "\"");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        return ResponseEntity.ok(report);
+    }
+
+    // format 파라미터가 Content-Type 보다 우선한다.
+    private static Format format(String format, String contentType) {
+        if (format != null) {
+            return switch (format.toLowerCase()) {
+                case "csv" -> Format.CSV;
+                case "ndjson", "jsonl" -> Format.NDJSON;
+                default -> null;
+            };
+        }
+        if (contentType == null) return null;
+
+        MediaType mediaType;
+        try {
+            mediaType = MediaType.parseMediaType(contentType);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        if (mediaType.isCompatibleWith(MediaType.parseMediaType("text/csv"))) return Format.CSV;
+        if (mediaType.isCompatibleWith(MediaType.parseMediaType(NDJSON))) return Format.NDJSON;
+        return null;
+    }
+}
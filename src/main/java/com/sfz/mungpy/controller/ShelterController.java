@@ -2,31 +2,60 @@ package com.sfz.mungpy.controller;
 
 import com.sfz.mungpy.dto.ShelterInformation;
 import com.sfz.mungpy.dto.ShelterRegister;
+import com.sfz.mungpy.entity.ShelterType;
 import com.sfz.mungpy.exception.ShelterNotFoundException;
+import com.sfz.mungpy.service.ShelterListSnapshot;
 import com.sfz.mungpy.service.ShelterService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
-
 @RestController
 @RequestMapping("/shelter")
 @RequiredArgsConstructor
 public class ShelterController {
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 100;
+
     private final ShelterService shelterService;
 
-    // 모든 보호소 목록 조회
+    // 보호소 목록 조회. cursor 나 size 가 있으면 페이지 단위로, 없으면 전체 목록을 돌려준다.
+    // 전체 목록은 미리 만든 스냅샷을 그대로 보내며, If-None-Match 가 맞으면 304 로 응답한다.
     @GetMapping
-    public ResponseEntity<?> getAllShelters() {
-        List<ShelterInformation> shelters;
+    public ResponseEntity<?> getAllShelters(@RequestParam(required = false) ShelterType type,
+                                            @RequestParam(required = false) Long cursor,
+                                            @RequestParam(required = false) Integer size,
+                                            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        if (cursor != null || size != null) {
+            int pageSize = size == null ? DEFAULT_PAGE_SIZE : size;
+            if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+                return ResponseEntity.badRequest().body("{\"message\":\"size 는 1 이상 " + MAX_PAGE_SIZE + " 이하여야 합니다.\"");
+            }
+            return ResponseEntity.ok(shelterService.getShelterPage(type, cursor, pageSize));
+        }
+
+        ShelterListSnapshot.Snapshot snapshot;
         try {
-            shelters = shelterService.getAllShelters();
+            snapshot = shelterService.getAllShelters(type);
         } catch (ShelterNotFoundException e) {
             return ResponseEntity.notFound().build();
         }
 
-        return ResponseEntity.ok(shelters);
+        // 인코딩마다 다른 표현이므로 ETag 도 나눈다. 일치 여부 확인과 304 응답은 스프링이 처리한다.
+        boolean gzip = acceptEncoding != null && acceptEncoding.contains("gzip");
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .cacheControl(CacheControl.noCache())
+                .varyBy(HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            return response.eTag(snapshot.version() + "-gzip")
+                    .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                    .body(snapshot.gzip());
+        }
+        return response.eTag(snapshot.version()).body(snapshot.json());
     }
 
     // 특정 보호소 조회
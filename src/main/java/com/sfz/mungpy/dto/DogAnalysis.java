@@ -0,0 +1,15 @@
+package com.sfz.mungpy.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DogAnalysis {
+    private String description;
+    private String matchReason;
+}
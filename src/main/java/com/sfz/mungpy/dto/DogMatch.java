@@ -13,6 +13,9 @@ public class DogMatch {
     private Long id;
     private String name;
     private String image;
+    private String thumbnail;
     private String description;
     private String matchReason;
+    // 업스트림이 시간 안에 답하지 않아 성향 기반 결과로 대신한 경우
+    private boolean degraded;
 }
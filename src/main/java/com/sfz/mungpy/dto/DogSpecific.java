@@ -19,6 +19,7 @@ public class DogSpecific {
     private String kind;
     private String name;
     private String image;
+    private String thumbnail;
     private String description;
     private String matchReason;
     private List<String> personality;
@@ -0,0 +1,8 @@
+package com.sfz.mungpy.dto;
+
+import lombok.Data;
+
+@Data
+public class FaceEmbeddingResponse {
+    private float[] embedding;
+}
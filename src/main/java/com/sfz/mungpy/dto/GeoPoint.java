@@ -0,0 +1,13 @@
+package com.sfz.mungpy.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+@Getter
+@ToString
+@AllArgsConstructor
+public class GeoPoint {
+    private double latitude;
+    private double longitude;
+}
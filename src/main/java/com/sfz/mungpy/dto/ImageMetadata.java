@@ -0,0 +1,18 @@
+package com.sfz.mungpy.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+@Getter
+@Builder
+@ToString
+@AllArgsConstructor
+public class ImageMetadata {
+    private String hash;
+    private String mimeType;
+    private Integer width;
+    private Integer height;
+    private long size;
+}
@@ -0,0 +1,35 @@
+package com.sfz.mungpy.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.List;
+
+@Getter
+@Builder
+@ToString
+@AllArgsConstructor
+public class ImportReport {
+    private String entity;
+    // 읽은 행 수
+    private long rows;
+    // DB 에 반영한 행 수 (추가 + 갱신)
+    private long written;
+    private long failed;
+    // 최대 import.max-errors 건까지만 담는다
+    private List<RowError> errors;
+    // 오류가 import.max-errors 를 넘어 중간에 멈췄는지
+    private boolean aborted;
+    private long elapsedMillis;
+    private double rowsPerSecond;
+
+    @Getter
+    @ToString
+    @AllArgsConstructor
+    public static class RowError {
+        private long line;
+        private String message;
+    }
+}
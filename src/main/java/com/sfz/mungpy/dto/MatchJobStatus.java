@@ -0,0 +1,27 @@
+package com.sfz.mungpy.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MatchJobStatus {
+    public enum State {
+        QUEUED, RUNNING, SUCCEEDED, FAILED
+    }
+
+    private String id;
+    private State state;
+    // SUCCEEDED 일 때만 채워진다
+    private DogMatch result;
+    // FAILED 일 때 사용자에게 보여줄 문구
+    private String message;
+
+    public boolean isFinished() {
+        return state == State.SUCCEEDED || state == State.FAILED;
+    }
+}
@@ -1,5 +1,6 @@
 package com.sfz.mungpy.dto;
 
+import com.sfz.mungpy.repository.ShelterView;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -13,4 +14,16 @@ public class ShelterInformation {
     private String name;
     private String address;
     private String telno;
+    private Double latitude;
+    private Double longitude;
+
+    public static ShelterInformation of(ShelterView view) {
+        return ShelterInformation.builder()
+                .name(view.getName())
+                .address(view.getAddress())
+                .telno(view.getTelno())
+                .latitude(view.getLatitude())
+                .longitude(view.getLongitude())
+                .build();
+    }
 }
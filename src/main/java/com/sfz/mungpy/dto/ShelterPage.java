@@ -0,0 +1,18 @@
+package com.sfz.mungpy.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ShelterPage {
+    private List<ShelterInformation> shelters;
+    // 다음 페이지 요청에 cursor 로 넘길 값. 마지막 페이지면 null
+    private Long nextCursor;
+}
@@ -0,0 +1,77 @@
+package com.sfz.mungpy.dto;
+
+import lombok.Getter;
+import org.springframework.core.io.AbstractResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.core.io.Resource;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * 검증을 마친 사용자 얼굴 이미지.
+ * 업로드 파트나 디스크의 파일을 그대로 가리키며, 바이트 배열로 옮겨 담지 않고 필요할 때 스트림으로 읽는다.
+ */
+@Getter
+public class UploadedImage implements AutoCloseable {
+    private final String filename;
+    private final String contentType;
+    private final long size;
+    private final InputStreamSource source;
+    private final Path temporaryFile;
+
+    private UploadedImage(String filename, String contentType, long size, InputStreamSource source, Path temporaryFile) {
+        this.filename = filename;
+        this.contentType = contentType;
+        this.size = size;
+        this.source = source;
+        this.temporaryFile = temporaryFile;
+    }
+
+    public static UploadedImage of(MultipartFile file, String contentType) {
+        return new UploadedImage(file.getOriginalFilename(), contentType, file.getSize(), file, null);
+    }
+
+    // 이 객체가 닫힐 때 함께 지워지는 임시 파일
+    public static UploadedImage temporary(Path file, String filename, String contentType) throws IOException {
+        return new UploadedImage(filename, contentType, Files.size(file), new FileSystemResource(file), file);
+    }
+
+    public InputStream getInputStream() throws IOException {
+        return source.getInputStream();
+    }
+
+    // 외부 요청 본문에 그대로 흘려보낼 수 있는 Resource
+    public Resource toResource() {
+        return new AbstractResource() {
+            @Override
+            public String getFilename() {
+                return filename;
+            }
+
+            @Override
+            public long contentLength() {
+                return size;
+            }
+
+            @Override
+            public InputStream getInputStream() throws IOException {
+                return source.getInputStream();
+            }
+
+            @Override
+            public String getDescription() {
+                return "uploaded image [" + filename + "]";
+            }
+        };
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (temporaryFile != null) Files.deleteIfExists(temporaryFile);
+    }
+}
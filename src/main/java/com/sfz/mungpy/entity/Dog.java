@@ -2,29 +2,67 @@ package com.sfz.mungpy.entity;
 
 import com.sfz.mungpy.dto.DogMatch;
 import com.sfz.mungpy.dto.DogSpecific;
+import com.sfz.mungpy.dto.ImageMetadata;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.time.LocalDateTime;
 import java.util.Arrays;
 
 @Entity
-@Table(name = "dogs")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Dog.CACHE_REGION)
+@Table(name = "dogs", indexes = @Index(name = "idx_dogs_traits",
+        columnList = "trait1, trait2, trait3, trait4, trait5, trait6, image"))
+@EntityListeners(DogEntityListener.class)
 @Getter
 @ToString
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
 public class Dog {
+    // 2차 캐시 영역. JDBC 로 직접 쓴 뒤에는 이 영역을 비워야 한다.
+    public static final String CACHE_REGION = "dogs";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
+    // 공공데이터 유기번호처럼 외부에서 정한 식별자. 일괄 등록 시 upsert 기준이다.
+    @Column(name = "external_id", length = 64, unique = true)
+    private String externalId;
     private int age;
     private String sex;
     private String kind;
     private String name;
     private String image;
+    // 이미지 저장소의 SHA-256 해시와 메타데이터
+    @Column(name = "image_hash", length = 64)
+    private String imageHash;
+    @Column(name = "image_mime_type", length = 32)
+    private String imageMimeType;
+    @Column(name = "image_width")
+    private Integer imageWidth;
+    @Column(name = "image_height")
+    private Integer imageHeight;
+    // 사진을 교체했는지. 파이썬 서버는 예전 사진을 이름으로 갖고 있으므로 원격 얼굴 매칭 후보에서 뺀다.
+    @Column(name = "image_replaced")
+    private Boolean imageReplaced;
     private String personality;
+    // personality 를 항목별로 나눠 둔 값. DB 에서 후보 점수를 계산할 때 쓴다.
+    @Column(length = 20)
+    private String trait1;
+    @Column(length = 20)
+    private String trait2;
+    @Column(length = 20)
+    private String trait3;
+    @Column(length = 20)
+    private String trait4;
+    @Column(length = 20)
+    private String trait5;
+    @Column(length = 20)
+    private String trait6;
     private String description;
     @Column(name = "match_reason")
     private String matchReason;
@@ -36,12 +74,54 @@ public class Dog {
     private String protectTelno;
     @Column(name = "expiration_date")
     private LocalDateTime expirationDate;
+    private Double latitude;
+    private Double longitude;
+    // 얼굴 임베딩 (float32 little-endian)
+    @ToString.Exclude
+    @Column(name = "face_embedding", length = 8192)
+    private byte[] faceEmbedding;
+
+    @PrePersist
+    @PreUpdate
+    void splitPersonality() {
+        String[] traits = traits(personality);
+        trait1 = traits[0];
+        trait2 = traits[1];
+        trait3 = traits[2];
+        trait4 = traits[3];
+        trait5 = traits[4];
+        trait6 = traits[5];
+    }
+
+    // 항상 길이 6 인 배열을 돌려준다. 빠진 항목은 null 이다.
+    public static String[] traits(String personality) {
+        String[] traits = new String[6];
+        if (personality == null || personality.isBlank()) return traits;
+
+        String[] parsed = personality.split(", ");
+        System.arraycopy(parsed, 0, traits, 0, Math.min(parsed.length, traits.length));
+        return traits;
+    }
 
     public void updateAnalysis(String description, String matchReason) {
         this.description = description;
         this.matchReason = matchReason;
     }
 
+    public void updateImage(ImageMetadata metadata) {
+        this.imageHash = metadata.getHash();
+        this.imageMimeType = metadata.getMimeType();
+        this.imageWidth = metadata.getWidth();
+        this.imageHeight = metadata.getHeight();
+        this.imageReplaced = true;
+        this.faceEmbedding = null;
+        this.description = null;
+    }
+
+    public boolean hasLocation() {
+        return latitude != null && longitude != null;
+    }
+
     public DogMatch toMatchDto() {
         return DogMatch.builder()
                 .id(id)
@@ -53,7 +133,7 @@ public class Dog {
     }
 
     public DogSpecific toDogSpecificDto() {
-        return DogSpecific.builder()
+        DogSpecific dogSpecific = DogSpecific.builder()
                 .age(age)
                 .sex(sex)
                 .kind(kind)
@@ -67,5 +147,12 @@ public class Dog {
                 .protectTelno(protectTelno)
                 .expirationDate(expirationDate)
                 .build();
+
+        if (hasLocation()) {
+            dogSpecific.setLatitude(latitude);
+            dogSpecific.setLongitude(longitude);
+        }
+
+        return dogSpecific;
     }
 }
\ No newline at end of file
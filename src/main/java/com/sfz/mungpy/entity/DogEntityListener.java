@@ -0,0 +1,29 @@
+package com.sfz.mungpy.entity;
+
+import com.sfz.mungpy.event.DogChangedEvent;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+/**
+ * Dog 변경을 이벤트로 내보낸다. 받는 쪽은 {@code @TransactionalEventListener} 로 커밋 이후에만 반영한다.
+ */
+@Component
+@RequiredArgsConstructor
+public class DogEntityListener {
+    private final ApplicationEventPublisher eventPublisher;
+
+    @PostPersist
+    @PostUpdate
+    public void onSaved(Dog dog) {
+        eventPublisher.publishEvent(DogChangedEvent.saved(dog));
+    }
+
+    @PostRemove
+    public void onRemoved(Dog dog) {
+        eventPublisher.publishEvent(DogChangedEvent.removed(dog));
+    }
+}
@@ -0,0 +1,27 @@
+package com.sfz.mungpy.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "job_checkpoints")
+@Getter
+@ToString
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class JobCheckpoint {
+    @Id
+    private String name;
+    @Column(name = "last_id")
+    private Long lastId;
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    public void advance(Long lastId) {
+        this.lastId = lastId;
+        this.updatedAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,38 @@
+package com.sfz.mungpy.entity;
+
+import com.sfz.mungpy.dto.DogAnalysis;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "match_analyses",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"dog_id", "personality_key"}))
+@Getter
+@ToString
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MatchAnalysis {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    @Column(name = "dog_id", nullable = false)
+    private Long dogId;
+    @Column(name = "personality_key", nullable = false, length = 64)
+    private String personalityKey;
+    @Column(length = 1000)
+    private String description;
+    @Column(name = "match_reason", length = 2000)
+    private String matchReason;
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    public DogAnalysis toDto() {
+        return DogAnalysis.builder()
+                .description(description)
+                .matchReason(matchReason)
+                .build();
+    }
+}
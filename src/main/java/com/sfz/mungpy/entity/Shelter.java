@@ -3,30 +3,49 @@ package com.sfz.mungpy.entity;
 import com.sfz.mungpy.dto.ShelterInformation;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Entity
-@Table(name = "shelters")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Shelter.CACHE_REGION)
+@Table(name = "shelters", indexes = @Index(name = "idx_shelters_type_id", columnList = "type, id"))
 @Getter
 @ToString
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
 public class Shelter {
+    // 2차 캐시 영역 이름
+    public static final String CACHE_REGION = "shelters";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
+    // 외부에서 정한 보호소 식별자. 일괄 등록 시 upsert 기준이다.
+    @Column(name = "external_id", length = 64, unique = true)
+    private String externalId;
     private String name; // 업체 이름
     private String address;
     private String telno;
     private String delegate; // 대표자 이름
     @Enumerated(EnumType.STRING)
     private ShelterType type;
+    private Double latitude;
+    private Double longitude;
+
+    public void updateLocation(double latitude, double longitude) {
+        this.latitude = latitude;
+        this.longitude = longitude;
+    }
 
     public ShelterInformation toDto() {
         return ShelterInformation.builder()
                 .name(name)
                 .address(address)
                 .telno(telno)
+                .latitude(latitude)
+                .longitude(longitude)
                 .build();
     }
 }
@@ -0,0 +1,30 @@
+package com.sfz.mungpy.event;
+
+import com.sfz.mungpy.entity.Dog;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+@Getter
+@ToString
+@RequiredArgsConstructor
+public class DogChangedEvent {
+    public enum Type {
+        SAVED, REMOVED
+    }
+
+    private final Type type;
+    private final Long id;
+    private final String image;
+    private final String personality;
+    @ToString.Exclude
+    private final byte[] faceEmbedding;
+
+    public static DogChangedEvent saved(Dog dog) {
+        return new DogChangedEvent(Type.SAVED, dog.getId(), dog.getImage(), dog.getPersonality(), dog.getFaceEmbedding());
+    }
+
+    public static DogChangedEvent removed(Dog dog) {
+        return new DogChangedEvent(Type.REMOVED, dog.getId(), dog.getImage(), dog.getPersonality(), null);
+    }
+}
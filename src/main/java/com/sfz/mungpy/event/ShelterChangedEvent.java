@@ -0,0 +1,14 @@
+package com.sfz.mungpy.event;
+
+import com.sfz.mungpy.entity.ShelterType;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+@Getter
+@ToString
+@RequiredArgsConstructor
+public class ShelterChangedEvent {
+    private final Long id;
+    private final ShelterType type;
+}
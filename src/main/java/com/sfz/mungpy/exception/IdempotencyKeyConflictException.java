@@ -0,0 +1,12 @@
+package com.sfz.mungpy.exception;
+
+public class IdempotencyKeyConflictException extends RuntimeException {
+
+    public IdempotencyKeyConflictException() {
+        super();
+    }
+
+    public IdempotencyKeyConflictException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,12 @@
+package com.sfz.mungpy.exception;
+
+public class InvalidImageException extends RuntimeException {
+
+    public InvalidImageException() {
+        super();
+    }
+
+    public InvalidImageException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,12 @@
+package com.sfz.mungpy.exception;
+
+public class UpstreamUnavailableException extends RuntimeException {
+
+    public UpstreamUnavailableException() {
+        super();
+    }
+
+    public UpstreamUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,9 @@
+package com.sfz.mungpy.repository;
+
+public interface CandidateView {
+    Long getId();
+
+    String getImage();
+
+    Integer getScore();
+}
@@ -1,10 +1,62 @@
 package com.sfz.mungpy.repository;
 
 import com.sfz.mungpy.entity.Dog;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
-public interface DogRepository extends JpaRepository<Dog, Long> {
+public interface DogRepository extends JpaRepository<Dog, Long>, DogUpdateRepository {
+    // findByImage 결과(이미지 이름 → id)를 담는 쿼리 캐시 영역
+    String BY_IMAGE_REGION = "dogs.byImage";
+
+    // 매칭 때마다 부르므로 쿼리 캐시에 둔다. 엔티티 자체는 dogs 영역에서 읽는다.
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = BY_IMAGE_REGION)
+    })
     Optional<Dog> findByImage(String image);
+
+    List<Dog> findByDescriptionIsNullAndIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    List<Dog> findByFaceEmbeddingIsNullAndIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    List<FaceEmbeddingView> findByFaceEmbeddingIsNotNull();
+
+    List<Dog> findByImageHashIsNullAndIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    List<Dog> findByTrait1IsNullAndPersonalityIsNotNullAndIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    // 후보 중 사진을 교체해 파이썬 서버가 가진 사진과 달라진 강아지의 이미지 이름
+    @Query("select d.image from Dog d where d.imageReplaced = true and d.image in :images")
+    List<String> findReplacedImages(@Param("images") Collection<String> images);
+
+    // 일치하는 성향 수로 순위를 매겨 상위 candidates 등까지 돌려준다. 경계 점수와 동점인 강아지는 모두 포함된다.
+    @Query(value = """
+            select id, image, score from (
+                select id, image, score, rank() over (order by score desc) as position from (
+                    select d.id as id, d.image as image,
+                           case when d.trait1 = :trait1 then 1 else 0 end
+                         + case when d.trait2 = :trait2 then 1 else 0 end
+                         + case when d.trait3 = :trait3 then 1 else 0 end
+                         + case when d.trait4 = :trait4 then 1 else 0 end
+                         + case when d.trait5 = :trait5 then 1 else 0 end
+                         + case when d.trait6 = :trait6 then 1 else 0 end as score
+                    from dogs d
+                ) scored
+            ) ranked
+            where position <= :candidates
+            order by score desc, id
+            """, nativeQuery = true)
+    List<CandidateView> findTopCandidates(@Param("trait1") String trait1, @Param("trait2") String trait2,
+                                          @Param("trait3") String trait3, @Param("trait4") String trait4,
+                                          @Param("trait5") String trait5, @Param("trait6") String trait6,
+                                          @Param("candidates") int candidates);
 }
@@ -0,0 +1,24 @@
+package com.sfz.mungpy.repository;
+
+/**
+ * dogs 한 행의 일부 컬럼만 고치는 갱신.
+ * JPQL 벌크 update 는 Hibernate 가 dogs 영역 전체와 findByImage 쿼리 캐시를 비우므로 JDBC 로 쓰고 바꾼 강아지만 2차 캐시에서 뺀다.
+ * image 컬럼은 바꾸지 않으므로 findByImage 결과는 그대로 둔다.
+ */
+public interface DogUpdateRepository {
+    int updateLocation(Long id, double latitude, double longitude);
+
+    // 설명이 아직 없을 때만 쓴다.
+    int updateDescription(Long id, String description);
+
+    // 임베딩을 만드는 사이 사진이 바뀌었으면 쓰지 않는다. 읽을 때의 image_hash 와 같을 때만 갱신한다.
+    int updateFaceEmbedding(Long id, String hash, byte[] faceEmbedding);
+
+    // 같은 사진을 저장소로 옮길 때처럼 사진 내용은 그대로이고 메타데이터만 채운다. 임베딩과 설명은 건드리지 않는다.
+    int updateImageMetadata(Long id, String hash, String mimeType, Integer width, Integer height);
+
+    // 사진이 바뀌면 예전 사진에서 만든 임베딩과 설명도 비워 배치 작업이 다시 만들게 한다.
+    int updateImage(Long id, String hash, String mimeType, Integer width, Integer height);
+
+    int updateTraits(Long id, String trait1, String trait2, String trait3, String trait4, String trait5, String trait6);
+}
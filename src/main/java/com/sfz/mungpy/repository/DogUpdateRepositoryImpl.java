@@ -0,0 +1,65 @@
+package com.sfz.mungpy.repository;
+
+import com.sfz.mungpy.entity.Dog;
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+class DogUpdateRepositoryImpl implements DogUpdateRepository {
+    private static final String UPDATE_LOCATION = "update dogs set latitude = ?, longitude = ? where id = ?";
+    private static final String UPDATE_DESCRIPTION = "update dogs set description = ? where id = ? and description is null";
+    private static final String UPDATE_FACE_EMBEDDING = "update dogs set face_embedding = ? where id = ? and image_hash = ?";
+    private static final String UPDATE_FACE_EMBEDDING_UNMIGRATED = "update dogs set face_embedding = ? where id = ? and image_hash is null";
+    private static final String UPDATE_IMAGE_METADATA =
+            "update dogs set image_hash = ?, image_mime_type = ?, image_width = ?, image_height = ? where id = ?";
+    private static final String UPDATE_IMAGE = "update dogs set image_hash = ?, image_mime_type = ?, image_width = ?, image_height = ?, "
+            + "image_replaced = true, face_embedding = null, description = null where id = ?";
+    private static final String UPDATE_TRAITS =
+            "update dogs set trait1 = ?, trait2 = ?, trait3 = ?, trait4 = ?, trait5 = ?, trait6 = ? where id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Cache entityCache;
+
+    DogUpdateRepositoryImpl(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityCache = entityManagerFactory.getCache();
+    }
+
+    @Override
+    public int updateLocation(Long id, double latitude, double longitude) {
+        return update(id, UPDATE_LOCATION, latitude, longitude, id);
+    }
+
+    @Override
+    public int updateDescription(Long id, String description) {
+        return update(id, UPDATE_DESCRIPTION, description, id);
+    }
+
+    @Override
+    public int updateFaceEmbedding(Long id, String hash, byte[] faceEmbedding) {
+        return hash == null
+                ? update(id, UPDATE_FACE_EMBEDDING_UNMIGRATED, faceEmbedding, id)
+                : update(id, UPDATE_FACE_EMBEDDING, faceEmbedding, id, hash);
+    }
+
+    @Override
+    public int updateImageMetadata(Long id, String hash, String mimeType, Integer width, Integer height) {
+        return update(id, UPDATE_IMAGE_METADATA, hash, mimeType, width, height, id);
+    }
+
+    @Override
+    public int updateImage(Long id, String hash, String mimeType, Integer width, Integer height) {
+        return update(id, UPDATE_IMAGE, hash, mimeType, width, height, id);
+    }
+
+    @Override
+    public int updateTraits(Long id, String trait1, String trait2, String trait3, String trait4, String trait5, String trait6) {
+        return update(id, UPDATE_TRAITS, trait1, trait2, trait3, trait4, trait5, trait6, id);
+    }
+
+    private int update(Long id, String sql, Object... args) {
+        int updated = jdbcTemplate.update(sql, args);
+        if (updated > 0) entityCache.evict(Dog.class, id);
+        return updated;
+    }
+}
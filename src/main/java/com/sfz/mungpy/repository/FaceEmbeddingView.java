@@ -0,0 +1,9 @@
+package com.sfz.mungpy.repository;
+
+public interface FaceEmbeddingView {
+    Long getId();
+
+    String getImage();
+
+    byte[] getFaceEmbedding();
+}
@@ -0,0 +1,7 @@
+package com.sfz.mungpy.repository;
+
+import com.sfz.mungpy.entity.JobCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface JobCheckpointRepository extends JpaRepository<JobCheckpoint, String> {
+}
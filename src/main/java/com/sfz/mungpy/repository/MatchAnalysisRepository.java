@@ -0,0 +1,30 @@
+package com.sfz.mungpy.repository;
+
+import com.sfz.mungpy.entity.MatchAnalysis;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.Optional;
+
+public interface MatchAnalysisRepository extends JpaRepository<MatchAnalysis, Long> {
+    Optional<MatchAnalysis> findByDogIdAndPersonalityKey(Long dogId, String personalityKey);
+
+    @Modifying
+    @Transactional
+    @Query("delete from MatchAnalysis a where a.dogId = :dogId")
+    int deleteByDogId(@Param("dogId") Long dogId);
+
+    @Modifying
+    @Transactional
+    @Query("delete from MatchAnalysis a where a.dogId = :dogId and a.personalityKey = :personalityKey")
+    int deleteByDogIdAndPersonalityKey(@Param("dogId") Long dogId, @Param("personalityKey") String personalityKey);
+
+    @Modifying
+    @Transactional
+    @Query("delete from MatchAnalysis a where a.dogId in :dogIds")
+    int deleteByDogIdIn(@Param("dogIds") Collection<Long> dogIds);
+}
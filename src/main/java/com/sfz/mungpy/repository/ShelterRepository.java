@@ -1,9 +1,16 @@
 package com.sfz.mungpy.repository;
 
 import com.sfz.mungpy.entity.Shelter;
+import com.sfz.mungpy.entity.ShelterType;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 @Repository
 public interface ShelterRepository extends JpaRepository<Shelter, Long> {
-}
\ No newline at end of file
+    List<ShelterView> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    List<ShelterView> findByTypeAndIdGreaterThanOrderByIdAsc(ShelterType type, Long id, Limit limit);
+}
@@ -0,0 +1,15 @@
+package com.sfz.mungpy.repository;
+
+public interface ShelterView {
+    Long getId();
+
+    String getName();
+
+    String getAddress();
+
+    String getTelno();
+
+    Double getLatitude();
+
+    Double getLongitude();
+}
@@ -0,0 +1,138 @@
+package com.sfz.mungpy.service;
+
+import com.sfz.mungpy.dto.DogAnalysis;
+import com.sfz.mungpy.entity.Dog;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 매칭 결과로 정해진 dogs.description, match_reason 갱신을 모아 두었다가 주기적으로 JDBC 배치 한 번으로 쓴다.
+ * 같은 강아지에 대한 갱신은 마지막 값만 남긴다. 요청 스레드는 큐에 넣기만 하므로 DB 커넥션을 잡지 않는다.
+ * Hibernate 를 거치지 않으므로 쓴 강아지는 2차 캐시에서 직접 뺀다.
+ */
+@Slf4j
+@Component
+public class AnalysisWriteBehind {
+    private static final String UPDATE = "update dogs set description = ?, match_reason = ? where id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Cache entityCache;
+    private final int batchSize;
+    private final int maxPending;
+
+    private final Map<Long, DogAnalysis> pending = new ConcurrentHashMap<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    private final Counter queued;
+    private final Counter coalesced;
+    private final Counter written;
+    private final Counter failed;
+
+    public AnalysisWriteBehind(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory, MeterRegistry meterRegistry,
+                               @Value("${analysis.write-behind.batch-size:100}") int batchSize,
+                               @Value("${analysis.write-behind.max-pending:10000}") int maxPending) {
+
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityCache = entityManagerFactory.getCache();
+        this.batchSize = batchSize;
+        this.maxPending = maxPending;
+
+        Gauge.builder("mungpy.analysis.writes.pending", pending, Map::size)
+                .description("DB 에 쓰이기를 기다리는 분석 결과 수")
+                .register(meterRegistry);
+        this.queued = writes(meterRegistry, "queued");
+        this.coalesced = writes(meterRegistry, "coalesced");
+        this.written = writes(meterRegistry, "written");
+        this.failed = writes(meterRegistry, "failed");
+    }
+
+    public void enqueue(Long dogId, DogAnalysis analysis) {
+        if (pending.put(dogId, analysis) != null) coalesced.increment();
+        else queued.increment();
+
+        // DB 가 밀려 큐가 계속 커지면 요청 스레드가 직접 비워 속도를 맞춘다.
+        if (pending.size() >= maxPending) flush();
+    }
+
+    // 아직 쓰지 않은 갱신을 버린다. 사진이 바뀐 강아지에 예전 설명이 다시 쓰이지 않게 한다.
+    public void discard(Long dogId) {
+        pending.remove(dogId);
+    }
+
+    public void discard(Collection<Long> dogIds) {
+        pending.keySet().removeAll(dogIds);
+    }
+
+    @Scheduled(fixedDelayString = "${analysis.write-behind.interval:PT1S}")
+    public void flush() {
+        if (pending.isEmpty()) return;
+
+        flushLock.lock();
+        try {
+            List<Long> ids = new ArrayList<>();
+            List<DogAnalysis> analyses = new ArrayList<>();
+            for (Long dogId : pending.keySet()) {
+                DogAnalysis analysis = pending.remove(dogId);
+                if (analysis == null) continue;
+                ids.add(dogId);
+                analyses.add(analysis);
+            }
+            if (ids.isEmpty()) return;
+
+            write(ids, analyses);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        flush();
+    }
+
+    private void write(List<Long> ids, List<DogAnalysis> analyses) {
+        List<Object[]> rows = new ArrayList<>(ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            rows.add(new Object[]{analyses.get(i).getDescription(), analyses.get(i).getMatchReason(), ids.get(i)});
+        }
+
+        try {
+            for (int from = 0; from < rows.size(); from += batchSize) {
+                jdbcTemplate.batchUpdate(UPDATE, rows.subList(from, Math.min(from + batchSize, rows.size())));
+            }
+            ids.forEach(id -> entityCache.evict(Dog.class, id));
+            written.increment(rows.size());
+            log.debug("analysis write-behind flushed {} dogs", rows.size());
+        } catch (RuntimeException e) {
+            // 그사이 들어온 더 새로운 값은 덮어쓰지 않고, 실패한 것만 다음 주기에 다시 쓴다.
+            for (int i = 0; i < ids.size(); i++) {
+                pending.putIfAbsent(ids.get(i), analyses.get(i));
+            }
+            failed.increment(rows.size());
+            log.warn("analysis write-behind failed for {} dogs, retrying later", rows.size(), e);
+        }
+    }
+
+    private static Counter writes(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("mungpy.analysis.writes")
+                .description("매칭 분석 결과 DB 반영")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,413 @@
+package com.sfz.mungpy.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sfz.mungpy.dto.ImageMetadata;
+import com.sfz.mungpy.dto.ImportReport;
+import com.sfz.mungpy.entity.Dog;
+import com.sfz.mungpy.entity.Shelter;
+import com.sfz.mungpy.entity.ShelterType;
+import com.sfz.mungpy.event.ShelterChangedEvent;
+import com.sfz.mungpy.repository.DogRepository;
+import com.sfz.mungpy.storage.ImageStore;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * CSV/NDJSON 으로 강아지와 보호소를 일괄 등록한다.
+ * 입력은 한 행씩 읽어 batch-size 행마다 JDBC 배치 하나로 upsert 하며, external_id 가 같은 행은 갱신한다.
+ * JPA 를 거치지 않으므로 IDENTITY 키여도 배치가 유지되고, 엔티티 리스너가 하던 일(성향 나누기, 인덱스 반영)과 2차 캐시 비우기는 여기서 한다.
+ * 잘못된 행은 건너뛰고 줄 번호와 함께 보고하며, 배치가 DB 에서 실패하면 그 배치만 한 행씩 다시 써서 문제 행을 찾는다.
+ */
+@Slf4j
+@Service
+public class BulkImportService {
+    public enum Format { CSV, NDJSON }
+
+    // 이미지나 성향이 바뀌면 그에 딸린 값(임베딩, 설명, 좌표)은 비워 배치 작업이 다시 만들게 한다.
+    // 비교에 쓰는 컬럼은 맨 뒤에서 바꿔야 MySQL 과 H2 가 같은 결과를 낸다.
+    private static final String UPSERT_DOG = """
+            insert into dogs (external_id, age, sex, kind, name, image, image_hash, image_mime_type, image_width, image_height,
+                              personality, trait1, trait2, trait3, trait4, trait5, trait6,
+                              rescue_place, protect_place, protect_telno, expiration_date)
+            values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+            on duplicate key update
+                face_embedding = case when image = values(image) then face_embedding else null end,
+                description = case when image = values(image) and personality = values(personality) then description else null end,
+                image_hash = case when values(image_hash) is not null then values(image_hash) when image = values(image) then image_hash else null end,
+                image_mime_type = case when values(image_hash) is not null then values(image_mime_type) when image = values(image) then image_mime_type else null end,
+                image_width = case when values(image_hash) is not null then values(image_width) when image = values(image) then image_width else null end,
+                image_height = case when values(image_hash) is not null then values(image_height) when image = values(image) then image_height else null end,
+                latitude = case when protect_place = values(protect_place) then latitude else null end,
+                longitude = case when protect_place = values(protect_place) then longitude else null end,
+                age = values(age), sex = values(sex), kind = values(kind), name = values(name),
+                trait1 = values(trait1), trait2 = values(trait2), trait3 = values(trait3),
+                trait4 = values(trait4), trait5 = values(trait5), trait6 = values(trait6),
+                rescue_place = values(rescue_place), protect_telno = values(protect_telno), expiration_date = values(expiration_date),
+                personality = values(personality), image = values(image), protect_place = values(protect_place)
+            """;
+
+    private static final String UPSERT_SHELTER = """
+            insert into shelters (external_id, name, address, telno, delegate, type)
+            values (?, ?, ?, ?, ?, ?)
+            on duplicate key update
+                latitude = case when address = values(address) then latitude else null end,
+                longitude = case when address = values(address) then longitude else null end,
+                name = values(name), telno = values(telno), delegate = values(delegate), type = values(type),
+                address = values(address)
+            """;
+
+    private static final DateTimeFormatter BASIC_DATE = DateTimeFormatter.BASIC_ISO_DATE;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Cache entityCache;
+    private final ObjectMapper objectMapper;
+    private final ImageStore imageStore;
+    private final Optional<PersonalityIndex> personalityIndex;
+    private final FaceEmbeddingIndex faceEmbeddingIndex;
+    private final MatchAnalysisCache matchAnalysisCache;
+    private final AnalysisWriteBehind analysisWriteBehind;
+    private final ApplicationEventPublisher eventPublisher;
+    private final MeterRegistry meterRegistry;
+    private final int batchSize;
+    private final int maxErrors;
+    private final Path imageRoot;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public BulkImportService(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                             EntityManagerFactory entityManagerFactory, ObjectMapper objectMapper, ImageStore imageStore,
+                             Optional<PersonalityIndex> personalityIndex, FaceEmbeddingIndex faceEmbeddingIndex,
+                             MatchAnalysisCache matchAnalysisCache, AnalysisWriteBehind analysisWriteBehind,
+                             ApplicationEventPublisher eventPublisher, MeterRegistry meterRegistry,
+                             @Value("${import.batch-size:500}") int batchSize,
+                             @Value("${import.max-errors:100}") int maxErrors,
+                             @Value("${import.image-root:data/import}") Path imageRoot) {
+
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.entityCache = entityManagerFactory.getCache();
+        this.objectMapper = objectMapper;
+        this.imageStore = imageStore;
+        this.personalityIndex = personalityIndex;
+        this.faceEmbeddingIndex = faceEmbeddingIndex;
+        this.matchAnalysisCache = matchAnalysisCache;
+        this.analysisWriteBehind = analysisWriteBehind;
+        this.eventPublisher = eventPublisher;
+        this.meterRegistry = meterRegistry;
+        this.batchSize = batchSize;
+        this.maxErrors = maxErrors;
+        this.imageRoot = imageRoot.toAbsolutePath().normalize();
+    }
+
+    /**
+     * 컬럼: externalId, name, image, personality(필수), age, sex, kind, rescuePlace, protectPlace, protectTelno,
+     * expirationDate(yyyy-MM-dd 또는 yyyyMMdd), imagePath(import.image-root 아래 파일. 있으면 이미지 저장소에 올린다)
+     */
+    public ImportReport importDogs(InputStream in, Format format) throws IOException {
+        Set<Long> changed = Collections.synchronizedSet(new HashSet<>());
+        // 사진이나 성향이 바뀌어 설명이 비워질 강아지는 쓰기 전에 아직 쓰지 않은 예전 설명을 버리고,
+        // 등록이 끝나면 그사이 들어온 것까지 한 번 더 버린 뒤 예전 매칭 분석을 지운다.
+        ImportReport report = run("dogs", in, format, UPSERT_DOG, this::dogParams, batch -> {
+            List<Long> ids = changedDogs(batch);
+            analysisWriteBehind.discard(ids);
+            changed.addAll(ids);
+        });
+
+        analysisWriteBehind.discard(changed);
+        matchAnalysisCache.evict(changed);
+
+        // 엔티티 리스너를 거치지 않았으므로 캐시를 비우고 상주 인덱스를 다시 만든다.
+        // 이미지 이름이 바뀌었을 수 있어 findByImage 쿼리 캐시도 비운다.
+        if (report.getWritten() > 0) {
+            entityCache.evict(Dog.class);
+            entityCache.unwrap(org.hibernate.Cache.class).evictQueryRegion(DogRepository.BY_IMAGE_REGION);
+            personalityIndex.ifPresent(PersonalityIndex::rebuild);
+            faceEmbeddingIndex.rebuild();
+        }
+        return report;
+    }
+
+    // 컬럼: externalId, name, address(필수), telno, delegate, type(PRIVATE | CERTIFIED)
+    public ImportReport importShelters(InputStream in, Format format) throws IOException {
+        ImportReport report = run("shelters", in, format, UPSERT_SHELTER, BulkImportService::shelterParams, batch -> {
+        });
+
+        if (report.getWritten() > 0) {
+            entityCache.evict(Shelter.class);
+            eventPublisher.publishEvent(new ShelterChangedEvent(null, null));
+        }
+        return report;
+    }
+
+    private record Pending(long line, Object[] params) {
+    }
+
+    // beforeFlush 는 배치를 쓰기 전에 기존 행과 비교할 수 있도록 같은 트랜잭션 안에서 먼저 불린다.
+    private ImportReport run(String entity, InputStream in, Format format, String sql,
+                             Function<Map<String, String>, Object[]> toParams,
+                             Consumer<List<Object[]>> beforeFlush) throws IOException {
+        if (!running.compareAndSet(false, true)) throw new IllegalStateException("이미 일괄 등록이 진행 중입니다.");
+
+        Counter written = rows(entity, "written");
+        Counter failed = rows(entity, "failed");
+        Progress progress = new Progress(entity);
+
+        try (ImportRowReader reader = format == Format.CSV ? ImportRowReader.csv(in) : ImportRowReader.ndjson(in, objectMapper)) {
+            List<Pending> batch = new ArrayList<>(batchSize);
+            while (!progress.aborted()) {
+                Map<String, String> row;
+                try {
+                    row = reader.next();
+                    if (row == null) break;
+                    progress.rows++;
+                    batch.add(new Pending(reader.line(), toParams.apply(row)));
+                } catch (IllegalArgumentException e) {
+                    progress.rows++;
+                    progress.error(reader.line(), e.getMessage());
+                    failed.increment();
+                    continue;
+                }
+
+                if (batch.size() >= batchSize) {
+                    flush(sql, batch, beforeFlush, progress, written, failed);
+                }
+            }
+            if (!progress.aborted()) flush(sql, batch, beforeFlush, progress, written, failed);
+        } finally {
+            running.set(false);
+        }
+
+        ImportReport report = progress.report();
+        log.info("import {} finished: {} rows, {} written, {} failed, {} rows/s{}", entity, report.getRows(),
+                report.getWritten(), report.getFailed(), Math.round(report.getRowsPerSecond()), report.isAborted() ? " (aborted)" : "");
+        return report;
+    }
+
+    private void flush(String sql, List<Pending> batch, Consumer<List<Object[]>> beforeFlush,
+                       Progress progress, Counter written, Counter failed) {
+        if (batch.isEmpty()) return;
+
+        List<Object[]> params = batch.stream().map(Pending::params).toList();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                beforeFlush.accept(params);
+                jdbcTemplate.batchUpdate(sql, params);
+            });
+            progress.written += batch.size();
+            written.increment(batch.size());
+        } catch (DataAccessException e) {
+            // 어느 행이 문제인지 알 수 없으므로 한 행씩 다시 쓴다.
+            log.debug("import batch failed, retrying row by row", e);
+            for (Pending pending : batch) {
+                try {
+                    jdbcTemplate.update(sql, pending.params());
+                    progress.written++;
+                    written.increment();
+                } catch (DataAccessException rowError) {
+                    progress.error(pending.line(), rowError.getMostSpecificCause().getMessage());
+                    failed.increment();
+                }
+            }
+        }
+        batch.clear();
+        progress.log();
+    }
+
+    // upsert 가 설명을 비우는 조건(이미지 이름이나 성향이 바뀜)에 걸리는 기존 강아지 id
+    private List<Long> changedDogs(List<Object[]> batch) {
+        Map<String, Object[]> byExternalId = new HashMap<>();
+        for (Object[] params : batch) byExternalId.put((String) params[0], params);
+
+        String placeholders = String.join(", ", Collections.nCopies(byExternalId.size(), "?"));
+        List<Long> changed = new ArrayList<>();
+        jdbcTemplate.query("select id, external_id, image, personality from dogs where external_id in (" + placeholders + ")",
+                rs -> {
+                    Object[] params = byExternalId.get(rs.getString("external_id"));
+                    if (!Objects.equals(rs.getString("image"), params[5]) || !Objects.equals(rs.getString("personality"), params[10])) {
+                        changed.add(rs.getLong("id"));
+                    }
+                }, byExternalId.keySet().toArray());
+        return changed;
+    }
+
+    private Object[] dogParams(Map<String, String> row) {
+        String[] traits = Dog.traits(required(row, "personality"));
+        for (String trait : traits) {
+            if (trait == null) throw new IllegalArgumentException("personality 는 \", \" 로 구분한 6개 항목이어야 합니다.");
+        }
+
+        ImageMetadata image = image(row.get("imagePath"));
+
+        return new Object[]{
+                required(row, "externalId"),
+                integer(row, "age"),
+                row.get("sex"),
+                row.get("kind"),
+                required(row, "name"),
+                required(row, "image"),
+                image == null ? null : image.getHash(),
+                image == null ? null : image.getMimeType(),
+                image == null ? null : image.getWidth(),
+                image == null ? null : image.getHeight(),
+                row.get("personality"),
+                traits[0], traits[1], traits[2], traits[3], traits[4], traits[5],
+                row.get("rescuePlace"),
+                row.get("protectPlace"),
+                row.get("protectTelno"),
+                date(row, "expirationDate")
+        };
+    }
+
+    private static Object[] shelterParams(Map<String, String> row) {
+        String type = row.get("type");
+        try {
+            type = type == null ? null : ShelterType.valueOf(type.trim().toUpperCase(Locale.ROOT)).name();
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("type 은 PRIVATE 또는 CERTIFIED 여야 합니다: " + type);
+        }
+
+        return new Object[]{
+                required(row, "externalId"),
+                required(row, "name"),
+                required(row, "address"),
+                row.get("telno"),
+                row.get("delegate"),
+                type
+        };
+    }
+
+    // import.image-root 밖의 파일은 읽지 않는다.
+    private ImageMetadata image(String imagePath) {
+        if (imagePath == null) return null;
+
+        Path path = imageRoot.resolve(imagePath).normalize();
+        if (!path.startsWith(imageRoot)) throw new IllegalArgumentException("imagePath 가 import.image-root 밖을 가리킵니다.");
+        if (!Files.isRegularFile(path)) throw new IllegalArgumentException("imagePath 파일이 없습니다: " + imagePath);
+
+        try (InputStream in = Files.newInputStream(path)) {
+            return imageStore.put(in);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("이미지를 저장하지 못했습니다: " + e.getMessage());
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException(e.getMessage());
+        }
+    }
+
+    private static String required(Map<String, String> row, String column) {
+        String value = row.get(column);
+        if (value == null || value.isBlank()) throw new IllegalArgumentException(column + " 값이 없습니다.");
+        return value.trim();
+    }
+
+    private static int integer(Map<String, String> row, String column) {
+        String value = row.get(column);
+        if (value == null) return 0;
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(column + " 값이 숫자가 아닙니다: " + value);
+        }
+    }
+
+    private static Timestamp date(Map<String, String> row, String column) {
+        String value = row.get(column);
+        if (value == null) return null;
+        try {
+            String trimmed = value.trim();
+            LocalDate date = trimmed.length() == 8 ? LocalDate.parse(trimmed, BASIC_DATE) : LocalDate.parse(trimmed);
+            return Timestamp.valueOf(date.atStartOfDay());
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException(column + " 값이 날짜가 아닙니다: " + value);
+        }
+    }
+
+    private Counter rows(String entity, String result) {
+        return Counter.builder("mungpy.import.rows")
+                .description("일괄 등록한 행")
+                .tag("entity", entity)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private class Progress {
+        private final String entity;
+        private final long started = System.nanoTime();
+        private final List<ImportReport.RowError> errors = new ArrayList<>();
+        private long rows;
+        private long written;
+        private long failed;
+        private long lastLogged;
+
+        Progress(String entity) {
+            this.entity = entity;
+        }
+
+        void error(long line, String message) {
+            failed++;
+            if (errors.size() < maxErrors) errors.add(new ImportReport.RowError(line, message));
+        }
+
+        boolean aborted() {
+            return failed > maxErrors;
+        }
+
+        // 배치 10개마다 한 번 남긴다.
+        void log() {
+            if (rows - lastLogged < (long) batchSize * 10) return;
+            lastLogged = rows;
+            log.info("import {} in progress: {} rows, {} written, {} failed, {} rows/s",
+                    entity, rows, written, failed, Math.round(rowsPerSecond()));
+        }
+
+        double rowsPerSecond() {
+            double seconds = (System.nanoTime() - started) / 1e9;
+            return seconds == 0 ? 0 : rows / seconds;
+        }
+
+        ImportReport report() {
+            return ImportReport.builder()
+                    .entity(entity)
+                    .rows(rows)
+                    .written(written)
+                    .failed(failed)
+                    .errors(List.copyOf(errors))
+                    .aborted(aborted())
+                    .elapsedMillis((System.nanoTime() - started) / 1_000_000)
+                    .rowsPerSecond(rowsPerSecond())
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.sfz.mungpy.service;
+
+import java.util.List;
+
+/**
+ * 사용자 성향으로 얼굴 매칭 후보를 고른다.
+ * 상주 인덱스({@link PersonalityIndex})와 DB 계산({@link DatabaseCandidateSelector}) 중
+ * {@code matching.candidates.strategy} 로 하나를 쓴다.
+ */
+public interface CandidateSelector {
+    /**
+     * 일치하는 성향 수가 높은 순으로 최소 {@code candidates} 마리의 이미지 이름을 돌려준다.
+     * 경계 점수와 동점인 강아지는 모두 포함한다.
+     */
+    List<String> selectCandidates(List<String> personality, int candidates);
+}
@@ -0,0 +1,89 @@
+package com.sfz.mungpy.service;
+
+import com.sfz.mungpy.dto.ImageMetadata;
+import com.sfz.mungpy.entity.Dog;
+import com.sfz.mungpy.repository.DogRepository;
+import com.sfz.mungpy.storage.ImageStore;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+/**
+ * jar 안의 static/images 사진을 이미지 저장소로 옮기고 dogs 에 해시와 메타데이터를 기록한다.
+ * 옮겨진 강아지는 다시 읽지 않으므로 한 번 끝나면 기동 시간에 영향을 주지 않고, 기동도 막지 않게 가상 스레드에서 돈다.
+ */
+@Slf4j
+@Component
+public class ClasspathImageMigration {
+    private static final String CLASSPATH = "/static/images/";
+
+    private final DogRepository dogRepository;
+    private final ImageStore imageStore;
+    private final ImageDeliveryService imageDeliveryService;
+    private final boolean enabled;
+    private final int pageSize;
+
+    public ClasspathImageMigration(DogRepository dogRepository, ImageStore imageStore,
+                                   ImageDeliveryService imageDeliveryService,
+                                   @Value("${images.store.migrate-classpath:true}") boolean enabled,
+                                   @Value("${images.store.migrate-page-size:100}") int pageSize) {
+
+        this.dogRepository = dogRepository;
+        this.imageStore = imageStore;
+        this.imageDeliveryService = imageDeliveryService;
+        this.enabled = enabled;
+        this.pageSize = pageSize;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (enabled) Thread.ofVirtual().name("classpath-image-migration").start(this::run);
+    }
+
+    public int run() {
+        int migrated = 0;
+        int missing = 0;
+        long lastId = 0;
+
+        while (true) {
+            List<Dog> dogs = dogRepository.findByImageHashIsNullAndIdGreaterThanOrderByIdAsc(lastId, Limit.of(pageSize));
+            if (dogs.isEmpty()) break;
+
+            for (Dog dog : dogs) {
+                if (migrate(dog)) migrated++;
+                else missing++;
+            }
+            lastId = dogs.get(dogs.size() - 1).getId();
+        }
+
+        if (migrated > 0 || missing > 0) {
+            log.info("classpath images migrated: {}, not found: {}", migrated, missing);
+        }
+        return migrated;
+    }
+
+    private boolean migrate(Dog dog) {
+        ClassPathResource resource = new ClassPathResource(CLASSPATH + dog.getImage());
+        if (!resource.exists()) return false;
+
+        try (InputStream in = resource.getInputStream()) {
+            ImageMetadata metadata = imageStore.put(in);
+            // 사진은 그대로이므로 이미 만든 설명과 임베딩은 남긴다.
+            dogRepository.updateImageMetadata(dog.getId(), metadata.getHash(), metadata.getMimeType(),
+                    metadata.getWidth(), metadata.getHeight());
+            imageDeliveryService.prepare(metadata.getHash());
+            return true;
+        } catch (IOException | RuntimeException e) {
+            log.warn("failed to migrate image of dog {}", dog.getId(), e);
+            return false;
+        }
+    }
+}
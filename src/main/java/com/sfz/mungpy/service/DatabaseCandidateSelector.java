@@ -0,0 +1,34 @@
+package com.sfz.mungpy.service;
+
+import com.sfz.mungpy.repository.CandidateView;
+import com.sfz.mungpy.repository.DogRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * 후보 점수를 DB 에서 계산해 상위 후보의 id, 이미지만 받아 온다.
+ * 강아지 목록을 메모리에 올려 두지 않으므로 목록이 커서 상주 인덱스를 두기 어려운 배포에서 쓴다.
+ * 점수 계산은 trait1~6 컬럼과 idx_dogs_traits 커버링 인덱스만 읽는다.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "matching.candidates.strategy", havingValue = "database")
+public class DatabaseCandidateSelector implements CandidateSelector {
+    private final DogRepository dogRepository;
+
+    @Override
+    public List<String> selectCandidates(List<String> personality, int candidates) {
+        String[] traits = new String[PersonalityIndex.PERSONALITIES];
+        for (int i = 0; i < traits.length && i < personality.size(); i++) {
+            traits[i] = personality.get(i);
+        }
+
+        return dogRepository.findTopCandidates(traits[0], traits[1], traits[2], traits[3], traits[4], traits[5], candidates)
+                .stream()
+                .map(CandidateView::getImage)
+                .toList();
+    }
+}
@@ -0,0 +1,145 @@
+package com.sfz.mungpy.service;
+
+import com.sfz.mungpy.entity.Dog;
+import com.sfz.mungpy.entity.JobCheckpoint;
+import com.sfz.mungpy.repository.DogRepository;
+import com.sfz.mungpy.repository.JobCheckpointRepository;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 설명이 없는 강아지의 한 마디 설명을 미리 생성해 dogs.description 에 저장하는 배치.
+ * 페이지 단위로 처리한 마지막 id 를 job_checkpoints 에 남겨 중단되더라도 그 다음부터 이어서 진행한다.
+ */
+@Slf4j
+@Component
+public class DogDescriptionJob {
+    static final String NAME = "dog-description";
+
+    private final DogRepository dogRepository;
+    private final JobCheckpointRepository jobCheckpointRepository;
+    private final OpenAIAnalysisService openAIAnalysisService;
+    private final boolean enabled;
+    private final int pageSize;
+    private final int concurrency;
+    private final long permitIntervalNanos;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicLong nextPermitAt = new AtomicLong(System.nanoTime());
+
+    public DogDescriptionJob(DogRepository dogRepository,
+                             JobCheckpointRepository jobCheckpointRepository,
+                             OpenAIAnalysisService openAIAnalysisService,
+                             @Value("${description-batch.enabled:false}") boolean enabled,
+                             @Value("${description-batch.page-size:50}") int pageSize,
+                             @Value("${description-batch.concurrency:4}") int concurrency,
+                             @Value("${description-batch.requests-per-second:2}") double requestsPerSecond) {
+
+        this.dogRepository = dogRepository;
+        this.jobCheckpointRepository = jobCheckpointRepository;
+        this.openAIAnalysisService = openAIAnalysisService;
+        this.enabled = enabled;
+        this.pageSize = pageSize;
+        this.concurrency = concurrency;
+        this.permitIntervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / requestsPerSecond);
+    }
+
+    @Getter
+    @ToString
+    @AllArgsConstructor
+    public static class Result {
+        private int generated;
+        private int failed;
+    }
+
+    @Scheduled(initialDelayString = "${description-batch.initial-delay:PT1M}",
+            fixedDelayString = "${description-batch.interval:PT1H}")
+    public void scheduledRun() {
+        if (enabled) run();
+    }
+
+    public Result run() {
+        if (!running.compareAndSet(false, true)) {
+            log.info("{} is already running", NAME);
+            return new Result(0, 0);
+        }
+
+        int generated = 0;
+        int failed = 0;
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+        try {
+            JobCheckpoint checkpoint = jobCheckpointRepository.findById(NAME)
+                    .orElseGet(() -> JobCheckpoint.builder().name(NAME).lastId(0L).build());
+            long lastId = checkpoint.getLastId();
+
+            log.info("{} started after id {}", NAME, lastId);
+
+            while (true) {
+                List<Dog> dogs = dogRepository.findByDescriptionIsNullAndIdGreaterThanOrderByIdAsc(lastId, Limit.of(pageSize));
+                if (dogs.isEmpty()) break;
+
+                List<Future<Boolean>> results = dogs.stream()
+                        .map(dog -> executor.submit(() -> describe(dog)))
+                        .toList();
+                for (Future<Boolean> result : results) {
+                    if (result.get()) generated++;
+                    else failed++;
+                }
+
+                lastId = dogs.get(dogs.size() - 1).getId();
+                checkpoint.advance(lastId);
+                checkpoint = jobCheckpointRepository.save(checkpoint);
+            }
+
+            // 끝까지 돌았으면 체크포인트를 되돌려 다음 실행 때 실패한 강아지를 다시 시도한다.
+            checkpoint.advance(0L);
+            jobCheckpointRepository.save(checkpoint);
+
+            log.info("{} finished: generated {}, failed {}", NAME, generated, failed);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            log.error("{} stopped", NAME, e.getCause());
+        } finally {
+            executor.shutdownNow();
+            running.set(false);
+        }
+
+        return new Result(generated, failed);
+    }
+
+    private boolean describe(Dog dog) {
+        try {
+            acquirePermit();
+
+            String description = openAIAnalysisService.describe(dog);
+            dogRepository.updateDescription(dog.getId(), description);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (Exception e) {
+            log.warn("{} failed for dog {}", NAME, dog.getId(), e);
+            return false;
+        }
+    }
+
+    // 요청 시작 시각을 permitIntervalNanos 간격으로 배정해 초당 호출 수를 제한한다.
+    private void acquirePermit() throws InterruptedException {
+        long now = System.nanoTime();
+        long slot = Math.max(now, nextPermitAt.getAndAccumulate(now, (prev, current) -> Math.max(prev, current) + permitIntervalNanos));
+
+        TimeUnit.NANOSECONDS.sleep(slot - now);
+    }
+}
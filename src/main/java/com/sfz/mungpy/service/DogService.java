@@ -1,244 +1,336 @@
 package com.sfz.mungpy.service;
 
+import com.sfz.mungpy.client.FaceMatcherClient;
+import com.sfz.mungpy.dto.DogAnalysis;
 import com.sfz.mungpy.dto.DogMatch;
 import com.sfz.mungpy.dto.DogSpecific;
-import com.sfz.mungpy.dto.KakaoMapResponse;
-import com.sfz.mungpy.dto.PythonResponse;
+import com.sfz.mungpy.dto.GeoPoint;
+import com.sfz.mungpy.dto.ImageMetadata;
+import com.sfz.mungpy.dto.UploadedImage;
 import com.sfz.mungpy.entity.Dog;
 import com.sfz.mungpy.exception.DogNotFoundException;
 import com.sfz.mungpy.exception.ShelterNotFoundException;
 import com.sfz.mungpy.repository.DogRepository;
-import lombok.AllArgsConstructor;
+import com.sfz.mungpy.storage.ImageStore;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.ai.chat.messages.Media;
-import org.springframework.ai.chat.messages.SystemMessage;
-import org.springframework.ai.chat.messages.UserMessage;
-import org.springframework.ai.chat.model.ChatResponse;
-import org.springframework.ai.chat.prompt.Prompt;
-import org.springframework.ai.openai.OpenAiChatModel;
-import org.springframework.ai.openai.OpenAiChatOptions;
-import org.springframework.ai.openai.api.OpenAiApi;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.io.ByteArrayResource;
-import org.springframework.core.io.ClassPathResource;
-import org.springframework.http.*;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
-import org.springframework.util.LinkedMultiValueMap;
-import org.springframework.util.MimeTypeUtils;
-import org.springframework.util.MultiValueMap;
-import org.springframework.web.client.RestTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
-import java.util.*;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 
 @Slf4j
 @Service
 public class DogService {
-    private final String kakaoKey;
     private final DogRepository dogRepository;
-    private final OpenAiChatModel openAiChatModel;
+    private final CandidateSelector candidateSelector;
+    private final FaceMatcherClient faceMatcherClient;
+    private final GeocodeService geocodeService;
+    private final MatchAnalysisCache matchAnalysisCache;
+    private final MatchRequestCache matchRequestCache;
+    private final OpenAIAnalysisService openAIAnalysisService;
+    private final FaceEmbeddingIndex faceEmbeddingIndex;
+    private final ImageDeliveryService imageDeliveryService;
+    private final ImageStore imageStore;
+    private final AnalysisWriteBehind analysisWriteBehind;
+    private final MatchMetrics matchMetrics;
+    private final boolean localFaceMatching;
+    private final Duration totalBudget;
+    private final Duration faceMatchBudget;
+    private final Duration analysisBudget;
+    // 업스트림 호출을 요청 스레드 밖에서 돌려 예산이 끝나면 기다리지 않고 넘어간다.
+    private final ExecutorService stages = Executors.newVirtualThreadPerTaskExecutor();
+
+    public DogService(DogRepository dogRepository, CandidateSelector candidateSelector,
+                      FaceMatcherClient faceMatcherClient, GeocodeService geocodeService, MatchAnalysisCache matchAnalysisCache,
+                      MatchRequestCache matchRequestCache,
+                      OpenAIAnalysisService openAIAnalysisService, FaceEmbeddingIndex faceEmbeddingIndex,
+                      ImageDeliveryService imageDeliveryService, ImageStore imageStore,
+                      AnalysisWriteBehind analysisWriteBehind, MatchMetrics matchMetrics,
+                      @Value("${matching.face.strategy:remote}") String faceStrategy,
+                      @Value("${matching.deadline.total:10s}") Duration totalBudget,
+                      @Value("${matching.deadline.face-match:4s}") Duration faceMatchBudget,
+                      @Value("${matching.deadline.analysis:6s}") Duration analysisBudget) {
 
-    public DogService(@Value("${kakaoapi.secret-key}") String kakaoKey,
-                      DogRepository dogRepository, OpenAiChatModel openAiChatModel) {
-
-        this.kakaoKey = kakaoKey;
         this.dogRepository = dogRepository;
-        this.openAiChatModel = openAiChatModel;
+        this.candidateSelector = candidateSelector;
+        this.faceMatcherClient = faceMatcherClient;
+        this.geocodeService = geocodeService;
+        this.matchAnalysisCache = matchAnalysisCache;
+        this.matchRequestCache = matchRequestCache;
+        this.openAIAnalysisService = openAIAnalysisService;
+        this.faceEmbeddingIndex = faceEmbeddingIndex;
+        this.imageDeliveryService = imageDeliveryService;
+        this.imageStore = imageStore;
+        this.analysisWriteBehind = analysisWriteBehind;
+        this.matchMetrics = matchMetrics;
+        this.localFaceMatching = "local".equalsIgnoreCase(faceStrategy);
+        this.totalBudget = totalBudget;
+        this.faceMatchBudget = faceMatchBudget;
+        this.analysisBudget = analysisBudget;
     }
 
-    private static final int CANDIDATES = 10;
-    private static final int PERSONALITIES = 6;
-
-    @AllArgsConstructor
-    private static class MatchingPriority {
-        private Dog dog;
-        private int point;
+    public record FaceMatch(Dog dog, boolean degraded) {
     }
 
-    @Transactional
-    public DogMatch matchDog(List<String> personality, MultipartFile image) {
-        List<Dog> dogList = dogRepository.findAll();
-
-        log.info("dogList: {}, size: {}", dogList.toString(), dogList.size());
-
-        if (dogList.isEmpty()) throw new DogNotFoundException();
-
-        PriorityQueue<MatchingPriority> matchingPriorities = new PriorityQueue<>(Comparator.comparingInt(mp -> -mp.point));
-        for (Dog dog : dogList) {
-            List<String> dogPersonality = dog.toDogSpecificDto().getPersonality();
+    private static final int CANDIDATES = 10;
 
-            log.info("dogPersonality: {}, size: {}", dog.toDogSpecificDto().getPersonality().toString(), dog.toDogSpecificDto().getPersonality().size());
+    // 트랜잭션 없이 진행한다. DB 조회는 리포지토리 호출마다 짧게 끝나고, 얼굴 매칭과 OpenAI 를 기다리는 동안에는 커넥션을 잡지 않는다.
+    // 업스트림 단계가 예산을 넘기면 성향 점수만으로 고른 결과를 degraded 로 표시해 돌려준다.
+    // 같은 사진과 성향의 요청이 이미 끝났거나 진행 중이면 그 결과를 쓴다.
+    public DogMatch matchDog(List<String> personality, UploadedImage image) {
+        return matchRequestCache.get(image, personality, () -> computeMatch(personality, image));
+    }
 
-            int point = 0;
-            for (int i = 0; i < PERSONALITIES; i++) {
-                if (dogPersonality.get(i).equals(personality.get(i))) {
-                    point++;
-                }
-            }
+    private DogMatch computeMatch(List<String> personality, UploadedImage image) {
+        long started = System.nanoTime();
+        MatchBudget budget = MatchBudget.start(totalBudget);
 
-            matchingPriorities.offer(new MatchingPriority(dog, point));
-        }
+        List<String> selectList = selectCandidates(personality);
 
-        List<String> selectList = new ArrayList<>();
+        FaceMatch faceMatch = findMatchedDog(image, selectList, budget);
+        Dog matchDog = faceMatch.dog();
 
-        log.info("selectList: {}, size: {}", selectList.toString(), selectList.size());
+        DogMatch matchDto = toMatchDto(matchDog);
 
-        while (!matchingPriorities.isEmpty()) {
-            MatchingPriority mp = matchingPriorities.poll();
+        Optional<DogAnalysis> analyzed = analyze(matchDog, personality, budget);
+        DogAnalysis analysis = analyzed.orElseGet(() -> templatedAnalysis(matchDog, personality));
 
-            if (selectList.size() < CANDIDATES) {
-                selectList.add(mp.dog.getImage());
-            }
+        matchDto.setDescription(analysis.getDescription());
+        matchDto.setMatchReason(analysis.getMatchReason());
+        matchDto.setDegraded(faceMatch.degraded() || analyzed.isEmpty());
+        matchMetrics.response(matchDto.isDegraded());
 
-            if (selectList.size() == CANDIDATES) {
-                while (!matchingPriorities.isEmpty() && mp.point == matchingPriorities.peek().point) {
-                    selectList.add(matchingPriorities.poll().dog.getImage());
-                }
-            }
+        if (matchMetrics.sampled()) {
+            log.info("match dogId={} candidates={} faceStrategy={} degraded={} elapsedMs={}", matchDog.getId(), selectList.size(),
+                    localFaceMatching ? "local" : "remote", matchDto.isDegraded(), (System.nanoTime() - started) / 1_000_000);
         }
 
-        String imageName = requestImageModelAnalysis(image, selectList);
+        return matchDto;
+    }
 
-        log.info(imageName);
+    public List<String> selectCandidates(List<String> personality) {
+        List<String> selectList = matchMetrics.observe(MatchMetrics.Stage.CANDIDATES,
+                () -> candidateSelector.selectCandidates(personality, CANDIDATES));
+        matchMetrics.candidates(selectList.size());
 
-        Dog matchDog = dogRepository.findByImage(imageName)
-                .orElseThrow(DogNotFoundException::new);
+        if (selectList.isEmpty()) throw new DogNotFoundException();
 
-        log.info(matchDog.toString());
+        return selectList;
+    }
 
-        DogMatch matchDto = matchDog.toMatchDto();
-        matchDto.setImage("/images/" + imageName);
+    public FaceMatch findMatchedDog(UploadedImage image, List<String> selectList) {
+        return findMatchedDog(image, selectList, MatchBudget.start(totalBudget));
+    }
 
-        log.info(matchDto.toString());
+    // 얼굴 매칭이 제 몫의 시간 안에 끝나지 않거나 실패하면 성향 점수가 가장 높은 후보로 대신한다.
+    public FaceMatch findMatchedDog(UploadedImage image, List<String> selectList, MatchBudget budget) {
+        Future<String> similar = stages.submit(() -> findSimilarImage(image, selectList));
 
-        Map<String, String> resultMap;
+        String imageName;
+        boolean degraded = false;
         try {
-            resultMap = requestOpenAIAnalysis(matchDog.getPersonality(), personality.toString(), matchDto.getImage());
-
-            String description = resultMap.get("description");
-            String matchReason = resultMap.get("matchReason");
-
-            log.info("dc: {}, mr: {}", description, matchReason);
-
-            matchDto.setDescription(description);
-            matchDto.setMatchReason(matchReason);
-            matchDog.updateAnalysis(description, matchReason);
-        } catch (IOException e) {
-            throw new RuntimeException(e);
+            imageName = matchMetrics.observe(MatchMetrics.Stage.FACE_MATCH, () -> await(similar, budget.slice(faceMatchBudget)));
+        } catch (RuntimeException e) {
+            // 소켓 대기 중인 가상 스레드를 깨워 업스트림 연결을 바로 반납하게 한다.
+            similar.cancel(true);
+            degraded(MatchMetrics.Stage.FACE_MATCH, e);
+            imageName = selectList.get(0);
+            degraded = true;
         }
 
-        return matchDto;
+        String matchedImage = imageName;
+        Dog dog = matchMetrics.observe(MatchMetrics.Stage.FIND_DOG, () -> dogRepository.findByImage(matchedImage)
+                .orElseThrow(DogNotFoundException::new));
+        return new FaceMatch(dog, degraded);
     }
 
-    private String requestImageModelAnalysis(MultipartFile image, List<String> selectList) {
-        RestTemplate restTemplate = new RestTemplate();
-
-        MultiValueMap<String, Object> bodyMap = new LinkedMultiValueMap<>();
-        bodyMap.add("image", new MultipartFileResource(image));
-        bodyMap.add("list", selectList.toString());
-
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.MULTIPART_FORM_DATA);
-
-        HttpEntity<MultiValueMap<String, Object>> requestEntity = new HttpEntity<>(bodyMap, headers);
+    // local 전략이면 업로드 이미지의 임베딩만 받아 와 Java 인덱스에서 고른다.
+    // 후보 중 임베딩이 아직 없는 강아지가 있으면 기존처럼 파이썬 서버에서 비교한다.
+    // 사진을 교체한 강아지는 파이썬 서버가 예전 사진과 비교하게 되므로 원격 후보에서 빼고,
+    // 새 사진의 임베딩이 만들어진 뒤 로컬 인덱스로만 비교한다.
+    private String findSimilarImage(UploadedImage image, List<String> selectList) {
+        if (localFaceMatching) {
+            if (!faceEmbeddingIndex.containsAll(selectList)) {
+                matchMetrics.fallback("embedding_missing");
+            } else {
+                float[] query = faceMatcherClient.embed(image.toResource());
+                Optional<String> imageName = faceEmbeddingIndex.findMostSimilar(query, selectList);
+                if (imageName.isPresent()) return imageName.get();
+                matchMetrics.fallback("no_local_match");
+            }
+        }
 
-        String url = "https://74c1-123-214-153-130.ngrok-free.app/find_similar_dogs";
-        ResponseEntity<PythonResponse> response = restTemplate.exchange(
-                url,
-                HttpMethod.POST,
-                requestEntity,
-                PythonResponse.class
-        );
+        List<String> remoteCandidates = remoteCandidates(selectList);
+        if (remoteCandidates.isEmpty()) return selectList.get(0);
 
-        PythonResponse responseBody = response.getBody();
-        if (responseBody == null) throw new DogNotFoundException();
+        return faceMatcherClient.findSimilarDog(image.toResource(), remoteCandidates);
+    }
 
-        log.info(responseBody.getData());
+    private List<String> remoteCandidates(List<String> selectList) {
+        List<String> replaced = dogRepository.findReplacedImages(selectList);
+        if (replaced.isEmpty()) return selectList;
 
-        return responseBody.getData();
+        return selectList.stream().filter(name -> !replaced.contains(name)).toList();
     }
 
-    private Map<String, String> requestOpenAIAnalysis(String dogPersonality, String userPersonality, String dogImageName) throws IOException {
-
-        Media dogImage = new Media(MimeTypeUtils.IMAGE_PNG, new ClassPathResource("/static" + dogImageName));
+    public DogMatch toMatchDto(Dog dog) {
+        DogMatch matchDto = dog.toMatchDto();
+        matchDto.setImage(imageDeliveryService.url(dog, ImageDeliveryService.Variant.ORIGINAL));
+        matchDto.setThumbnail(imageDeliveryService.url(dog, ImageDeliveryService.Variant.THUMBNAIL));
+        return matchDto;
+    }
 
-        String order = "너는 유기견 매칭 서비스의 분석 담당관이야." +
-                "너의 일은 강아지 이미지를 분석해서 요약하고, 사용자와 강아지의 성향을 비교해서 둘이 어울리는 이유를 생성해주는 거야";
-        SystemMessage systemMessage = new SystemMessage(order);
+    public void saveAnalysis(Long dogId, DogAnalysis analysis) {
+        analysisWriteBehind.enqueue(dogId, analysis);
+    }
 
-        UserMessage userMessage = new UserMessage(
-                "너가 할 일은 두 가지야. 첫 번째, 강아지 사진을 분석해서 분위기나 외형을 고려해서 한 마디로 표현해줘." +
-                        "그리고 이 강아지의 성향은 " + dogPersonality + "인데, 이걸 한 마디에 반영해줘. 예를 들면 순둥순둥한 방콕러 같이." +
-                        "두 번째, 주인의 성향은 " + userPersonality + "인데, 위의 강아지의 성향과 주인의 성향을 분석해서" +
-                        "이 둘이 왜 어울리는지 감성적으로 3줄 요약해줘. 같은 말을 반복하면 안되고 나에게 응답할 때는 {첫 번째 응답 결과}/{두 번째 응답 결과} 형식으로 해줘." +
-                        "그리고 사용자를 부를 때는 당신 이라고 해줘. 예를 들면 당신에게 이 아이를 추천한 이유는 처럼",
-                List.of(dogImage));
+    // 시간 안에 끝나지 않은 분석은 끊지 않고 이어서 돌린다. 늦게라도 끝나면 캐시와 DB 에 남아 다음 요청이 쓴다.
+    private Optional<DogAnalysis> analyze(Dog dog, List<String> personality, MatchBudget budget) {
+        CompletableFuture<DogAnalysis> loading = CompletableFuture.supplyAsync(
+                () -> matchAnalysisCache.get(dog.getId(), dog.getPersonality(), personality,
+                        () -> requestOpenAIAnalysis(dog, personality.toString())), stages);
 
-        ChatResponse response = openAiChatModel.call(new Prompt(List.of(systemMessage, userMessage),
-                OpenAiChatOptions.builder().withModel(OpenAiApi.ChatModel.GPT_4_O.getValue()).build()));
+        DogAnalysis analysis;
+        try {
+            analysis = matchMetrics.observe(MatchMetrics.Stage.ANALYSIS, () -> await(loading, budget.slice(analysisBudget)));
+        } catch (RuntimeException e) {
+            degraded(MatchMetrics.Stage.ANALYSIS, e);
+            if (e instanceof DeadlineExceededException) {
+                loading.thenAccept(late -> analysisWriteBehind.enqueue(dog.getId(), late));
+            }
+            return Optional.empty();
+        }
 
-        String[] result = response.getResult().getOutput().getContent().split("/");
+        matchMetrics.run(MatchMetrics.Stage.WRITE, () -> analysisWriteBehind.enqueue(dog.getId(), analysis));
+        return Optional.of(analysis);
+    }
 
-        Map<String, String> resultMap = new HashMap<>();
-        resultMap.put("description", result[0].trim());
-        resultMap.put("matchReason", result[1].trim());
+    // 배치로 미리 만든 설명이 있으면 그대로 쓰고, 매칭 이유는 겹치는 성향으로 채운다. 캐시에는 넣지 않는다.
+    static DogAnalysis templatedAnalysis(Dog dog, List<String> personality) {
+        List<String> traits = Arrays.stream(Dog.traits(dog.getPersonality())).filter(Objects::nonNull).toList();
+        List<String> shared = traits.stream().filter(personality::contains).toList();
 
-        return resultMap;
+        String description = dog.getDescription();
+        if (description == null) {
+            description = traits.isEmpty() ? dog.getName() : String.join(", ", traits) + " 성향의 아이";
+        }
+        String matchReason = shared.isEmpty()
+                ? "당신이 고른 성향에 가장 가까운 아이예요."
+                : "당신과 이 아이는 " + String.join(", ", shared) + " 성향이 닮았어요.";
+
+        return DogAnalysis.builder()
+                .description(description)
+                .matchReason(matchReason)
+                .build();
     }
 
-    private static class MultipartFileResource extends ByteArrayResource {
-        private final MultipartFile file;
-
-        MultipartFileResource(MultipartFile file) {
-            super(toByteArray(file));
-            this.file = file;
+    private void degraded(MatchMetrics.Stage stage, RuntimeException e) {
+        if (e instanceof DeadlineExceededException) {
+            matchMetrics.degraded(stage, "timeout");
+        } else {
+            log.warn("match stage {} failed, degrading", stage, e);
+            matchMetrics.degraded(stage, "error");
         }
+    }
 
-        @Override
-        public String getFilename() {
-            return file.getOriginalFilename();
+    private static <T> T await(Future<T> future, Duration timeout) {
+        try {
+            return future.get(timeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            throw new DeadlineExceededException();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DeadlineExceededException();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw new IllegalStateException(e.getCause());
         }
+    }
 
-        private static byte[] toByteArray(MultipartFile file) {
-            try {
-                return file.getBytes();
-            } catch (IOException e) {
-                throw new RuntimeException("Failed to read bytes from MultipartFile", e);
-            }
+    // 예산 초과는 흔한 흐름이라 스택 트레이스를 만들지 않는다.
+    private static final class DeadlineExceededException extends RuntimeException {
+        DeadlineExceededException() {
+            super("match stage deadline exceeded", null, false, false);
         }
     }
 
-    @Transactional(readOnly = true)
-    public DogSpecific showDog(Long dogId) {
-        DogSpecific dogSpecific = dogRepository.findById(dogId)
-                .orElseThrow(DogNotFoundException::new)
-                .toDogSpecificDto();
+    // 미리 생성된 설명이 있으면 이미지 없이 매칭 이유만 요청한다.
+    private DogAnalysis requestOpenAIAnalysis(Dog dog, String userPersonality) {
+        try {
+            if (dog.getDescription() == null) {
+                return openAIAnalysisService.analyze(dog, userPersonality);
+            }
 
-        log.info(dogSpecific.toString());
+            return DogAnalysis.builder()
+                    .description(dog.getDescription())
+                    .matchReason(openAIAnalysisService.explainMatch(dog.getDescription(), dog.getPersonality(), userPersonality))
+                    .build();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
 
-        dogSpecific.setImage("/images/" + dogSpecific.getImage());
+    // 사진 저장과 축소본 생성이 DB 커넥션을 잡고 있지 않도록 트랜잭션 없이 처리하고 메타데이터만 한 번에 갱신한다.
+    // 예전 사진으로 만든 임베딩, 설명, 매칭 분석은 함께 비운다.
+    public DogSpecific replaceImage(Long dogId, MultipartFile file) {
+        Dog dog = dogRepository.findById(dogId)
+                .orElseThrow(DogNotFoundException::new);
 
-        RestTemplate restTemplate = new RestTemplate();
+        ImageMetadata metadata;
+        try (InputStream in = file.getInputStream()) {
+            metadata = imageStore.put(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        analysisWriteBehind.discard(dogId);
+        matchAnalysisCache.evict(dogId);
+        dogRepository.updateImage(dogId, metadata.getHash(), metadata.getMimeType(), metadata.getWidth(), metadata.getHeight());
+        dog.updateImage(metadata);
+        // 새 임베딩이 만들어질 때까지 이 강아지는 얼굴 매칭 후보에서 빠진다.
+        faceEmbeddingIndex.remove(dogId);
+        imageDeliveryService.prepare(metadata.getHash());
+
+        DogSpecific dogSpecific = dog.toDogSpecificDto();
+        dogSpecific.setImage(imageDeliveryService.url(dog, ImageDeliveryService.Variant.ORIGINAL));
+        dogSpecific.setThumbnail(imageDeliveryService.url(dog, ImageDeliveryService.Variant.THUMBNAIL));
+        return dogSpecific;
+    }
 
-        String url = "https://dapi.kakao.com/v2/local/search/keyword?size=1";
-        url += "&query=" + dogSpecific.getProtectPlace();
-        log.info(url);
+    // 좌표가 없는 강아지만 지오코딩하고 결과를 저장해 두어 이후 조회는 DB 만으로 처리한다.
+    public DogSpecific showDog(Long dogId) {
+        Dog dog = dogRepository.findById(dogId)
+                .orElseThrow(DogNotFoundException::new);
 
-        HttpHeaders headers = new HttpHeaders();
-        headers.set("Authorization", "KakaoAK " + kakaoKey);
+        DogSpecific dogSpecific = dog.toDogSpecificDto();
+        dogSpecific.setImage(imageDeliveryService.url(dog, ImageDeliveryService.Variant.ORIGINAL));
+        dogSpecific.setThumbnail(imageDeliveryService.url(dog, ImageDeliveryService.Variant.THUMBNAIL));
 
-        HttpEntity<MultiValueMap<String, Object>> requestEntity = new HttpEntity<>(headers);
-        KakaoMapResponse.Document kakaoMap = restTemplate.exchange(url, HttpMethod.GET, requestEntity, KakaoMapResponse.class)
-                .getBody().getDocuments().get(0);
+        if (!dog.hasLocation()) {
+            GeoPoint location = geocodeService.geocode(dog.getProtectPlace())
+                    .orElseThrow(ShelterNotFoundException::new);
 
-        if (kakaoMap == null) throw new ShelterNotFoundException();
+            dogRepository.updateLocation(dogId, location.getLatitude(), location.getLongitude());
 
-        dogSpecific.setLongitude(Double.parseDouble(kakaoMap.getX()));
-        dogSpecific.setLatitude(Double.parseDouble(kakaoMap.getY()));
+            dogSpecific.setLatitude(location.getLatitude());
+            dogSpecific.setLongitude(location.getLongitude());
+        }
 
         return dogSpecific;
     }
-}
\ No newline at end of file
+}
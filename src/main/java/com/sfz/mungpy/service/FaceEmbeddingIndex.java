@@ -0,0 +1,548 @@
+package com.sfz.mungpy.service;
+
+import com.sfz.mungpy.event.DogChangedEvent;
+import com.sfz.mungpy.repository.DogRepository;
+import com.sfz.mungpy.repository.FaceEmbeddingView;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 강아지 얼굴 임베딩을 메모리에 올려 두고 코사인 유사도로 가장 닮은 강아지를 찾는 인덱스.
+ * 벡터는 정규화해서 1024행 단위의 연속된 float[] 블록에 담아 두므로 유사도는 내적 한 번으로 계산된다.
+ * FLAT 모드는 후보 전체를 훑고, IVF 모드는 k-means 중심점 중 가까운 nprobe 개의 목록만 훑는다.
+ * 변경은 PersonalityIndex 와 같이 새 스냅샷을 만들어 교체하며, 바뀐 블록만 복사한다.
+ */
+@Slf4j
+@Component
+public class FaceEmbeddingIndex {
+    public enum Mode { FLAT, IVF }
+
+    private static final int BLOCK_SHIFT = 10;
+    private static final int BLOCK_ROWS = 1 << BLOCK_SHIFT;
+    private static final int BLOCK_MASK = BLOCK_ROWS - 1;
+
+    // 이보다 적은 수를 훑을 때는 IVF 로 얻는 이득이 없어 정확 탐색을 한다.
+    private static final int EXACT_SCAN_LIMIT = 2048;
+    private static final int KMEANS_ITERATIONS = 10;
+
+    private final DogRepository dogRepository;
+    private final Mode mode;
+    private final int configuredLists;
+    private final int nprobe;
+    private final int trainingSample;
+
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+
+    public FaceEmbeddingIndex(DogRepository dogRepository,
+                              @Value("${matching.face.index:flat}") String mode,
+                              @Value("${matching.face.lists:0}") int lists,
+                              @Value("${matching.face.nprobe:8}") int nprobe,
+                              @Value("${matching.face.training-sample:10000}") int trainingSample) {
+
+        this.dogRepository = dogRepository;
+        this.mode = Mode.valueOf(mode.trim().toUpperCase(Locale.ROOT));
+        this.configuredLists = lists;
+        this.nprobe = nprobe;
+        this.trainingSample = trainingSample;
+    }
+
+    // IVF 중심점은 전체 재구성 때만 학습하므로, 강아지가 많이 바뀌는 환경이면 matching.face.rebuild-cron 으로 주기적으로 다시 만든다.
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${matching.face.rebuild-cron:-}")
+    public void rebuild() {
+        writeLock.lock();
+        try {
+            rebuildLocked();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void rebuildLocked() {
+        List<FaceEmbeddingView> views = dogRepository.findByFaceEmbeddingIsNotNull();
+
+        Editor editor = new Editor(Snapshot.EMPTY);
+        for (FaceEmbeddingView view : views) {
+            editor.put(view.getId(), view.getImage(), decode(view.getFaceEmbedding()));
+        }
+
+        Snapshot built = editor.build(snapshot.version + 1);
+        snapshot = mode == Mode.IVF ? built.withClusters(train(built)) : built;
+
+        log.info("face embedding index built: {} dogs, dim {}, {} lists, version {}",
+                snapshot.size, snapshot.dim, snapshot.lists(), snapshot.version);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDogChanged(DogChangedEvent event) {
+        if (event.getId() == null) return;
+
+        if (event.getType() == DogChangedEvent.Type.SAVED && event.getFaceEmbedding() != null) {
+            save(event.getId(), event.getImage(), decode(event.getFaceEmbedding()));
+        } else {
+            remove(event.getId());
+        }
+    }
+
+    public void save(long id, String image, float[] embedding) {
+        writeLock.lock();
+        try {
+            Snapshot current = snapshot;
+            if (current.holds(id, image, embedding)) return;
+
+            Editor editor = new Editor(current);
+            editor.put(id, image, embedding);
+            snapshot = editor.build(current.version + 1);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public void remove(long id) {
+        writeLock.lock();
+        try {
+            Snapshot current = snapshot;
+            if (current.slotOf(id) < 0) return;
+
+            Editor editor = new Editor(current);
+            editor.remove(id);
+            snapshot = editor.build(current.version + 1);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public long version() {
+        return snapshot.version;
+    }
+
+    public int size() {
+        return snapshot.size;
+    }
+
+    public boolean containsAll(Collection<String> images) {
+        Snapshot current = snapshot;
+        return !images.isEmpty() && current.slotsByImage.keySet().containsAll(images);
+    }
+
+    /**
+     * 후보 이미지 중 질의 벡터와 코사인 유사도가 가장 높은 이미지 이름을 돌려준다.
+     * 임베딩이 없는 후보는 건너뛴다.
+     */
+    public Optional<String> findMostSimilar(float[] query, Collection<String> candidates) {
+        return search(query, 1, candidates).stream().findFirst();
+    }
+
+    /**
+     * 유사도 내림차순 상위 {@code k} 개의 이미지 이름. {@code candidates} 가 null 이면 전체에서 찾는다.
+     */
+    public List<String> search(float[] query, int k, Collection<String> candidates) {
+        Snapshot current = snapshot;
+        if (current.size == 0 || k <= 0) return List.of();
+        if (query.length != current.dim) {
+            throw new IllegalArgumentException("expected embedding of " + current.dim + " dimensions but got " + query.length);
+        }
+
+        float[] normalized = normalize(query.clone());
+        TopK top = new TopK(k);
+
+        if (candidates == null) {
+            if (current.centroids == null || current.size <= EXACT_SCAN_LIMIT) {
+                current.scanAll(normalized, top);
+            } else {
+                current.scanLists(normalized, nprobe, null, top);
+            }
+        } else {
+            int[] slots = current.slotsOf(candidates);
+            if (current.centroids == null || slots.length <= EXACT_SCAN_LIMIT) {
+                current.scanSlots(normalized, slots, top);
+            } else {
+                boolean[] mask = new boolean[current.size];
+                for (int slot : slots) mask[slot] = true;
+                current.scanLists(normalized, nprobe, mask, top);
+
+                // 가까운 목록에 후보가 모자라면 정확 탐색으로 되돌아간다.
+                if (top.size < k) {
+                    top = new TopK(k);
+                    current.scanSlots(normalized, slots, top);
+                }
+            }
+        }
+
+        return top.images(current);
+    }
+
+    /**
+     * 정규화된 두 벡터의 내적. 누산기 4개로 나눠 의존성 사슬을 끊어 두면 JIT 가 루프를 펼치고 파이프라인을 채우기 쉽다.
+     */
+    static float dot(float[] a, int aOffset, float[] b, int bOffset, int dim) {
+        float s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+        int i = 0;
+        for (; i + 3 < dim; i += 4) {
+            s0 += a[aOffset + i] * b[bOffset + i];
+            s1 += a[aOffset + i + 1] * b[bOffset + i + 1];
+            s2 += a[aOffset + i + 2] * b[bOffset + i + 2];
+            s3 += a[aOffset + i + 3] * b[bOffset + i + 3];
+        }
+        for (; i < dim; i++) {
+            s0 += a[aOffset + i] * b[bOffset + i];
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    static float[] normalize(float[] vector) {
+        double norm = 0;
+        for (float v : vector) norm += (double) v * v;
+        if (norm == 0) return vector;
+
+        float scale = (float) (1 / Math.sqrt(norm));
+        for (int i = 0; i < vector.length; i++) vector[i] *= scale;
+        return vector;
+    }
+
+    public static byte[] encode(float[] embedding) {
+        ByteBuffer buffer = ByteBuffer.allocate(embedding.length * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.asFloatBuffer().put(embedding);
+        return buffer.array();
+    }
+
+    public static float[] decode(byte[] bytes) {
+        float[] embedding = new float[bytes.length / Float.BYTES];
+        ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer().get(embedding);
+        return embedding;
+    }
+
+    // 표본에 구면 k-means 를 돌려 중심점을 학습한다. 표본이 너무 작으면 FLAT 으로 둔다.
+    private float[] train(Snapshot built) {
+        int lists = configuredLists > 0 ? configuredLists : (int) Math.round(Math.sqrt(built.size));
+        if (built.size <= EXACT_SCAN_LIMIT || lists < 2) return null;
+
+        int dim = built.dim;
+        int stride = Math.max(1, built.size / Math.max(trainingSample, lists));
+        int[] sample = new int[(built.size + stride - 1) / stride];
+        for (int i = 0; i < sample.length; i++) sample[i] = i * stride;
+        lists = Math.min(lists, sample.length);
+
+        float[] centroids = new float[lists * dim];
+        for (int c = 0; c < lists; c++) {
+            int slot = sample[(int) ((long) c * sample.length / lists)];
+            System.arraycopy(built.block(slot), built.offset(slot), centroids, c * dim, dim);
+        }
+
+        int[] assignment = new int[sample.length];
+        for (int iteration = 0; iteration < KMEANS_ITERATIONS; iteration++) {
+            float[] sums = new float[lists * dim];
+            int[] counts = new int[lists];
+
+            for (int i = 0; i < sample.length; i++) {
+                int slot = sample[i];
+                float[] block = built.block(slot);
+                int offset = built.offset(slot);
+
+                int nearest = nearest(centroids, lists, block, offset, dim);
+                assignment[i] = nearest;
+                counts[nearest]++;
+                for (int d = 0; d < dim; d++) sums[nearest * dim + d] += block[offset + d];
+            }
+
+            for (int c = 0; c < lists; c++) {
+                if (counts[c] == 0) continue;
+                float[] centroid = normalize(Arrays.copyOfRange(sums, c * dim, (c + 1) * dim));
+                System.arraycopy(centroid, 0, centroids, c * dim, dim);
+            }
+        }
+
+        return centroids;
+    }
+
+    private static int nearest(float[] centroids, int lists, float[] vector, int offset, int dim) {
+        int best = 0;
+        float bestScore = Float.NEGATIVE_INFINITY;
+        for (int c = 0; c < lists; c++) {
+            float score = dot(centroids, c * dim, vector, offset, dim);
+            if (score > bestScore) {
+                bestScore = score;
+                best = c;
+            }
+        }
+        return best;
+    }
+
+    // 점수 내림차순으로 정렬된 작은 배열. k 가 작아서 삽입 정렬이 힙보다 빠르다.
+    private static class TopK {
+        private final int[] slots;
+        private final float[] scores;
+        private int size;
+
+        private TopK(int k) {
+            this.slots = new int[k];
+            this.scores = new float[k];
+        }
+
+        private void offer(int slot, float score) {
+            if (size == slots.length && score <= scores[size - 1]) return;
+
+            int i = size == slots.length ? size - 1 : size++;
+            while (i > 0 && scores[i - 1] < score) {
+                slots[i] = slots[i - 1];
+                scores[i] = scores[i - 1];
+                i--;
+            }
+            slots[i] = slot;
+            scores[i] = score;
+        }
+
+        private List<String> images(Snapshot snapshot) {
+            String[] result = new String[size];
+            for (int i = 0; i < size; i++) result[i] = snapshot.images[slots[i]];
+            return Arrays.asList(result);
+        }
+    }
+
+    private static class Snapshot {
+        private static final Snapshot EMPTY = new Snapshot(0, 0, 0, new float[0][], new long[0], new String[0], Map.of(), null, null, null);
+
+        private final long version;
+        private final int dim;
+        private final int size;
+        private final float[][] blocks;
+        private final long[] ids;
+        private final String[] images;
+        private final Map<String, Integer> slotsByImage;
+
+        // IVF: 중심점, 슬롯별 소속 목록, 목록별 슬롯
+        private final float[] centroids;
+        private final int[] assignment;
+        private final int[][] members;
+
+        private Snapshot(long version, int dim, int size, float[][] blocks, long[] ids, String[] images,
+                         Map<String, Integer> slotsByImage, float[] centroids, int[] assignment, int[][] members) {
+            this.version = version;
+            this.dim = dim;
+            this.size = size;
+            this.blocks = blocks;
+            this.ids = ids;
+            this.images = images;
+            this.slotsByImage = slotsByImage;
+            this.centroids = centroids;
+            this.assignment = assignment;
+            this.members = members;
+        }
+
+        private int lists() {
+            return centroids == null ? 0 : centroids.length / dim;
+        }
+
+        private float[] block(int slot) {
+            return blocks[slot >>> BLOCK_SHIFT];
+        }
+
+        private int offset(int slot) {
+            return (slot & BLOCK_MASK) * dim;
+        }
+
+        private int slotOf(long id) {
+            for (int i = 0; i < size; i++) {
+                if (ids[i] == id) return i;
+            }
+            return -1;
+        }
+
+        private boolean holds(long id, String image, float[] embedding) {
+            int slot = slotOf(id);
+            if (slot < 0 || !Objects.equals(images[slot], image) || embedding.length != dim) return false;
+
+            float[] normalized = normalize(embedding.clone());
+            int offset = offset(slot);
+            return Arrays.equals(block(slot), offset, offset + dim, normalized, 0, dim);
+        }
+
+        private int[] slotsOf(Collection<String> candidates) {
+            int[] slots = new int[candidates.size()];
+            int count = 0;
+            for (String image : candidates) {
+                Integer slot = slotsByImage.get(image);
+                if (slot != null) slots[count++] = slot;
+            }
+            return count == slots.length ? slots : Arrays.copyOf(slots, count);
+        }
+
+        private void scanAll(float[] query, TopK top) {
+            for (int slot = 0; slot < size; slot++) {
+                top.offer(slot, dot(block(slot), offset(slot), query, 0, dim));
+            }
+        }
+
+        private void scanSlots(float[] query, int[] slots, TopK top) {
+            for (int slot : slots) {
+                top.offer(slot, dot(block(slot), offset(slot), query, 0, dim));
+            }
+        }
+
+        private void scanLists(float[] query, int nprobe, boolean[] mask, TopK top) {
+            int lists = lists();
+            TopK nearest = new TopK(Math.min(nprobe, lists));
+            for (int c = 0; c < lists; c++) {
+                nearest.offer(c, dot(centroids, c * dim, query, 0, dim));
+            }
+
+            for (int i = 0; i < nearest.size; i++) {
+                for (int slot : members[nearest.slots[i]]) {
+                    if (mask == null || mask[slot]) {
+                        top.offer(slot, dot(block(slot), offset(slot), query, 0, dim));
+                    }
+                }
+            }
+        }
+
+        private Snapshot withClusters(float[] centroids) {
+            if (centroids == null) return this;
+
+            int lists = centroids.length / dim;
+            int[] assignment = new int[size];
+            for (int slot = 0; slot < size; slot++) {
+                assignment[slot] = nearest(centroids, lists, block(slot), offset(slot), dim);
+            }
+            return new Snapshot(version, dim, size, blocks, ids, images, slotsByImage,
+                    centroids, assignment, group(assignment, size, lists));
+        }
+
+        private static int[][] group(int[] assignment, int size, int lists) {
+            int[] counts = new int[lists];
+            for (int slot = 0; slot < size; slot++) counts[assignment[slot]]++;
+
+            int[][] members = new int[lists][];
+            for (int c = 0; c < lists; c++) members[c] = new int[counts[c]];
+
+            int[] filled = new int[lists];
+            for (int slot = 0; slot < size; slot++) {
+                int c = assignment[slot];
+                members[c][filled[c]++] = slot;
+            }
+            return members;
+        }
+    }
+
+    /**
+     * 스냅샷 하나를 바탕으로 변경을 모아 새 스냅샷을 만든다.
+     * 블록은 처음 쓸 때만 복사하고, 중심점은 그대로 두고 새 벡터만 가까운 목록에 배정한다.
+     */
+    private static class Editor {
+        private final Snapshot base;
+        private int dim;
+        private int size;
+        private float[][] blocks;
+        private boolean[] copied;
+        private long[] ids;
+        private String[] images;
+        private final Map<String, Integer> slotsByImage;
+        private int[] assignment;
+
+        private Editor(Snapshot base) {
+            this.base = base;
+            this.dim = base.dim;
+            this.size = base.size;
+            this.blocks = base.blocks.clone();
+            this.copied = new boolean[blocks.length];
+            this.ids = base.ids.clone();
+            this.images = base.images.clone();
+            this.slotsByImage = new HashMap<>(base.slotsByImage);
+            this.assignment = base.assignment == null ? null : base.assignment.clone();
+        }
+
+        private void put(long id, String image, float[] embedding) {
+            if (dim == 0) dim = embedding.length;
+            if (embedding.length != dim) {
+                log.warn("face embedding of dog {} has {} dimensions, expected {}", id, embedding.length, dim);
+                return;
+            }
+
+            int slot = slotOf(id);
+            if (slot < 0) {
+                slot = size++;
+                grow();
+            } else {
+                slotsByImage.remove(images[slot]);
+            }
+
+            float[] normalized = normalize(embedding.clone());
+            System.arraycopy(normalized, 0, writableBlock(slot), (slot & BLOCK_MASK) * dim, dim);
+            ids[slot] = id;
+            images[slot] = image;
+            if (image != null) slotsByImage.put(image, slot);
+            if (assignment != null) {
+                assignment[slot] = nearest(base.centroids, base.lists(), normalized, 0, dim);
+            }
+        }
+
+        // 마지막 행을 지운 자리로 옮긴다.
+        private void remove(long id) {
+            int slot = slotOf(id);
+            if (slot < 0) return;
+
+            int last = --size;
+            slotsByImage.remove(images[slot]);
+            if (slot != last) {
+                System.arraycopy(blocks[last >>> BLOCK_SHIFT], (last & BLOCK_MASK) * dim,
+                        writableBlock(slot), (slot & BLOCK_MASK) * dim, dim);
+                ids[slot] = ids[last];
+                images[slot] = images[last];
+                if (images[slot] != null) slotsByImage.put(images[slot], slot);
+                if (assignment != null) assignment[slot] = assignment[last];
+            }
+            images[last] = null;
+        }
+
+        private int slotOf(long id) {
+            for (int i = 0; i < size; i++) {
+                if (ids[i] == id) return i;
+            }
+            return -1;
+        }
+
+        private void grow() {
+            if (size > ids.length) {
+                int capacity = Math.max(16, ids.length * 2);
+                ids = Arrays.copyOf(ids, capacity);
+                images = Arrays.copyOf(images, capacity);
+            }
+            if (assignment != null && size > assignment.length) {
+                assignment = Arrays.copyOf(assignment, ids.length);
+            }
+
+            int block = (size - 1) >>> BLOCK_SHIFT;
+            if (block >= blocks.length) {
+                blocks = Arrays.copyOf(blocks, block + 1);
+                copied = Arrays.copyOf(copied, block + 1);
+                blocks[block] = new float[BLOCK_ROWS * dim];
+                copied[block] = true;
+            }
+        }
+
+        private float[] writableBlock(int slot) {
+            int block = slot >>> BLOCK_SHIFT;
+            if (!copied[block]) {
+                blocks[block] = blocks[block].clone();
+                copied[block] = true;
+            }
+            return blocks[block];
+        }
+
+        private Snapshot build(long version) {
+            int[][] members = assignment == null ? null : Snapshot.group(assignment, size, base.lists());
+            return new Snapshot(version, dim, size, blocks, ids, images, Map.copyOf(slotsByImage),
+                    base.centroids, assignment, members);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.sfz.mungpy.service;
+
+import com.sfz.mungpy.client.FaceMatcherClient;
+import com.sfz.mungpy.entity.Dog;
+import com.sfz.mungpy.entity.JobCheckpoint;
+import com.sfz.mungpy.repository.DogRepository;
+import com.sfz.mungpy.repository.JobCheckpointRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 임베딩이 없는 강아지 사진을 파이썬 서버의 /embed 로 한 장씩 보내 dogs.face_embedding 에 저장하는 배치.
+ * 진행 위치는 DogDescriptionJob 과 같이 job_checkpoints 에 남긴다.
+ * 업스트림 클라이언트의 bulkhead 를 매칭 요청과 나눠 쓰므로 동시 호출 없이 순서대로 처리한다.
+ */
+@Slf4j
+@Component
+public class FaceEmbeddingJob {
+    static final String NAME = "face-embedding";
+
+    private final DogRepository dogRepository;
+    private final JobCheckpointRepository jobCheckpointRepository;
+    private final FaceMatcherClient faceMatcherClient;
+    private final FaceEmbeddingIndex faceEmbeddingIndex;
+    private final ImageDeliveryService imageDeliveryService;
+    private final boolean enabled;
+    private final int pageSize;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public FaceEmbeddingJob(DogRepository dogRepository,
+                            JobCheckpointRepository jobCheckpointRepository,
+                            FaceMatcherClient faceMatcherClient,
+                            FaceEmbeddingIndex faceEmbeddingIndex,
+                            ImageDeliveryService imageDeliveryService,
+                            @Value("${face-embedding-batch.enabled:false}") boolean enabled,
+                            @Value("${face-embedding-batch.page-size:50}") int pageSize) {
+
+        this.dogRepository = dogRepository;
+        this.jobCheckpointRepository = jobCheckpointRepository;
+        this.faceMatcherClient = faceMatcherClient;
+        this.faceEmbeddingIndex = faceEmbeddingIndex;
+        this.imageDeliveryService = imageDeliveryService;
+        this.enabled = enabled;
+        this.pageSize = pageSize;
+    }
+
+    public record Result(int generated, int failed) {
+    }
+
+    @Scheduled(initialDelayString = "${face-embedding-batch.initial-delay:PT1M}",
+            fixedDelayString = "${face-embedding-batch.interval:PT1H}")
+    public void scheduledRun() {
+        if (enabled) run();
+    }
+
+    public Result run() {
+        if (!running.compareAndSet(false, true)) {
+            log.info("{} is already running", NAME);
+            return new Result(0, 0);
+        }
+
+        int generated = 0;
+        int failed = 0;
+        try {
+            JobCheckpoint checkpoint = jobCheckpointRepository.findById(NAME)
+                    .orElseGet(() -> JobCheckpoint.builder().name(NAME).lastId(0L).build());
+            long lastId = checkpoint.getLastId();
+
+            log.info("{} started after id {}", NAME, lastId);
+
+            while (true) {
+                List<Dog> dogs = dogRepository.findByFaceEmbeddingIsNullAndIdGreaterThanOrderByIdAsc(lastId, Limit.of(pageSize));
+                if (dogs.isEmpty()) break;
+
+                for (Dog dog : dogs) {
+                    if (embed(dog)) generated++;
+                    else failed++;
+                }
+
+                lastId = dogs.get(dogs.size() - 1).getId();
+                checkpoint.advance(lastId);
+                checkpoint = jobCheckpointRepository.save(checkpoint);
+            }
+
+            checkpoint.advance(0L);
+            jobCheckpointRepository.save(checkpoint);
+
+            log.info("{} finished: generated {}, failed {}", NAME, generated, failed);
+        } finally {
+            running.set(false);
+        }
+
+        return new Result(generated, failed);
+    }
+
+    // 벌크 update 는 엔티티 리스너를 거치지 않으므로 인덱스에는 직접 반영한다.
+    // 그사이 사진이 교체되어 갱신되지 않았으면 예전 사진의 벡터를 인덱스에도 넣지 않고 다음 실행에서 다시 만든다.
+    private boolean embed(Dog dog) {
+        try {
+            float[] embedding = faceMatcherClient.embed(imageDeliveryService.source(dog));
+            if (dogRepository.updateFaceEmbedding(dog.getId(), dog.getImageHash(), FaceEmbeddingIndex.encode(embedding)) == 0) {
+                log.info("{} skipped dog {}: image changed while embedding", NAME, dog.getId());
+                return false;
+            }
+            faceEmbeddingIndex.save(dog.getId(), dog.getImage(), embedding);
+            return true;
+        } catch (Exception e) {
+            log.warn("{} failed for dog {}", NAME, dog.getId(), e);
+            return false;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.sfz.mungpy.service;
+
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.sfz.mungpy.client.KakaoLocalClient;
+import com.sfz.mungpy.dto.GeoPoint;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+
+/**
+ * 보호 장소 주소를 좌표로 바꾼다.
+ * 정규화한 주소를 키로 크기·TTL 제한 캐시에 담고, 같은 주소에 대한 동시 조회는 한 번의 카카오 호출로 합친다.
+ * 조회는 가상 스레드에서 비동기로 수행해 캐시 내부 잠금을 쥔 채로 외부 호출을 기다리지 않는다.
+ * 찾지 못한 주소는 일시적인 빈 응답일 수 있으므로 negative-ttl 동안만 기억한다.
+ */
+@Slf4j
+@Service
+public class GeocodeService {
+    private final KakaoLocalClient kakaoLocalClient;
+    private final AsyncLoadingCache<String, Optional<GeoPoint>> cache;
+
+    public GeocodeService(KakaoLocalClient kakaoLocalClient,
+                          @Value("${geocode.cache.maximum-size:1000}") long maximumSize,
+                          @Value("${geocode.cache.ttl:1d}") Duration ttl,
+                          @Value("${geocode.cache.negative-ttl:5m}") Duration negativeTtl) {
+
+        this.kakaoLocalClient = kakaoLocalClient;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(Expiry.writing((String address, Optional<GeoPoint> location) ->
+                        location.isPresent() ? ttl : negativeTtl))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .buildAsync(this::search);
+    }
+
+    public Optional<GeoPoint> geocode(String address) {
+        if (address == null || address.isBlank()) return Optional.empty();
+
+        return join(cache.get(normalize(address)));
+    }
+
+    static String normalize(String address) {
+        return address.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    // 호출하는 쪽이 UpstreamUnavailableException 등을 그대로 잡을 수 있도록 CompletionException 을 벗긴다.
+    private static Optional<GeoPoint> join(CompletableFuture<Optional<GeoPoint>> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw e;
+        }
+    }
+
+    private Optional<GeoPoint> search(String address) {
+        Optional<GeoPoint> location = kakaoLocalClient.searchKeyword(address)
+                .map(document -> new GeoPoint(Double.parseDouble(document.getY()), Double.parseDouble(document.getX())));
+
+        if (location.isEmpty()) log.warn("geocode miss: {}", address);
+
+        return location;
+    }
+}
@@ -0,0 +1,277 @@
+package com.sfz.mungpy.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.sfz.mungpy.entity.Dog;
+import com.sfz.mungpy.storage.ImageFormats;
+import com.sfz.mungpy.storage.ImageStore;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.util.StringUtils;
+
+import javax.imageio.*;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * 이미지 저장소의 사진을 내용 해시가 들어간 주소로 내보낸다.
+ * 원본은 저장소 파일을 그대로 쓰고, 축소본은 처음 요청될 때나 저장소에 들어올 때 images.cache-dir/{hash}/ 에 JPEG 로 만들어 둔다.
+ * 주소에 해시가 들어가므로 파일은 한 번 만들어지면 바뀌지 않고, 응답은 파일에서 바로 보낼 수 있다.
+ */
+@Slf4j
+@Service
+public class ImageDeliveryService {
+    private static final String CLASSPATH = "/static/images/";
+
+    @Getter
+    public enum Variant {
+        ORIGINAL("original", 0),
+        MEDIUM("medium", 800),
+        THUMBNAIL("thumb", 320);
+
+        private final String path;
+        private final int maxDimension;
+
+        Variant(String path, int maxDimension) {
+            this.path = path;
+            this.maxDimension = maxDimension;
+        }
+
+        public static Optional<Variant> of(String path) {
+            return Arrays.stream(values()).filter(variant -> variant.path.equals(path)).findFirst();
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class ImageFile {
+        private Path path;
+        private String contentType;
+        private long length;
+    }
+
+    private final ImageStore imageStore;
+    private final Path cacheDir;
+    private final boolean pregenerate;
+    private final float quality;
+
+    // 해시와 크기별 파일 정보. 사진이 교체되거나 일괄 등록되면 예전 해시는 다시 찾지 않으므로 개수를 제한해 밀어낸다.
+    private final Cache<String, CompletableFuture<ImageFile>> files;
+
+    public ImageDeliveryService(ImageStore imageStore,
+                                @Value("${images.cache-dir:}") String cacheDir,
+                                @Value("${images.variants.pregenerate:true}") boolean pregenerate,
+                                @Value("${images.variants.quality:0.8}") float quality,
+                                @Value("${images.variants.maximum-entries:10000}") long maximumEntries) throws IOException {
+
+        this.imageStore = imageStore;
+        this.cacheDir = Files.createDirectories(StringUtils.hasText(cacheDir)
+                ? Path.of(cacheDir)
+                : Path.of(System.getProperty("java.io.tmpdir"), "mungpy-images"));
+        this.pregenerate = pregenerate;
+        this.quality = quality;
+        this.files = Caffeine.newBuilder()
+                .maximumSize(maximumEntries)
+                .build();
+    }
+
+    /**
+     * 사진을 내보낼 주소. 아직 저장소로 옮겨지지 않은 사진은 기존 /images/{name} 주소를 돌려준다.
+     */
+    public String url(Dog dog, Variant variant) {
+        if (dog.getImageHash() == null) return "/images/" + dog.getImage();
+        return "/images/v/" + dog.getImageHash() + "/" + variant.getPath() + "/" + dog.getImage();
+    }
+
+    public Optional<ImageFile> file(String hash, Variant variant) {
+        if (!imageStore.exists(hash)) return Optional.empty();
+
+        return Optional.of(coalesce(files.asMap(), hash + "/" + variant.getPath(),
+                () -> variant == Variant.ORIGINAL ? original(hash) : resize(hash, variant)));
+    }
+
+    // 저장소에 새로 들어온 사진의 축소본을 미리 만든다.
+    public void prepare(String hash) {
+        if (!pregenerate) return;
+
+        for (Variant variant : Variant.values()) {
+            try {
+                file(hash, variant);
+            } catch (RuntimeException e) {
+                log.warn("failed to prepare {} variant of {}", variant.getPath(), hash, e);
+            }
+        }
+    }
+
+    // OpenAI, 얼굴 매칭 서버로 보낼 원본. 저장소로 옮겨지기 전이면 jar 안의 사진을 쓴다.
+    public Resource source(Dog dog) {
+        if (dog.getImageHash() != null && imageStore.exists(dog.getImageHash())) {
+            return imageStore.load(dog.getImageHash());
+        }
+        return new ClassPathResource(CLASSPATH + dog.getImage());
+    }
+
+    public MimeType mimeType(Dog dog) {
+        if (dog.getImageMimeType() != null) return MimeType.valueOf(dog.getImageMimeType());
+
+        return MediaTypeFactory.getMediaType(dog.getImage())
+                .map(MimeType.class::cast)
+                .orElse(MimeTypeUtils.IMAGE_JPEG);
+    }
+
+    // 같은 키를 동시에 요청하면 먼저 온 요청의 결과를 함께 기다린다. 실패한 결과는 남기지 않아 다음 요청에서 다시 시도한다.
+    private static <T> T coalesce(ConcurrentMap<String, CompletableFuture<T>> map, String key, Supplier<T> loader) {
+        CompletableFuture<T> future = map.get(key);
+        if (future == null) {
+            CompletableFuture<T> created = new CompletableFuture<>();
+            future = map.putIfAbsent(key, created);
+            if (future == null) {
+                future = created;
+                try {
+                    T value = loader.get();
+                    if (value == null) map.remove(key, created);
+                    created.complete(value);
+                } catch (RuntimeException e) {
+                    map.remove(key, created);
+                    created.completeExceptionally(e);
+                }
+            }
+        }
+
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException runtime ? runtime : e;
+        }
+    }
+
+    // 로컬 저장소면 저장소 파일을 그대로 보내고, 아니면 캐시 폴더로 한 번 내려받는다.
+    private ImageFile original(String hash) {
+        try {
+            Path path = imageStore.path(hash).orElse(null);
+            if (path == null) {
+                path = Files.createDirectories(cacheDir.resolve(hash)).resolve(Variant.ORIGINAL.getPath());
+                if (!Files.exists(path)) download(hash, path);
+            }
+
+            String contentType;
+            try (InputStream in = Files.newInputStream(path)) {
+                contentType = ImageFormats.sniff(in.readNBytes(ImageFormats.SNIFF_LENGTH));
+            }
+            return new ImageFile(path, contentType == null ? "application/octet-stream" : contentType, Files.size(path));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void download(String hash, Path target) throws IOException {
+        Path temporary = Files.createTempFile(target.getParent(), "original-", ".tmp");
+        try {
+            try (InputStream in = imageStore.load(hash).getInputStream()) {
+                Files.copy(in, temporary, StandardCopyOption.REPLACE_EXISTING);
+            }
+            Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    private ImageFile resize(String hash, Variant variant) {
+        try {
+            Path target = Files.createDirectories(cacheDir.resolve(hash)).resolve(variant.getPath() + ".jpg");
+            if (Files.exists(target)) return new ImageFile(target, "image/jpeg", Files.size(target));
+
+            Path original = file(hash, Variant.ORIGINAL).orElseThrow().getPath();
+            BufferedImage scaled = scale(read(original, variant.getMaxDimension()), variant.getMaxDimension());
+
+            Path temporary = Files.createTempFile(target.getParent(), variant.getPath() + "-", ".tmp");
+            try {
+                writeJpeg(scaled, temporary);
+                Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(temporary);
+            }
+
+            log.debug("generated {} variant of {}: {} bytes", variant.getPath(), hash, Files.size(target));
+            return new ImageFile(target, "image/jpeg", Files.size(target));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // 목표 크기보다 작아지지 않는 범위에서 서브샘플링해 읽는다.
+    private static BufferedImage read(Path path, int maxDimension) throws IOException {
+        try (ImageInputStream imageIn = ImageIO.createImageInputStream(path.toFile())) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(imageIn);
+            if (!readers.hasNext()) throw new IOException("unsupported image: " + path);
+
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(imageIn, true, true);
+                int longest = Math.max(reader.getWidth(0), reader.getHeight(0));
+
+                ImageReadParam param = reader.getDefaultReadParam();
+                int step = Math.max(1, longest / maxDimension);
+                param.setSourceSubsampling(step, step, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private static BufferedImage scale(BufferedImage decoded, int maxDimension) {
+        double scale = Math.min(1.0, (double) maxDimension / Math.max(decoded.getWidth(), decoded.getHeight()));
+        int width = Math.max(1, (int) Math.round(decoded.getWidth() * scale));
+        int height = Math.max(1, (int) Math.round(decoded.getHeight() * scale));
+
+        BufferedImage scaled = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = scaled.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.drawImage(decoded, 0, 0, width, height, Color.WHITE, null);
+        } finally {
+            graphics.dispose();
+        }
+        return scaled;
+    }
+
+    // 프로그레시브 JPEG 로 저장해 느린 회선에서도 흐릿한 전체 사진이 먼저 보이게 한다.
+    private void writeJpeg(BufferedImage image, Path out) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream imageOut = ImageIO.createImageOutputStream(out.toFile())) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(quality);
+            param.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+
+            writer.setOutput(imageOut);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package com.sfz.mungpy.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 일괄 등록 입력을 한 행씩 읽는다. 파일 전체를 메모리에 올리지 않는다.
+ * 행은 컬럼 이름 → 문자열 값이며, 비어 있는 값은 넣지 않는다.
+ */
+interface ImportRowReader extends AutoCloseable {
+    /**
+     * 다음 행. 더 없으면 null.
+     *
+     * @throws IllegalArgumentException 행 형식이 잘못된 경우. 다음 호출은 그다음 행부터 읽는다
+     */
+    Map<String, String> next() throws IOException;
+
+    // 방금 읽은 행이 시작된 줄 번호(1부터)
+    long line();
+
+    @Override
+    void close() throws IOException;
+
+    static ImportRowReader csv(InputStream in) throws IOException {
+        return new Csv(new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8)));
+    }
+
+    static ImportRowReader ndjson(InputStream in, ObjectMapper objectMapper) throws IOException {
+        return new Ndjson(objectMapper.readerFor(JsonNode.class).readValues(in));
+    }
+
+    /**
+     * 첫 줄을 헤더로 쓰는 RFC 4180 CSV. 따옴표 안의 쉼표, 줄바꿈, 두 번 쓴 따옴표를 처리한다.
+     */
+    final class Csv implements ImportRowReader {
+        private final Reader reader;
+        private final List<String> header;
+        private long nextLine = 1;
+        private long line;
+
+        Csv(Reader reader) throws IOException {
+            this.reader = reader;
+            List<String> fields = record();
+            if (fields == null) throw new IllegalArgumentException("CSV 헤더가 없습니다.");
+            // UTF-8 BOM
+            if (!fields.isEmpty() && fields.get(0).startsWith("\uFEFF")) fields.set(0, fields.get(0).substring(1));
+            this.header = fields.stream().map(String::trim).toList();
+        }
+
+        @Override
+        public Map<String, String> next() throws IOException {
+            List<String> fields = record();
+            if (fields == null) return null;
+            if (fields.size() != header.size()) {
+                throw new IllegalArgumentException("컬럼 수가 헤더와 다릅니다: " + fields.size() + " != " + header.size());
+            }
+
+            Map<String, String> row = new HashMap<>();
+            for (int i = 0; i < header.size(); i++) {
+                if (!fields.get(i).isEmpty()) row.put(header.get(i), fields.get(i));
+            }
+            return row;
+        }
+
+        // 레코드 하나를 읽는다. 빈 줄은 건너뛴다.
+        private List<String> record() throws IOException {
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            boolean any = false;
+            line = nextLine;
+
+            int c;
+            while ((c = reader.read()) != -1) {
+                if (quoted) {
+                    if (c == '"') {
+                        reader.mark(1);
+                        if (reader.read() == '"') {
+                            field.append('"');
+                        } else {
+                            reader.reset();
+                            quoted = false;
+                        }
+                    } else {
+                        if (c == '\n') nextLine++;
+                        field.append((char) c);
+                    }
+                    continue;
+                }
+
+                switch (c) {
+                    case '"' -> {
+                        quoted = true;
+                        any = true;
+                    }
+                    case ',' -> {
+                        fields.add(field.toString());
+                        field.setLength(0);
+                        any = true;
+                    }
+                    case '\r' -> {
+                    }
+                    case '\n' -> {
+                        nextLine++;
+                        if (!any && field.isEmpty()) {
+                            line = nextLine;
+                            continue;
+                        }
+                        fields.add(field.toString());
+                        return fields;
+                    }
+                    default -> {
+                        field.append((char) c);
+                        any = true;
+                    }
+                }
+            }
+
+            if (quoted) throw new IllegalArgumentException("닫히지 않은 따옴표가 있습니다.");
+            if (!any && field.isEmpty()) return null;
+            fields.add(field.toString());
+            return fields;
+        }
+
+        @Override
+        public long line() {
+            return line;
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+    }
+
+    /**
+     * 한 줄에 JSON 객체 하나. 값이 문자열이 아니면 JSON 표기 그대로 문자열로 바꾼다.
+     */
+    final class Ndjson implements ImportRowReader {
+        private final MappingIterator<JsonNode> iterator;
+        private long line;
+
+        Ndjson(MappingIterator<JsonNode> iterator) {
+            this.iterator = iterator;
+        }
+
+        @Override
+        public Map<String, String> next() throws IOException {
+            try {
+                if (!iterator.hasNextValue()) return null;
+                line = iterator.getCurrentLocation().getLineNr();
+                JsonNode node = iterator.nextValue();
+                if (!node.isObject()) throw new IllegalArgumentException("JSON 객체가 아닙니다.");
+
+                Map<String, String> row = new HashMap<>();
+                for (Iterator<Map.Entry<String, JsonNode>> fields = node.fields(); fields.hasNext(); ) {
+                    Map.Entry<String, JsonNode> field = fields.next();
+                    JsonNode value = field.getValue();
+                    if (value.isNull()) continue;
+                    String text = value.isValueNode() ? value.asText() : value.toString();
+                    if (!text.isEmpty()) row.put(field.getKey(), text);
+                }
+                return row;
+            } catch (JsonProcessingException e) {
+                line = e.getLocation() == null ? line : e.getLocation().getLineNr();
+                throw new IllegalArgumentException("JSON 형식이 잘못되었습니다: " + e.getOriginalMessage());
+            }
+        }
+
+        @Override
+        public long line() {
+            return line;
+        }
+
+        @Override
+        public void close() throws IOException {
+            iterator.close();
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package com.sfz.mungpy.service;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.sfz.mungpy.dto.DogAnalysis;
+import com.sfz.mungpy.entity.MatchAnalysis;
+import com.sfz.mungpy.repository.MatchAnalysisRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * 매칭 분석 결과 캐시.
+ * 1차는 프로세스 내 Caffeine(W-TinyLFU), 2차는 match_analyses 테이블이며
+ * 같은 키에 대한 동시 요청은 먼저 들어온 요청의 결과를 함께 기다린다.
+ * 강아지마다 evict 횟수(세대)를 세어, 읽기 시작한 뒤 evict 된 강아지의 분석은 어느 계층에도 남기지 않는다.
+ * analysis.cache.enabled 를 끄면 두 계층 모두 거치지 않고 매번 OpenAI 를 부른다.
+ */
+@Slf4j
+@Component
+public class MatchAnalysisCache {
+    private final MatchAnalysisRepository matchAnalysisRepository;
+    private final TransactionTemplate writeTransaction;
+    private final boolean enabled;
+    private final AsyncCache<String, DogAnalysis> cache;
+    // evict 된 적 있는 강아지만 담기므로 강아지 수를 넘지 않는다.
+    private final ConcurrentMap<Long, Long> generations = new ConcurrentHashMap<>();
+
+    private final Counter memoryHits;
+    private final Counter coalesced;
+    private final Counter databaseHits;
+    private final Counter misses;
+    private final Timer loadTimer;
+
+    public MatchAnalysisCache(MatchAnalysisRepository matchAnalysisRepository,
+                              PlatformTransactionManager transactionManager,
+                              MeterRegistry meterRegistry,
+                              @Value("${analysis.cache.enabled:true}") boolean enabled,
+                              @Value("${analysis.cache.maximum-size:10000}") long maximumSize) {
+
+        this.matchAnalysisRepository = matchAnalysisRepository;
+        this.enabled = enabled;
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+        this.writeTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .recordStats()
+                .buildAsync();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache.synchronous(), "analysis");
+        this.memoryHits = requests(meterRegistry, "memory_hit");
+        this.coalesced = requests(meterRegistry, "coalesced");
+        this.databaseHits = requests(meterRegistry, "database_hit");
+        this.misses = requests(meterRegistry, "miss");
+        this.loadTimer = Timer.builder("mungpy.analysis.load")
+                .description("OpenAI 매칭 분석 호출 시간")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    public DogAnalysis get(Long dogId, String dogPersonality, List<String> userPersonality, Supplier<DogAnalysis> loader) {
+        if (!enabled) return loadTimer.record(loader);
+
+        String personalityKey = personalityKey(dogPersonality, userPersonality);
+        String key = dogId + ":" + personalityKey;
+        long generation = generation(dogId);
+
+        // asMap() 을 거치면 Caffeine 통계(cache.gets)에 잡히지 않으므로 get 으로 자리를 잡는다.
+        CompletableFuture<DogAnalysis> mine = new CompletableFuture<>();
+        CompletableFuture<DogAnalysis> existing = cache.get(key, (k, executor) -> mine);
+        if (existing != mine) {
+            (existing.isDone() ? memoryHits : coalesced).increment();
+            return join(existing);
+        }
+
+        try {
+            mine.complete(load(dogId, personalityKey, generation, loader));
+        } catch (RuntimeException e) {
+            // 실패한 결과는 캐시에 남기지 않는다. 기다리던 요청도 같은 예외를 받는다.
+            cache.asMap().remove(key, mine);
+            mine.completeExceptionally(e);
+            throw e;
+        }
+
+        // 기다리던 요청에는 돌려주되, 그사이 evict 되었으면 메모리에도 남기지 않는다.
+        if (generation(dogId) != generation) cache.asMap().remove(key, mine);
+        return mine.join();
+    }
+
+    private DogAnalysis load(Long dogId, String personalityKey, long generation, Supplier<DogAnalysis> loader) {
+        MatchAnalysis stored = matchAnalysisRepository.findByDogIdAndPersonalityKey(dogId, personalityKey)
+                .orElse(null);
+        if (stored != null) {
+            databaseHits.increment();
+            return stored.toDto();
+        }
+
+        misses.increment();
+        DogAnalysis analysis = loadTimer.record(loader);
+        store(dogId, personalityKey, generation, analysis);
+
+        return analysis;
+    }
+
+    // 이미 끝난 결과만 돌려준다. 진행 중인 요청을 기다리지 않는다.
+    public Optional<DogAnalysis> getIfPresent(Long dogId, String dogPersonality, List<String> userPersonality) {
+        if (!enabled) return Optional.empty();
+
+        String personalityKey = personalityKey(dogPersonality, userPersonality);
+        String key = dogId + ":" + personalityKey;
+
+        CompletableFuture<DogAnalysis> cached = cache.getIfPresent(key);
+        if (cached != null && cached.isDone() && !cached.isCompletedExceptionally()) {
+            memoryHits.increment();
+            return Optional.of(cached.join());
+        }
+
+        Optional<DogAnalysis> stored = matchAnalysisRepository.findByDogIdAndPersonalityKey(dogId, personalityKey)
+                .map(MatchAnalysis::toDto);
+        stored.ifPresentOrElse(analysis -> {
+            databaseHits.increment();
+            cache.put(key, CompletableFuture.completedFuture(analysis));
+        }, misses::increment);
+
+        return stored;
+    }
+
+    // 스트리밍처럼 캐시 밖에서 만든 결과를 두 계층에 모두 저장한다.
+    // generation 은 분석을 만들기 전에 generation() 으로 받아 둔 값이다.
+    public void put(Long dogId, String dogPersonality, List<String> userPersonality, long generation, DogAnalysis analysis) {
+        if (!enabled || generation(dogId) != generation) return;
+
+        String personalityKey = personalityKey(dogPersonality, userPersonality);
+        String key = dogId + ":" + personalityKey;
+
+        CompletableFuture<DogAnalysis> stored = CompletableFuture.completedFuture(analysis);
+        cache.put(key, stored);
+        if (generation(dogId) != generation) cache.asMap().remove(key, stored);
+        store(dogId, personalityKey, generation, analysis);
+    }
+
+    public long generation(Long dogId) {
+        return generations.getOrDefault(dogId, 0L);
+    }
+
+    // 강아지 사진이 바뀌면 예전 사진으로 만든 분석을 두 계층에서 모두 지운다.
+    public void evict(Long dogId) {
+        generations.merge(dogId, 1L, Long::sum);
+        String prefix = dogId + ":";
+        cache.asMap().keySet().removeIf(key -> key.startsWith(prefix));
+        matchAnalysisRepository.deleteByDogId(dogId);
+    }
+
+    // 일괄 등록처럼 여러 강아지의 사진이나 성향이 한 번에 바뀐 경우
+    public void evict(Collection<Long> dogIds) {
+        if (dogIds.isEmpty()) return;
+
+        dogIds.forEach(dogId -> generations.merge(dogId, 1L, Long::sum));
+        cache.asMap().keySet().removeIf(key -> dogIds.contains(Long.valueOf(key.substring(0, key.indexOf(':')))));
+        matchAnalysisRepository.deleteByDogIdIn(dogIds);
+    }
+
+    // evict 는 세대를 먼저 올린 뒤 지우므로, 저장 뒤에 세대가 그대로면 evict 가 나중에 지우고 바뀌었으면 여기서 지운다.
+    private void store(Long dogId, String personalityKey, long generation, DogAnalysis analysis) {
+        if (generation(dogId) != generation) return;
+
+        store(dogId, personalityKey, analysis);
+        if (generation(dogId) != generation) {
+            matchAnalysisRepository.deleteByDogIdAndPersonalityKey(dogId, personalityKey);
+        }
+    }
+
+    private void store(Long dogId, String personalityKey, DogAnalysis analysis) {
+        try {
+            writeTransaction.executeWithoutResult(status -> matchAnalysisRepository.save(MatchAnalysis.builder()
+                    .dogId(dogId)
+                    .personalityKey(personalityKey)
+                    .description(analysis.getDescription())
+                    .matchReason(analysis.getMatchReason())
+                    .createdAt(LocalDateTime.now())
+                    .build()));
+        } catch (DataIntegrityViolationException e) {
+            // 다른 인스턴스가 같은 키를 먼저 저장한 경우
+            log.debug("analysis already stored: dogId={}, key={}", dogId, personalityKey);
+        }
+    }
+
+    static String personalityKey(String dogPersonality, List<String> userPersonality) {
+        String source = dogPersonality + "\n" + String.join(",", userPersonality);
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(source.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static DogAnalysis join(CompletableFuture<DogAnalysis> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw e;
+        }
+    }
+
+    private static Counter requests(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("mungpy.analysis.cache.requests")
+                .description("매칭 분석 캐시 조회 결과")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,18 @@
+package com.sfz.mungpy.service;
+
+import java.time.Duration;
+
+/**
+ * 매칭 요청 하나의 시간 예산. 단계마다 자기 몫과 남은 예산 중 작은 쪽만큼만 기다린다.
+ * 앞 단계가 늦어지면 뒤 단계의 몫이 줄어들어, 업스트림이 어떻든 전체 응답 시간은 예산을 넘지 않는다.
+ */
+public record MatchBudget(long deadlineNanos) {
+    public static MatchBudget start(Duration total) {
+        return new MatchBudget(System.nanoTime() + total.toNanos());
+    }
+
+    public Duration slice(Duration stage) {
+        long remaining = Math.max(0, deadlineNanos - System.nanoTime());
+        return Duration.ofNanos(Math.min(stage.toNanos(), remaining));
+    }
+}
@@ -0,0 +1,230 @@
+package com.sfz.mungpy.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.sfz.mungpy.dto.DogMatch;
+import com.sfz.mungpy.dto.MatchJobStatus;
+import com.sfz.mungpy.dto.MatchJobStatus.State;
+import com.sfz.mungpy.dto.UploadedImage;
+import com.sfz.mungpy.exception.DogNotFoundException;
+import com.sfz.mungpy.exception.IdempotencyKeyConflictException;
+import com.sfz.mungpy.exception.UpstreamUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 매칭을 작업으로 받아 정해진 수의 워커가 처리한다. 요청은 작업 id 만 받아 바로 끝나고, 결과는 조회나 롱 폴링으로 가져간다.
+ * 동시에 도는 매칭 수는 열린 연결 수가 아니라 워커 수로 정해지며, 대기열까지 차면 새 작업을 받지 않는다.
+ * 같은 Idempotency-Key 로 다시 보낸 요청은 사진과 성향이 같을 때만 새 작업을 만들지 않고 기존 작업을 돌려준다.
+ * 작업과 키는 만든 뒤 ttl 이 지나면 사라진다.
+ */
+@Slf4j
+@Service
+public class MatchJobService {
+    private final DogService dogService;
+    private final UploadImageService uploadImageService;
+    private final ThreadPoolExecutor workers;
+    private final Cache<String, Job> jobs;
+    private final Cache<String, Job> idempotencyKeys;
+
+    private final Counter submitted;
+    private final Counter attached;
+    private final Counter rejected;
+    private final Counter conflicts;
+    private final Counter succeeded;
+    private final Counter failed;
+
+    public MatchJobService(DogService dogService, UploadImageService uploadImageService, MeterRegistry meterRegistry,
+                           @Value("${matching.jobs.workers:8}") int workers,
+                           @Value("${matching.jobs.queue-capacity:100}") int queueCapacity,
+                           @Value("${matching.jobs.ttl:10m}") Duration ttl) {
+
+        this.dogService = dogService;
+        this.uploadImageService = uploadImageService;
+        this.workers = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                Thread.ofVirtual().name("match-job-", 0).factory());
+        this.jobs = Caffeine.newBuilder().expireAfterWrite(ttl).build();
+        this.idempotencyKeys = Caffeine.newBuilder().expireAfterWrite(ttl).build();
+
+        Gauge.builder("mungpy.match.jobs.queued", this.workers, executor -> executor.getQueue().size())
+                .description("워커를 기다리는 매칭 작업 수")
+                .register(meterRegistry);
+        Gauge.builder("mungpy.match.jobs.active", this.workers, ThreadPoolExecutor::getActiveCount)
+                .description("처리 중인 매칭 작업 수")
+                .register(meterRegistry);
+        this.submitted = jobs(meterRegistry, "submitted");
+        this.attached = jobs(meterRegistry, "attached");
+        this.rejected = jobs(meterRegistry, "rejected");
+        this.conflicts = jobs(meterRegistry, "conflict");
+        this.succeeded = jobs(meterRegistry, "succeeded");
+        this.failed = jobs(meterRegistry, "failed");
+    }
+
+    // 대기열이 차 있으면 RejectedExecutionException, 이미지가 올바르지 않으면 InvalidImageException,
+    // 같은 키로 다른 사진이나 성향을 보내면 IdempotencyKeyConflictException 을 던진다.
+    public MatchJobStatus submit(String idempotencyKey, List<String> personality, MultipartFile file) {
+        UploadedImage image = detach(uploadImageService.prepare(file));
+        String fingerprint;
+        try {
+            fingerprint = MatchRequestCache.fingerprint(image, personality);
+        } catch (RuntimeException e) {
+            release(image);
+            throw e;
+        }
+
+        Job job = new Job(UUID.randomUUID().toString(), fingerprint);
+        if (idempotencyKey != null) {
+            Job existing = idempotencyKeys.asMap().putIfAbsent(idempotencyKey, job);
+            if (existing != null) {
+                release(image);
+                // 키만 같고 내용이 다르면 다른 사용자의 작업일 수 있으므로 돌려주지 않는다.
+                if (!existing.fingerprint.equals(fingerprint)) {
+                    conflicts.increment();
+                    throw new IdempotencyKeyConflictException("같은 Idempotency-Key 로 다른 요청을 보낼 수 없습니다.");
+                }
+                attached.increment();
+                return existing.status();
+            }
+        }
+
+        jobs.put(job.id, job);
+        try {
+            workers.execute(() -> run(job, personality, image));
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            jobs.invalidate(job.id);
+            if (idempotencyKey != null) idempotencyKeys.asMap().remove(idempotencyKey, job);
+            release(image);
+            throw e;
+        }
+
+        submitted.increment();
+        return job.status();
+    }
+
+    public Optional<MatchJobStatus> status(String jobId) {
+        return Optional.ofNullable(jobs.getIfPresent(jobId)).map(Job::status);
+    }
+
+    // 작업이 끝나면 최종 상태로 완료되는 future. 이미 끝난 작업이면 바로 완료되어 있다.
+    public Optional<CompletableFuture<MatchJobStatus>> completion(String jobId) {
+        return Optional.ofNullable(jobs.getIfPresent(jobId)).map(job -> job.done);
+    }
+
+    @PreDestroy
+    public void close() {
+        workers.shutdown();
+    }
+
+    private void run(Job job, List<String> personality, UploadedImage image) {
+        job.state = State.RUNNING;
+        try {
+            DogMatch result = dogService.matchDog(personality, image);
+            succeeded.increment();
+            job.finish(State.SUCCEEDED, result, null);
+        } catch (DogNotFoundException e) {
+            failed.increment();
+            job.finish(State.FAILED, null, "매칭되는 강아지가 존재하지 않습니다.");
+        } catch (UpstreamUnavailableException e) {
+            failed.increment();
+            job.finish(State.FAILED, null, "잠시 후 다시 시도해주세요.");
+        } catch (RuntimeException e) {
+            log.error("match job {} failed", job.id, e);
+            failed.increment();
+            job.finish(State.FAILED, null, "매칭 중 오류가 발생했습니다.");
+        } finally {
+            release(image);
+        }
+    }
+
+    // 요청이 끝나면 업로드 파트가 지워지므로 워커가 나중에 읽을 수 있도록 임시 파일로 옮겨 둔다.
+    private static UploadedImage detach(UploadedImage image) {
+        if (image.getTemporaryFile() != null) return image;
+
+        Path file = null;
+        try (InputStream in = image.getInputStream()) {
+            file = Files.createTempFile("match-job-", null);
+            Files.copy(in, file, StandardCopyOption.REPLACE_EXISTING);
+            return UploadedImage.temporary(file, image.getFilename(), image.getContentType());
+        } catch (IOException e) {
+            try {
+                if (file != null) Files.deleteIfExists(file);
+            } catch (IOException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void release(UploadedImage image) {
+        if (image == null) return;
+        try {
+            image.close();
+        } catch (IOException e) {
+            log.debug("failed to release job image", e);
+        }
+    }
+
+    private static Counter jobs(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("mungpy.match.jobs")
+                .description("비동기 매칭 작업")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private static final class Job {
+        private final String id;
+        // 같은 Idempotency-Key 로 온 요청이 같은 내용인지 확인하는 사진과 성향의 해시
+        private final String fingerprint;
+        private final CompletableFuture<MatchJobStatus> done = new CompletableFuture<>();
+        private volatile State state = State.QUEUED;
+        private volatile DogMatch result;
+        private volatile String message;
+
+        Job(String id, String fingerprint) {
+            this.id = id;
+            this.fingerprint = fingerprint;
+        }
+
+        void finish(State state, DogMatch result, String message) {
+            this.result = result;
+            this.message = message;
+            this.state = state;
+            done.complete(status());
+        }
+
+        MatchJobStatus status() {
+            // state 를 마지막에 쓰므로 먼저 읽어야 끝난 상태와 결과가 어긋나지 않는다.
+            State current = state;
+            return MatchJobStatus.builder()
+                    .id(id)
+                    .state(current)
+                    .result(current == State.SUCCEEDED ? result : null)
+                    .message(current == State.FAILED ? message : null)
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.sfz.mungpy.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * 매칭 파이프라인 단계별 관측.
+ * 단계마다 Observation 하나를 열어 mungpy.match.stage{stage=...} 타이머와 트레이스 스팬을 함께 남기고,
+ * 업스트림 단계에서 난 예외와 폴백, 예산 초과로 대신한 결과, 후보 수를 따로 센다.
+ * 요청별 로그는 {@code matching.log.sample-rate} 비율로만 남긴다.
+ */
+@Component
+public class MatchMetrics {
+    static final String STAGE = "mungpy.match.stage";
+
+    public enum Stage {
+        CANDIDATES("candidates", false),
+        FACE_MATCH("face_match", true),
+        FIND_DOG("find_dog", false),
+        ANALYSIS("analysis", true),
+        WRITE("write", false);
+
+        private final String tag;
+        private final String contextualName;
+        private final boolean upstream;
+
+        Stage(String tag, boolean upstream) {
+            this.tag = tag;
+            this.contextualName = "match " + tag;
+            this.upstream = upstream;
+        }
+    }
+
+    private final ObservationRegistry observationRegistry;
+    private final MeterRegistry meterRegistry;
+    private final double logSampleRate;
+
+    private final Map<Stage, Counter> upstreamErrors = new EnumMap<>(Stage.class);
+    private final DistributionSummary candidates;
+
+    public MatchMetrics(ObservationRegistry observationRegistry, MeterRegistry meterRegistry,
+                        Optional<PersonalityIndex> personalityIndex,
+                        @Value("${matching.log.sample-rate:0.01}") double logSampleRate) {
+
+        this.observationRegistry = observationRegistry;
+        this.meterRegistry = meterRegistry;
+        this.logSampleRate = logSampleRate;
+
+        for (Stage stage : Stage.values()) {
+            if (!stage.upstream) continue;
+            upstreamErrors.put(stage, Counter.builder("mungpy.match.upstream.errors")
+                    .description("매칭 중 업스트림 호출 실패")
+                    .tag("stage", stage.tag)
+                    .register(meterRegistry));
+        }
+
+        this.candidates = DistributionSummary.builder("mungpy.match.candidates")
+                .description("성향으로 고른 얼굴 매칭 후보 수")
+                .register(meterRegistry);
+        // DB 전략에서는 상주 인덱스가 없다.
+        personalityIndex.ifPresent(index -> Gauge.builder("mungpy.match.index.size", index, PersonalityIndex::size)
+                .description("후보 선정 대상 강아지 수")
+                .register(meterRegistry));
+    }
+
+    public <T> T observe(Stage stage, Supplier<T> body) {
+        Observation observation = Observation.createNotStarted(STAGE, observationRegistry)
+                .contextualName(stage.contextualName)
+                .lowCardinalityKeyValue("stage", stage.tag);
+
+        if (!stage.upstream) return observation.observe(body);
+
+        return observation.observe(() -> {
+            try {
+                return body.get();
+            } catch (RuntimeException e) {
+                upstreamErrors.get(stage).increment();
+                throw e;
+            }
+        });
+    }
+
+    public void run(Stage stage, Runnable body) {
+        observe(stage, () -> {
+            body.run();
+            return null;
+        });
+    }
+
+    public void candidates(int size) {
+        candidates.record(size);
+    }
+
+    public void fallback(String reason) {
+        Counter.builder("mungpy.match.fallbacks")
+                .description("다른 방법으로 대신 처리한 매칭 단계")
+                .tag("reason", reason)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    // reason 은 timeout 또는 error
+    public void degraded(Stage stage, String reason) {
+        Counter.builder("mungpy.match.degraded")
+                .description("예산 안에 끝나지 않아 성향 기반 결과로 대신한 매칭 단계")
+                .tag("stage", stage.tag)
+                .tag("reason", reason)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    public void response(boolean degraded) {
+        Counter.builder("mungpy.match.responses")
+                .description("매칭 응답 수")
+                .tag("degraded", Boolean.toString(degraded))
+                .register(meterRegistry)
+                .increment();
+    }
+
+    // 로그를 남길 요청인지 정한다. 남기지 않는 요청은 로그 인자를 만들지도 않도록 호출 쪽에서 먼저 확인한다.
+    public boolean sampled() {
+        return logSampleRate > 0 && ThreadLocalRandom.current().nextDouble() < logSampleRate;
+    }
+}
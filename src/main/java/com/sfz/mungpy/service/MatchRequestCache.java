@@ -0,0 +1,135 @@
+package com.sfz.mungpy.service;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.sfz.mungpy.dto.DogMatch;
+import com.sfz.mungpy.dto.UploadedImage;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.Normalizer;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * 같은 사진과 같은 성향으로 다시 들어온 매칭 요청을 묶는다.
+ * 이미지 바이트와 정규화한 성향 목록의 SHA-256 을 키로, 끝난 결과는 ttl 동안 메모리에서 돌려주고
+ * 진행 중인 요청이 있으면 얼굴 매칭과 OpenAI 를 다시 부르지 않고 그 결과를 함께 기다린다.
+ * degraded 결과는 다음 요청이 제대로 된 결과를 받을 수 있도록 남기지 않는다.
+ */
+@Component
+public class MatchRequestCache {
+    private final boolean enabled;
+    private final AsyncCache<String, DogMatch> cache;
+
+    private final Counter hits;
+    private final Counter coalesced;
+    private final Counter misses;
+    private final Counter bytesSaved;
+
+    public MatchRequestCache(MeterRegistry meterRegistry,
+                             @Value("${matching.dedup.enabled:true}") boolean enabled,
+                             @Value("${matching.dedup.maximum-size:1000}") long maximumSize,
+                             @Value("${matching.dedup.ttl:5m}") Duration ttl) {
+
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .buildAsync();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache.synchronous(), "match_requests");
+        this.hits = requests(meterRegistry, "hit");
+        this.coalesced = requests(meterRegistry, "coalesced");
+        this.misses = requests(meterRegistry, "miss");
+        this.bytesSaved = Counter.builder("mungpy.match.dedup.bytes.saved")
+                .description("중복 요청이라 업스트림으로 보내지 않은 이미지 바이트")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    public DogMatch get(UploadedImage image, List<String> personality, Supplier<DogMatch> loader) {
+        if (!enabled) return loader.get();
+
+        String key = fingerprint(image, personality);
+        // MatchAnalysisCache 와 같이 get 으로 자리를 잡아 Caffeine 통계에도 적중과 실패가 남게 한다.
+        CompletableFuture<DogMatch> mine = new CompletableFuture<>();
+        CompletableFuture<DogMatch> existing = cache.get(key, (k, executor) -> mine);
+        if (existing != mine) {
+            (existing.isDone() ? hits : coalesced).increment();
+            bytesSaved.increment(image.getSize());
+            return join(existing);
+        }
+
+        misses.increment();
+        DogMatch match;
+        try {
+            match = loader.get();
+        } catch (RuntimeException e) {
+            // 실패는 남기지 않는다. 함께 기다리던 요청도 같은 예외를 받는다.
+            cache.asMap().remove(key, mine);
+            mine.completeExceptionally(e);
+            throw e;
+        }
+
+        if (match.isDegraded()) cache.asMap().remove(key, mine);
+        mine.complete(match);
+        return match;
+    }
+
+    static String fingerprint(UploadedImage image, List<String> personality) {
+        MessageDigest digest = sha256();
+        try (InputStream in = new DigestInputStream(image.getInputStream(), digest)) {
+            in.transferTo(OutputStream.nullOutputStream());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        // 성향은 순서대로 점수를 매기므로 순서는 그대로 두고 공백과 유니코드 표현만 맞춘다.
+        for (String trait : personality) {
+            digest.update((byte) 0);
+            digest.update(Normalizer.normalize(trait.strip(), Normalizer.Form.NFC).getBytes(StandardCharsets.UTF_8));
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static DogMatch join(CompletableFuture<DogMatch> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw e;
+        }
+    }
+
+    private static Counter requests(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("mungpy.match.dedup.requests")
+                .description("같은 사진과 성향으로 들어온 매칭 요청 처리 결과")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
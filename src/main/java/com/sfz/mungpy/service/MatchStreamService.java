@@ -0,0 +1,146 @@
+package com.sfz.mungpy.service;
+
+import com.sfz.mungpy.dto.DogAnalysis;
+import com.sfz.mungpy.dto.DogMatch;
+import com.sfz.mungpy.dto.UploadedImage;
+import com.sfz.mungpy.entity.Dog;
+import com.sfz.mungpy.exception.DogNotFoundException;
+import com.sfz.mungpy.exception.UpstreamUnavailableException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 매칭 과정을 단계별 SSE 이벤트로 내보낸다.
+ * candidates → match → description → matchReason → done 순서이며,
+ * description 과 matchReason 은 모델 응답을 토큰 조각 단위로 이어서 보낸다.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class MatchStreamService {
+    private static final long TIMEOUT = Duration.ofMinutes(2).toMillis();
+
+    private final DogService dogService;
+    private final MatchAnalysisCache matchAnalysisCache;
+    private final OpenAIAnalysisService openAIAnalysisService;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public SseEmitter stream(List<String> personality, UploadedImage image) {
+        SseEmitter emitter = new SseEmitter(TIMEOUT);
+        executor.execute(() -> {
+            try (image) {
+                run(personality, image, emitter);
+            } catch (IOException e) {
+                log.debug("failed to release uploaded image", e);
+            }
+        });
+        return emitter;
+    }
+
+    private void run(List<String> personality, UploadedImage image, SseEmitter emitter) {
+        try {
+            List<String> candidates = dogService.selectCandidates(personality);
+            send(emitter, "candidates", Map.of("count", candidates.size()));
+
+            DogService.FaceMatch faceMatch = dogService.findMatchedDog(image, candidates);
+            Dog dog = faceMatch.dog();
+            long generation = matchAnalysisCache.generation(dog.getId());
+            DogMatch match = dogService.toMatchDto(dog);
+            match.setDegraded(faceMatch.degraded());
+            send(emitter, "match", DogMatch.builder()
+                    .id(match.getId())
+                    .name(match.getName())
+                    .image(match.getImage())
+                    .thumbnail(match.getThumbnail())
+                    .degraded(match.isDegraded())
+                    .build());
+
+            DogAnalysis analysis = matchAnalysisCache.getIfPresent(dog.getId(), dog.getPersonality(), personality)
+                    .orElse(null);
+            if (analysis != null) {
+                send(emitter, "description", analysis.getDescription());
+                send(emitter, "matchReason", analysis.getMatchReason());
+            } else {
+                analysis = streamAnalysis(dog, personality, emitter);
+                matchAnalysisCache.put(dog.getId(), dog.getPersonality(), personality, generation, analysis);
+            }
+            dogService.saveAnalysis(dog.getId(), analysis);
+
+            match.setDescription(analysis.getDescription());
+            match.setMatchReason(analysis.getMatchReason());
+            send(emitter, "done", match);
+
+            emitter.complete();
+        } catch (DogNotFoundException e) {
+            fail(emitter, "매칭되는 강아지가 존재하지 않습니다.");
+        } catch (UpstreamUnavailableException e) {
+            fail(emitter, "잠시 후 다시 시도해주세요.");
+        } catch (UncheckedIOException e) {
+            // 클라이언트가 연결을 끊은 경우
+            log.debug("match stream closed by client", e);
+            emitter.completeWithError(e);
+        } catch (Exception e) {
+            log.error("match stream failed", e);
+            fail(emitter, "매칭 중 오류가 발생했습니다.");
+        }
+    }
+
+    private DogAnalysis streamAnalysis(Dog dog, List<String> personality, SseEmitter emitter) throws IOException {
+        String description = dog.getDescription();
+        if (description == null) {
+            description = relay(emitter, "description", openAIAnalysisService.streamDescribe(dog));
+        } else {
+            send(emitter, "description", description);
+        }
+
+        String matchReason = relay(emitter, "matchReason",
+                openAIAnalysisService.streamExplainMatch(description, dog.getPersonality(), personality.toString()));
+
+        return DogAnalysis.builder()
+                .description(description.trim())
+                .matchReason(matchReason.trim())
+                .build();
+    }
+
+    private static String relay(SseEmitter emitter, String name, Flux<String> tokens) {
+        StringBuilder text = new StringBuilder();
+        tokens.doOnNext(token -> {
+            text.append(token);
+            send(emitter, name, token);
+        }).blockLast();
+        return text.toString();
+    }
+
+    private static void send(SseEmitter emitter, String name, Object data) {
+        try {
+            if (data instanceof String) {
+                emitter.send(SseEmitter.event().name(name).data(data));
+            } else {
+                emitter.send(SseEmitter.event().name(name).data(data, MediaType.APPLICATION_JSON));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void fail(SseEmitter emitter, String message) {
+        try {
+            send(emitter, "error", Map.of("message", message));
+            emitter.complete();
+        } catch (UncheckedIOException e) {
+            emitter.completeWithError(e);
+        }
+    }
+}
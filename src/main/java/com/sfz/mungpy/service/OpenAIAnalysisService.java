@@ -0,0 +1,114 @@
+package com.sfz.mungpy.service;
+
+import com.sfz.mungpy.dto.DogAnalysis;
+import com.sfz.mungpy.entity.Dog;
+import com.sfz.mungpy.exception.OpenAIException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.ai.chat.messages.Media;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.SystemMessage;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.StreamingChatModel;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.openai.OpenAiChatOptions;
+import org.springframework.ai.openai.api.OpenAiApi;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.util.List;
+
+@Service
+@RequiredArgsConstructor
+public class OpenAIAnalysisService {
+    private static final String ORDER = "너는 유기견 매칭 서비스의 분석 담당관이야." +
+            "너의 일은 강아지 이미지를 분석해서 요약하고, 사용자와 강아지의 성향을 비교해서 둘이 어울리는 이유를 생성해주는 거야";
+
+    private final ChatModel chatModel;
+    private final StreamingChatModel streamingChatModel;
+    private final ImageDeliveryService imageDeliveryService;
+
+    // 강아지 한 마리에 대한 한 마디 설명과 매칭 이유를 한 번에 생성한다. 설명이 미리 준비되지 않은 경우에만 쓴다.
+    public DogAnalysis analyze(Dog dog, String userPersonality) throws IOException {
+        UserMessage userMessage = new UserMessage(
+                "너가 할 일은 두 가지야. 첫 번째, 강아지 사진을 분석해서 분위기나 외형을 고려해서 한 마디로 표현해줘." +
+                        "그리고 이 강아지의 성향은 " + dog.getPersonality() + "인데, 이걸 한 마디에 반영해줘. 예를 들면 순둥순둥한 방콕러 같이." +
+                        "두 번째, 주인의 성향은 " + userPersonality + "인데, 위의 강아지의 성향과 주인의 성향을 분석해서" +
+                        "이 둘이 왜 어울리는지 감성적으로 3줄 요약해줘. 같은 말을 반복하면 안되고 나에게 응답할 때는 {첫 번째 응답 결과}/{두 번째 응답 결과} 형식으로 해줘." +
+                        "그리고 사용자를 부를 때는 당신 이라고 해줘. 예를 들면 당신에게 이 아이를 추천한 이유는 처럼",
+                List.of(dogImage(dog)));
+
+        // 매칭 이유 안에 '/' 가 들어갈 수 있어 첫 번째 구분자에서만 나눈다.
+        String reply = call(userMessage);
+        String[] result = reply == null ? new String[0] : reply.split("/", 2);
+        if (result.length < 2 || result[0].isBlank() || result[1].isBlank()) {
+            throw new OpenAIException("분석 응답 형식이 올바르지 않습니다.");
+        }
+
+        return DogAnalysis.builder()
+                .description(result[0].trim())
+                .matchReason(result[1].trim())
+                .build();
+    }
+
+    // 강아지 사진과 성향만으로 정해지는 한 마디 설명. 배치로 미리 만들어 dogs.description 에 저장한다.
+    public String describe(Dog dog) throws IOException {
+        return call(describeMessage(dog)).trim();
+    }
+
+    // 이미지 없이 텍스트만 보내는 매칭 이유 생성
+    public String explainMatch(String dogDescription, String dogPersonality, String userPersonality) {
+        return call(explainMessage(dogDescription, dogPersonality, userPersonality)).trim();
+    }
+
+    public Flux<String> streamDescribe(Dog dog) throws IOException {
+        return stream(describeMessage(dog));
+    }
+
+    public Flux<String> streamExplainMatch(String dogDescription, String dogPersonality, String userPersonality) {
+        return stream(explainMessage(dogDescription, dogPersonality, userPersonality));
+    }
+
+    private UserMessage describeMessage(Dog dog) throws IOException {
+        return new UserMessage(
+                "강아지 사진을 분석해서 분위기나 외형을 고려해서 한 마디로 표현해줘." +
+                        "그리고 이 강아지의 성향은 " + dog.getPersonality() + "인데, 이걸 한 마디에 반영해줘. 예를 들면 순둥순둥한 방콕러 같이." +
+                        "나에게 응답할 때는 그 한 마디만 말해줘.",
+                List.of(dogImage(dog)));
+    }
+
+    private static UserMessage explainMessage(String dogDescription, String dogPersonality, String userPersonality) {
+        return new UserMessage(
+                "이 강아지는 '" + dogDescription + "' 같은 아이이고, 성향은 " + dogPersonality + "야." +
+                        "주인의 성향은 " + userPersonality + "인데, 강아지의 성향과 주인의 성향을 분석해서" +
+                        "이 둘이 왜 어울리는지 감성적으로 3줄 요약해줘. 같은 말을 반복하면 안되고 요약한 내용만 응답해줘." +
+                        "그리고 사용자를 부를 때는 당신 이라고 해줘. 예를 들면 당신에게 이 아이를 추천한 이유는 처럼");
+    }
+
+    private String call(UserMessage userMessage) {
+        return chatModel.call(prompt(userMessage)).getResult().getOutput().getContent();
+    }
+
+    // 응답을 토큰 조각 단위로 흘려보낸다. 내용이 없는 마지막 조각은 건너뛴다.
+    private Flux<String> stream(UserMessage userMessage) {
+        return streamingChatModel.stream(prompt(userMessage))
+                .mapNotNull(OpenAIAnalysisService::content);
+    }
+
+    private static String content(ChatResponse response) {
+        if (response.getResult() == null || response.getResult().getOutput() == null) return null;
+        return response.getResult().getOutput().getContent();
+    }
+
+    private static Prompt prompt(UserMessage userMessage) {
+        List<Message> messages = List.of(new SystemMessage(ORDER), userMessage);
+        return new Prompt(messages, OpenAiChatOptions.builder().withModel(OpenAiApi.ChatModel.GPT_4_O.getValue()).build());
+    }
+
+    // 저장소에 기록된 실제 형식으로 보낸다.
+    private Media dogImage(Dog dog) throws IOException {
+        return new Media(imageDeliveryService.mimeType(dog), imageDeliveryService.source(dog));
+    }
+}
@@ -0,0 +1,282 @@
+package com.sfz.mungpy.service;
+
+import com.sfz.mungpy.entity.Dog;
+import com.sfz.mungpy.event.DogChangedEvent;
+import com.sfz.mungpy.repository.DogRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * matchDog 후보 선정을 위한 상주 성향 인덱스.
+ * 강아지마다 6개 성향을 항목별 사전 코드(1바이트)로 바꿔 long 하나에 담아 두고,
+ * 사용자 성향과 XOR 한 뒤 0이 아닌 바이트 수를 popcount 로 세어 점수를 매긴다.
+ * 변경은 새 스냅샷을 만들어 한 번에 교체하므로(copy-on-write) 조회는 잠금 없이 항상 완성된 상태만 본다.
+ * {@code matching.candidates.strategy=memory}(기본값)일 때 쓰인다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "matching.candidates.strategy", havingValue = "memory", matchIfMissing = true)
+public class PersonalityIndex implements CandidateSelector {
+    static final int PERSONALITIES = 6;
+    private static final int MAX_SCORE = PERSONALITIES;
+
+    // 강아지 쪽 누락 항목은 0, 사전에 없는 사용자 성향은 0xFF 로 두어 서로 일치하지 않게 한다.
+    private static final int UNKNOWN = 0xFF;
+    private static final int MAX_CODE = 0xFE;
+
+    private static final long LOW_BITS = 0x7F7F7F7F7F7F7F7FL;
+    private static final long HIGH_BITS = 0x8080808080808080L;
+    private static final long TRAIT_MASK = 0x0000FFFFFFFFFFFFL;
+
+    private final DogRepository dogRepository;
+
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        writeLock.lock();
+        try {
+            rebuildLocked();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // 재구성 중에 DB 를 읽으므로 synchronized 대신 ReentrantLock 을 써서 가상 스레드가 캐리어에 고정되지 않게 한다.
+    private void rebuildLocked() {
+        List<Dog> dogs = dogRepository.findAll();
+
+        List<Map<String, Integer>> dictionary = newDictionary();
+        long[] ids = new long[dogs.size()];
+        long[] codes = new long[dogs.size()];
+        String[] images = new String[dogs.size()];
+
+        int size = 0;
+        for (Dog dog : dogs) {
+            ids[size] = dog.getId();
+            codes[size] = encodeDog(dog.getPersonality(), dictionary);
+            images[size] = dog.getImage();
+            size++;
+        }
+
+        snapshot = new Snapshot(snapshot.version + 1, dictionary, ids, codes, images, size);
+        log.info("personality index built: {} dogs, version {}", size, snapshot.version);
+    }
+
+    // 커밋된 변경만 반영한다. 트랜잭션 밖에서 저장된 경우에는 바로 반영한다.
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDogChanged(DogChangedEvent event) {
+        if (event.getId() == null) return;
+
+        writeLock.lock();
+        try {
+            apply(event);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void apply(DogChangedEvent event) {
+        Snapshot current = snapshot;
+        int slot = current.slotOf(event.getId());
+
+        Snapshot next = switch (event.getType()) {
+            case SAVED -> current.save(slot, event.getId(), event.getPersonality(), event.getImage());
+            case REMOVED -> current.remove(slot);
+        };
+
+        if (next != current) {
+            snapshot = next;
+            log.debug("personality index updated: {}, version {}", event, next.version);
+        }
+    }
+
+    public long version() {
+        return snapshot.version;
+    }
+
+    public int size() {
+        return snapshot.size;
+    }
+
+    /**
+     * 사용자 성향과 일치하는 항목 수가 높은 순으로 최소 {@code candidates} 마리의 이미지 이름을 돌려준다.
+     * 경계 점수와 동점인 강아지는 모두 포함한다.
+     */
+    @Override
+    public List<String> selectCandidates(List<String> personality, int candidates) {
+        Snapshot current = snapshot;
+        if (current.size == 0) return List.of();
+
+        long user = encodeUser(personality, current.dictionary);
+
+        byte[] scores = new byte[current.size];
+        int[] histogram = new int[MAX_SCORE + 1];
+        for (int i = 0; i < current.size; i++) {
+            int score = score(current.codes[i], user);
+            scores[i] = (byte) score;
+            histogram[score]++;
+        }
+
+        int threshold = MAX_SCORE;
+        int selected = histogram[MAX_SCORE];
+        while (selected < candidates && threshold > 0) {
+            threshold--;
+            selected += histogram[threshold];
+        }
+
+        // 점수 내림차순으로 버킷 시작 위치를 잡아 두고 한 번에 채운다.
+        int[] offsets = new int[MAX_SCORE + 1];
+        for (int score = MAX_SCORE - 1; score >= threshold; score--) {
+            offsets[score] = offsets[score + 1] + histogram[score + 1];
+        }
+
+        String[] result = new String[selected];
+        for (int i = 0; i < current.size; i++) {
+            int score = scores[i];
+            if (score >= threshold) {
+                result[offsets[score]++] = current.images[i];
+            }
+        }
+
+        return Arrays.asList(result);
+    }
+
+    static int score(long dog, long user) {
+        long diff = (dog ^ user) & TRAIT_MASK;
+        long nonZero = (((diff & LOW_BITS) + LOW_BITS) | diff) & HIGH_BITS;
+        return PERSONALITIES - Long.bitCount(nonZero);
+    }
+
+    static List<String> parse(String personality) {
+        if (personality == null || personality.isBlank()) return List.of();
+        return Arrays.asList(personality.split(", "));
+    }
+
+    private static long encodeDog(String personality, List<Map<String, Integer>> dictionary) {
+        List<String> traits = parse(personality);
+
+        long code = 0;
+        for (int i = 0; i < PERSONALITIES && i < traits.size(); i++) {
+            Map<String, Integer> position = dictionary.get(i);
+            Integer trait = position.get(traits.get(i));
+            if (trait == null) {
+                if (position.size() >= MAX_CODE) {
+                    throw new IllegalStateException("too many distinct values for personality " + i);
+                }
+                trait = position.size() + 1;
+                position.put(traits.get(i), trait);
+            }
+            code |= (long) trait << (i * Byte.SIZE);
+        }
+        return code;
+    }
+
+    private static long encodeUser(List<String> personality, List<Map<String, Integer>> dictionary) {
+        long code = 0;
+        for (int i = 0; i < PERSONALITIES; i++) {
+            Integer trait = i < personality.size() ? dictionary.get(i).get(personality.get(i)) : null;
+            code |= (long) (trait == null ? UNKNOWN : trait) << (i * Byte.SIZE);
+        }
+        return code;
+    }
+
+    private static List<Map<String, Integer>> newDictionary() {
+        List<Map<String, Integer>> dictionary = new ArrayList<>(PERSONALITIES);
+        for (int i = 0; i < PERSONALITIES; i++) {
+            dictionary.add(new HashMap<>());
+        }
+        return dictionary;
+    }
+
+    private static List<Map<String, Integer>> copyOf(List<Map<String, Integer>> dictionary) {
+        List<Map<String, Integer>> copy = new ArrayList<>(PERSONALITIES);
+        for (Map<String, Integer> position : dictionary) {
+            copy.add(new HashMap<>(position));
+        }
+        return copy;
+    }
+
+    private static boolean knows(List<Map<String, Integer>> dictionary, String personality) {
+        List<String> traits = parse(personality);
+        for (int i = 0; i < PERSONALITIES && i < traits.size(); i++) {
+            if (!dictionary.get(i).containsKey(traits.get(i))) return false;
+        }
+        return true;
+    }
+
+    private static class Snapshot {
+        private static final Snapshot EMPTY = new Snapshot(0, newDictionary(), new long[0], new long[0], new String[0], 0);
+
+        private final long version;
+        private final List<Map<String, Integer>> dictionary;
+        private final long[] ids;
+        private final long[] codes;
+        private final String[] images;
+        private final int size;
+
+        private Snapshot(long version, List<Map<String, Integer>> dictionary,
+                         long[] ids, long[] codes, String[] images, int size) {
+            this.version = version;
+            this.dictionary = dictionary;
+            this.ids = ids;
+            this.codes = codes;
+            this.images = images;
+            this.size = size;
+        }
+
+        private int slotOf(long id) {
+            for (int i = 0; i < size; i++) {
+                if (ids[i] == id) return i;
+            }
+            return -1;
+        }
+
+        private Snapshot save(int slot, long id, String personality, String image) {
+            // 사전은 스냅샷끼리 공유하므로 새 성향 값이 들어올 때만 복사한다.
+            List<Map<String, Integer>> nextDictionary = knows(dictionary, personality) ? dictionary : copyOf(dictionary);
+            long code = encodeDog(personality, nextDictionary);
+
+            if (slot >= 0 && codes[slot] == code && Objects.equals(images[slot], image)) return this;
+
+            int nextSize = slot >= 0 ? size : size + 1;
+            long[] nextIds = Arrays.copyOf(ids, nextSize);
+            long[] nextCodes = Arrays.copyOf(codes, nextSize);
+            String[] nextImages = Arrays.copyOf(images, nextSize);
+
+            int target = slot >= 0 ? slot : size;
+            nextIds[target] = id;
+            nextCodes[target] = code;
+            nextImages[target] = image;
+
+            return new Snapshot(version + 1, nextDictionary, nextIds, nextCodes, nextImages, nextSize);
+        }
+
+        private Snapshot remove(int slot) {
+            if (slot < 0) return this;
+
+            // 마지막 칸을 지운 자리로 옮겨 배열을 한 번만 복사한다.
+            int last = size - 1;
+            long[] nextIds = Arrays.copyOf(ids, last);
+            long[] nextCodes = Arrays.copyOf(codes, last);
+            String[] nextImages = Arrays.copyOf(images, last);
+            if (slot != last) {
+                nextIds[slot] = ids[last];
+                nextCodes[slot] = codes[last];
+                nextImages[slot] = images[last];
+            }
+
+            return new Snapshot(version + 1, dictionary, nextIds, nextCodes, nextImages, last);
+        }
+    }
+}
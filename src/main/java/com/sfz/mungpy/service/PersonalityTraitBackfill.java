@@ -0,0 +1,60 @@
+package com.sfz.mungpy.service;
+
+import com.sfz.mungpy.entity.Dog;
+import com.sfz.mungpy.repository.DogRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * trait1~6 컬럼이 생기기 전에 저장된 강아지의 성향을 나눠 채운다.
+ * 새로 저장되는 강아지는 Dog 의 @PrePersist/@PreUpdate 에서 채워지므로 한 번 끝나면 더 할 일이 없다.
+ */
+@Slf4j
+@Component
+public class PersonalityTraitBackfill {
+    private final DogRepository dogRepository;
+    private final boolean enabled;
+    private final int pageSize;
+
+    public PersonalityTraitBackfill(DogRepository dogRepository,
+                                    @Value("${matching.candidates.backfill:true}") boolean enabled,
+                                    @Value("${matching.candidates.backfill-page-size:500}") int pageSize) {
+
+        this.dogRepository = dogRepository;
+        this.enabled = enabled;
+        this.pageSize = pageSize;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (enabled) Thread.ofVirtual().name("personality-trait-backfill").start(this::run);
+    }
+
+    public int run() {
+        int updated = 0;
+        long lastId = 0;
+
+        while (true) {
+            List<Dog> dogs = dogRepository.findByTrait1IsNullAndPersonalityIsNotNullAndIdGreaterThanOrderByIdAsc(lastId, Limit.of(pageSize));
+            if (dogs.isEmpty()) break;
+
+            for (Dog dog : dogs) {
+                String[] traits = Dog.traits(dog.getPersonality());
+                if (traits[0] == null) continue;
+
+                dogRepository.updateTraits(dog.getId(), traits[0], traits[1], traits[2], traits[3], traits[4], traits[5]);
+                updated++;
+            }
+            lastId = dogs.get(dogs.size() - 1).getId();
+        }
+
+        if (updated > 0) log.info("personality traits backfilled: {}", updated);
+        return updated;
+    }
+}
@@ -0,0 +1,144 @@
+package com.sfz.mungpy.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sfz.mungpy.dto.ShelterInformation;
+import com.sfz.mungpy.entity.ShelterType;
+import com.sfz.mungpy.event.ShelterChangedEvent;
+import com.sfz.mungpy.repository.ShelterRepository;
+import com.sfz.mungpy.repository.ShelterView;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * GET /shelter 전체 목록 응답을 JSON 과 gzip 바이트로 미리 만들어 둔다.
+ * 보호소가 추가되면 커밋 뒤에 버리고, 다음 조회에서 다시 만든다. 바뀌지 않은 동안의 조회는 DB 도 직렬화도 거치지 않는다.
+ * 같은 목록을 동시에 다시 만들어야 하면 한 요청만 만들고 나머지는 그 결과를 기다린다.
+ */
+@Slf4j
+@Component
+public class ShelterListSnapshot {
+    private static final String ALL = "ALL";
+
+    private final ShelterRepository shelterRepository;
+    private final ObjectMapper objectMapper;
+    private final int pageSize;
+
+    private final Map<String, CompletableFuture<Snapshot>> snapshots = new ConcurrentHashMap<>();
+
+    public ShelterListSnapshot(ShelterRepository shelterRepository, ObjectMapper objectMapper,
+                               @Value("${shelter.snapshot.page-size:1000}") int pageSize) {
+
+        this.shelterRepository = shelterRepository;
+        this.objectMapper = objectMapper;
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * @param json    직렬화한 목록
+     * @param gzip    json 을 gzip 으로 압축한 것
+     * @param version json 내용의 해시. 인코딩별 ETag 를 만들 때 쓴다
+     * @param count   보호소 수
+     */
+    public record Snapshot(byte[] json, byte[] gzip, String version, int count) {
+    }
+
+    public Snapshot get(ShelterType type) {
+        String key = type == null ? ALL : type.name();
+
+        CompletableFuture<Snapshot> mine = new CompletableFuture<>();
+        CompletableFuture<Snapshot> existing = snapshots.putIfAbsent(key, mine);
+        if (existing != null) return join(existing);
+
+        try {
+            mine.complete(build(type));
+        } catch (RuntimeException e) {
+            snapshots.remove(key, mine);
+            mine.completeExceptionally(e);
+            throw e;
+        }
+        return mine.join();
+    }
+
+    // 만들던 중인 스냅샷도 함께 버린다. 그 결과는 기다리던 요청에만 전달되고 남지 않는다.
+    // 일괄 등록처럼 종류를 특정할 수 없으면 type 이 null 이고 모두 버린다.
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onShelterChanged(ShelterChangedEvent event) {
+        if (event.getType() == null) {
+            snapshots.clear();
+            return;
+        }
+        snapshots.remove(ALL);
+        snapshots.remove(event.getType().name());
+    }
+
+    private Snapshot build(ShelterType type) {
+        List<ShelterInformation> shelters = new ArrayList<>();
+        long lastId = 0;
+        while (true) {
+            List<ShelterView> page = type == null
+                    ? shelterRepository.findByIdGreaterThanOrderByIdAsc(lastId, Limit.of(pageSize))
+                    : shelterRepository.findByTypeAndIdGreaterThanOrderByIdAsc(type, lastId, Limit.of(pageSize));
+            for (ShelterView view : page) {
+                shelters.add(ShelterInformation.of(view));
+            }
+            if (page.size() < pageSize) break;
+            lastId = page.get(page.size() - 1).getId();
+        }
+
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(shelters);
+            Snapshot snapshot = new Snapshot(json, gzip(json), version(json), shelters.size());
+            log.debug("shelter snapshot built: type={}, count={}, json={}B, gzip={}B",
+                    type, snapshot.count(), json.length, snapshot.gzip().length);
+            return snapshot;
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static byte[] gzip(byte[] json) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(json.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static String version(byte[] json) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(json);
+            return HexFormat.of().formatHex(digest, 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Snapshot join(CompletableFuture<Snapshot> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw e;
+        }
+    }
+}
@@ -1,30 +1,59 @@
 package com.sfz.mungpy.service;
 
 import com.sfz.mungpy.dto.ShelterInformation;
+import com.sfz.mungpy.dto.ShelterPage;
 import com.sfz.mungpy.dto.ShelterRegister;
 import com.sfz.mungpy.entity.Shelter;
+import com.sfz.mungpy.entity.ShelterType;
+import com.sfz.mungpy.event.ShelterChangedEvent;
 import com.sfz.mungpy.exception.ShelterNotFoundException;
+import com.sfz.mungpy.exception.UpstreamUnavailableException;
 import com.sfz.mungpy.repository.ShelterRepository;
+import com.sfz.mungpy.repository.ShelterView;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.client.RestClientException;
 
 import java.util.List;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class ShelterService {
     private final ShelterRepository shelterRepository;
+    private final GeocodeService geocodeService;
+    private final ShelterListSnapshot shelterListSnapshot;
+    private final ApplicationEventPublisher eventPublisher;
 
-    @Transactional(readOnly = true)
-    public List<ShelterInformation> getAllShelters() {
-        List<Shelter> shelters = shelterRepository.findAll();
+    // 전체 목록은 미리 직렬화해 둔 스냅샷으로 응답한다.
+    public ShelterListSnapshot.Snapshot getAllShelters(ShelterType type) {
+        ShelterListSnapshot.Snapshot snapshot = shelterListSnapshot.get(type);
 
-        if (shelters.isEmpty()) throw new ShelterNotFoundException();
+        if (snapshot.count() == 0) throw new ShelterNotFoundException();
 
-        return shelters.stream()
-                .map(Shelter::toDto)
-                .toList();
+        return snapshot;
+    }
+
+    // id 기준 keyset 페이지. cursor 는 이전 페이지의 nextCursor 이며 첫 페이지는 null 이다.
+    public ShelterPage getShelterPage(ShelterType type, Long cursor, int size) {
+        long after = cursor == null ? 0 : cursor;
+        // 다음 페이지가 있는지 알기 위해 한 건 더 읽는다.
+        Limit limit = Limit.of(size + 1);
+        List<ShelterView> views = type == null
+                ? shelterRepository.findByIdGreaterThanOrderByIdAsc(after, limit)
+                : shelterRepository.findByTypeAndIdGreaterThanOrderByIdAsc(type, after, limit);
+
+        boolean hasNext = views.size() > size;
+        List<ShelterView> page = hasNext ? views.subList(0, size) : views;
+
+        return ShelterPage.builder()
+                .shelters(page.stream().map(ShelterInformation::of).toList())
+                .nextCursor(hasNext ? page.get(page.size() - 1).getId() : null)
+                .build();
     }
 
     @Transactional(readOnly = true)
@@ -32,8 +61,19 @@ public class ShelterService {
         return shelterRepository.findById(shelterId).orElseThrow(ShelterNotFoundException::new).toDto();
     }
 
-    @Transactional
+    // 카카오 호출을 기다리는 동안 DB 커넥션을 잡지 않도록 트랜잭션 없이 좌표부터 구하고, 저장은 save 의 짧은 트랜잭션으로 끝낸다.
     public void addShelter(ShelterRegister register) {
-        shelterRepository.save(register.toEntity());
+        Shelter shelter = register.toEntity();
+
+        // 좌표는 등록 시점에 한 번만 구해 둔다. 조회에 실패해도 등록은 진행한다.
+        try {
+            geocodeService.geocode(shelter.getAddress())
+                    .ifPresent(location -> shelter.updateLocation(location.getLatitude(), location.getLongitude()));
+        } catch (RestClientException | UpstreamUnavailableException e) {
+            log.warn("shelter geocode failed: {}", shelter.getAddress(), e);
+        }
+
+        shelterRepository.save(shelter);
+        eventPublisher.publishEvent(new ShelterChangedEvent(shelter.getId(), shelter.getType()));
     }
 }
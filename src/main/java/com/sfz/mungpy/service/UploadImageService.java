@@ -0,0 +1,151 @@
+package com.sfz.mungpy.service;
+
+import com.sfz.mungpy.dto.UploadedImage;
+import com.sfz.mungpy.exception.InvalidImageException;
+import com.sfz.mungpy.storage.ImageFormats;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.multipart.MultipartFile;
+
+import javax.imageio.*;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+
+/**
+ * 업로드된 얼굴 이미지를 검증하고 외부 얼굴 매칭 서버로 보낼 형태로 준비한다.
+ * 크기와 형식은 파일 앞부분만 읽어 확인하고, 축소가 켜져 있으면 서브샘플링으로 디코딩해 JPEG 로 다시 인코딩한다.
+ */
+@Slf4j
+@Service
+public class UploadImageService {
+    private final long maxSize;
+    private final boolean downscale;
+    private final int maxDimension;
+    private final float quality;
+
+    public UploadImageService(@Value("${upload.max-size:10MB}") DataSize maxSize,
+                              @Value("${upload.downscale.enabled:false}") boolean downscale,
+                              @Value("${upload.downscale.max-dimension:640}") int maxDimension,
+                              @Value("${upload.downscale.quality:0.85}") float quality) {
+
+        this.maxSize = maxSize.toBytes();
+        this.downscale = downscale;
+        this.maxDimension = maxDimension;
+        this.quality = quality;
+    }
+
+    public UploadedImage prepare(MultipartFile file) {
+        if (file.getSize() > maxSize) {
+            throw new InvalidImageException("사용자 이미지는 " + DataSize.ofBytes(maxSize).toMegabytes() + "MB 이하여야 합니다.");
+        }
+
+        String contentType = sniff(file);
+        if (contentType == null) {
+            throw new InvalidImageException("지원하지 않는 이미지 형식입니다.");
+        }
+
+        if (!downscale || "image/webp".equals(contentType) || "image/heic".equals(contentType)) {
+            return UploadedImage.of(file, contentType);
+        }
+
+        try {
+            return downscale(file, contentType);
+        } catch (IOException | RuntimeException e) {
+            // 축소에 실패하면 원본을 그대로 보낸다.
+            log.debug("downscale failed: {}", file.getOriginalFilename(), e);
+            return UploadedImage.of(file, contentType);
+        }
+    }
+
+    // 파일 앞 12바이트로 실제 형식을 판별한다. 선언된 Content-Type 은 믿지 않는다.
+    private static String sniff(MultipartFile file) {
+        byte[] head;
+        try (InputStream in = file.getInputStream()) {
+            head = in.readNBytes(ImageFormats.SNIFF_LENGTH);
+        } catch (IOException e) {
+            throw new InvalidImageException("사용자 이미지를 읽을 수 없습니다.");
+        }
+
+        return ImageFormats.sniff(head);
+    }
+
+    private UploadedImage downscale(MultipartFile file, String contentType) throws IOException {
+        BufferedImage decoded;
+        try (InputStream in = file.getInputStream();
+             ImageInputStream imageIn = ImageIO.createImageInputStream(in)) {
+
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(imageIn);
+            if (!readers.hasNext()) return UploadedImage.of(file, contentType);
+
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(imageIn, true, true);
+                int longest = Math.max(reader.getWidth(0), reader.getHeight(0));
+                if (longest <= maxDimension) return UploadedImage.of(file, contentType);
+
+                // 목표 크기보다 작아지지 않는 범위에서 행·열을 건너뛰며 읽어 전체 해상도 래스터를 만들지 않는다.
+                ImageReadParam param = reader.getDefaultReadParam();
+                int step = Math.max(1, longest / maxDimension);
+                param.setSourceSubsampling(step, step, 0, 0);
+                decoded = reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+
+        double scale = (double) maxDimension / Math.max(decoded.getWidth(), decoded.getHeight());
+        int width = Math.max(1, (int) Math.round(decoded.getWidth() * Math.min(1.0, scale)));
+        int height = Math.max(1, (int) Math.round(decoded.getHeight() * Math.min(1.0, scale)));
+
+        BufferedImage scaled = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = scaled.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.drawImage(decoded, 0, 0, width, height, Color.WHITE, null);
+        } finally {
+            graphics.dispose();
+        }
+
+        Path out = Files.createTempFile("mungpy-upload-", ".jpg");
+        try {
+            writeJpeg(scaled, out);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(out);
+            throw e;
+        }
+
+        log.debug("downscaled {} from {} to {} bytes", file.getOriginalFilename(), file.getSize(), Files.size(out));
+
+        return UploadedImage.temporary(out, replaceExtension(file.getOriginalFilename()), "image/jpeg");
+    }
+
+    private void writeJpeg(BufferedImage image, Path out) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream imageOut = ImageIO.createImageOutputStream(out.toFile())) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(quality);
+
+            writer.setOutput(imageOut);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    private static String replaceExtension(String filename) {
+        if (filename == null) return "upload.jpg";
+
+        int dot = filename.lastIndexOf('.');
+        return (dot < 0 ? filename : filename.substring(0, dot)) + ".jpg";
+    }
+}
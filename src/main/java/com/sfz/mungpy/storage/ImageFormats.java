@@ -0,0 +1,34 @@
+package com.sfz.mungpy.storage;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * 파일 앞부분의 매직 바이트로 이미지 형식을 판별한다.
+ */
+public final class ImageFormats {
+    public static final int SNIFF_LENGTH = 12;
+
+    private static final byte[] PNG = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+
+    private ImageFormats() {
+    }
+
+    // 판별할 수 없으면 null
+    public static String sniff(byte[] head) {
+        if (head.length >= 3 && (head[0] & 0xFF) == 0xFF && (head[1] & 0xFF) == 0xD8 && (head[2] & 0xFF) == 0xFF) {
+            return "image/jpeg";
+        }
+        if (head.length >= 8 && Arrays.equals(Arrays.copyOf(head, 8), PNG)) {
+            return "image/png";
+        }
+        if (head.length >= 12 && new String(head, 0, 4, StandardCharsets.US_ASCII).equals("RIFF") && new String(head, 8, 4, StandardCharsets.US_ASCII).equals("WEBP")) {
+            return "image/webp";
+        }
+        if (head.length >= 12 && new String(head, 4, 4, StandardCharsets.US_ASCII).equals("ftyp")) {
+            String brand = new String(head, 8, 4, StandardCharsets.US_ASCII);
+            if (brand.startsWith("hei") || brand.startsWith("mif") || brand.startsWith("hev")) return "image/heic";
+        }
+        return null;
+    }
+}
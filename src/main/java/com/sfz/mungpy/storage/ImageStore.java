@@ -0,0 +1,30 @@
+package com.sfz.mungpy.storage;
+
+import com.sfz.mungpy.dto.ImageMetadata;
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.Optional;
+
+/**
+ * 강아지 사진 저장소. 사진은 내용의 SHA-256 해시로 찾으며, 같은 내용은 한 번만 저장된다.
+ */
+public interface ImageStore {
+    /**
+     * 사진을 저장하고 해시, 형식, 크기를 돌려준다. 이미 있는 내용이면 새로 쓰지 않는다.
+     */
+    ImageMetadata put(InputStream content) throws IOException;
+
+    boolean exists(String hash);
+
+    Resource load(String hash);
+
+    /**
+     * 로컬 파일로 바로 읽을 수 있으면 그 경로. 파일 전송(sendfile)에 쓴다.
+     */
+    default Optional<Path> path(String hash) {
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,217 @@
+package com.sfz.mungpy.storage;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.sfz.mungpy.dto.ImageMetadata;
+import com.sfz.mungpy.exception.InvalidImageException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.AbstractResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * 로컬 디스크에 {root}/{해시 앞 2자리}/{해시} 로 사진을 저장하는 내용 주소 저장소.
+ * 자주 읽히는 사진은 메모리 매핑해 두고, 매핑된 전체 크기가 images.store.mapped-cache-size 를 넘지 않게 한다.
+ */
+@Slf4j
+@Component
+public class LocalImageStore implements ImageStore {
+    private static final Pattern HASH = Pattern.compile("[0-9a-f]{64}");
+
+    private final Path root;
+    private final Cache<String, MappedByteBuffer> mapped;
+
+    public LocalImageStore(@Value("${images.store.root:data/images}") Path root,
+                           @Value("${images.store.mapped-cache-size:256MB}") DataSize mappedCacheSize) throws IOException {
+
+        this.root = Files.createDirectories(root);
+        this.mapped = Caffeine.newBuilder()
+                .maximumWeight(mappedCacheSize.toBytes())
+                .weigher((String hash, MappedByteBuffer buffer) -> buffer.capacity())
+                .build();
+    }
+
+    @Override
+    public ImageMetadata put(InputStream content) throws IOException {
+        Path temporary = Files.createTempFile(root, "upload-", ".tmp");
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            try (InputStream in = new DigestInputStream(content, digest)) {
+                Files.copy(in, temporary, StandardCopyOption.REPLACE_EXISTING);
+            }
+
+            String mimeType = sniff(temporary);
+            if (mimeType == null) {
+                throw new InvalidImageException("지원하지 않는 이미지 형식입니다.");
+            }
+
+            String hash = HexFormat.of().formatHex(digest.digest());
+            Path target = resolve(hash);
+            if (Files.exists(target)) {
+                log.debug("image {} already stored", hash);
+            } else {
+                Files.createDirectories(target.getParent());
+                Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE);
+            }
+
+            int[] dimensions = dimensions(target);
+            return ImageMetadata.builder()
+                    .hash(hash)
+                    .mimeType(mimeType)
+                    .width(dimensions == null ? null : dimensions[0])
+                    .height(dimensions == null ? null : dimensions[1])
+                    .size(Files.size(target))
+                    .build();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    @Override
+    public boolean exists(String hash) {
+        return HASH.matcher(hash).matches() && Files.exists(resolve(hash));
+    }
+
+    @Override
+    public Resource load(String hash) {
+        return new MappedResource(hash);
+    }
+
+    @Override
+    public Optional<Path> path(String hash) {
+        return exists(hash) ? Optional.of(resolve(hash)) : Optional.empty();
+    }
+
+    private Path resolve(String hash) {
+        return root.resolve(hash.substring(0, 2)).resolve(hash);
+    }
+
+    // 캐시의 compute 안에서 파일을 열면 가상 스레드가 고정되므로 밖에서 매핑한다. 동시에 매핑되면 먼저 들어간 쪽을 쓴다.
+    private MappedByteBuffer map(String hash) throws IOException {
+        MappedByteBuffer buffer = mapped.getIfPresent(hash);
+        if (buffer != null) return buffer;
+
+        try (FileChannel channel = FileChannel.open(resolve(hash), StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        MappedByteBuffer existing = mapped.asMap().putIfAbsent(hash, buffer);
+        return existing != null ? existing : buffer;
+    }
+
+    private static String sniff(Path path) throws IOException {
+        try (InputStream in = Files.newInputStream(path)) {
+            return ImageFormats.sniff(in.readNBytes(ImageFormats.SNIFF_LENGTH));
+        }
+    }
+
+    // 헤더만 읽어 가로, 세로 크기를 구한다. ImageIO 가 읽지 못하는 형식이면 null
+    private static int[] dimensions(Path path) {
+        try (ImageInputStream imageIn = ImageIO.createImageInputStream(path.toFile())) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(imageIn);
+            if (!readers.hasNext()) return null;
+
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(imageIn, true, true);
+                return new int[]{reader.getWidth(0), reader.getHeight(0)};
+            } finally {
+                reader.dispose();
+            }
+        } catch (IOException e) {
+            log.debug("failed to read image dimensions: {}", path, e);
+            return null;
+        }
+    }
+
+    // 매핑된 버퍼를 읽는 동안에는 복사본(duplicate)을 써서 위치를 공유하지 않는다.
+    private class MappedResource extends AbstractResource {
+        private final String hash;
+
+        private MappedResource(String hash) {
+            this.hash = hash;
+        }
+
+        @Override
+        public String getDescription() {
+            return "image [" + hash + "]";
+        }
+
+        @Override
+        public String getFilename() {
+            return hash;
+        }
+
+        @Override
+        public boolean exists() {
+            return LocalImageStore.this.exists(hash);
+        }
+
+        @Override
+        public long contentLength() throws IOException {
+            return buffer().capacity();
+        }
+
+        @Override
+        public byte[] getContentAsByteArray() throws IOException {
+            ByteBuffer buffer = buffer().duplicate();
+            byte[] bytes = new byte[buffer.remaining()];
+            buffer.get(bytes);
+            return bytes;
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            ByteBuffer buffer = buffer().duplicate();
+            return new InputStream() {
+                @Override
+                public int read() {
+                    return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+                }
+
+                @Override
+                public int read(byte[] bytes, int offset, int length) {
+                    if (length == 0) return 0;
+                    if (!buffer.hasRemaining()) return -1;
+
+                    int count = Math.min(length, buffer.remaining());
+                    buffer.get(bytes, offset, count);
+                    return count;
+                }
+
+                @Override
+                public int available() {
+                    return buffer.remaining();
+                }
+            };
+        }
+
+        private ByteBuffer buffer() throws IOException {
+            if (!exists()) throw new IOException(getDescription() + " does not exist");
+            return map(hash);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.sfz.mungpy.client;
+
+import com.sun.net.httpserver.HttpServer;
+import com.sfz.mungpy.config.UpstreamProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jdk.jfr.consumer.RecordingStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 가상 스레드에서 외부 호출이 캐리어 스레드를 고정(pinning)하지 않는지 JFR 이벤트로 확인한다.
+ */
+class UpstreamClientPinningTest {
+    private static final int CALLS = 200;
+
+    private HttpServer server;
+    private UpstreamClient client;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext("/slow", exchange -> {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            byte[] body = "{\"data\":\"ok\"}".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.start();
+
+        UpstreamProperties.Client properties = new UpstreamProperties.Client();
+        properties.setBaseUrl("http://127.0.0.1:" + server.getAddress().getPort());
+        properties.setMaxConnections(CALLS);
+        properties.setMaxConcurrentCalls(CALLS);
+
+        client = new UpstreamClient("test", properties, new UpstreamProperties.Proxy(),
+                new RestTemplateBuilder(), new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        client.close();
+        server.stop(0);
+    }
+
+    @Test
+    void callsOnVirtualThreadsDoNotPinCarriers() throws Exception {
+        AtomicInteger pinned = new AtomicInteger();
+
+        try (RecordingStream recording = new RecordingStream();
+             ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+
+            recording.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ofMillis(20)).withStackTrace();
+            recording.onEvent("jdk.VirtualThreadPinned", event -> pinned.incrementAndGet());
+            recording.startAsync();
+
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < CALLS; i++) {
+                results.add(executor.submit(() -> client.call("slow",
+                        restTemplate -> restTemplate.getForObject(client.uri("/slow").build().toUri(), String.class))));
+            }
+            for (Future<String> result : results) {
+                assertThat(result.get()).contains("ok");
+            }
+
+            recording.stop();
+        }
+
+        assertThat(pinned).hasValue(0);
+    }
+}
@@ -0,0 +1,108 @@
+package com.sfz.mungpy.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdaptiveLimiterTest {
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long SLOW = TimeUnit.SECONDS.toNanos(2);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void waitsInQueueThenRejectsWhenFull() throws Exception {
+        AdaptiveLimiter limiter = limiter(2, 1, Duration.ofSeconds(5));
+        assertThat(limiter.acquire()).isEqualTo(AdaptiveLimiter.Outcome.ADMITTED);
+        assertThat(limiter.acquire()).isEqualTo(AdaptiveLimiter.Outcome.ADMITTED);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<AdaptiveLimiter.Outcome> waiting = executor.submit(limiter::acquire);
+            while (limiter.waiting() == 0) Thread.onSpinWait();
+
+            assertThat(limiter.acquire()).isEqualTo(AdaptiveLimiter.Outcome.REJECTED_QUEUE_FULL);
+
+            limiter.release(FAST, false);
+            assertThat(waiting.get(1, TimeUnit.SECONDS)).isEqualTo(AdaptiveLimiter.Outcome.QUEUED);
+        }
+        assertThat(limiter.inFlight()).isEqualTo(2);
+        assertThat(meterRegistry.get("mungpy.admission.requests").tag("outcome", "rejected_queue_full").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void freedSlotGoesToQueuedRequestBeforeNewArrivals() throws Exception {
+        AdaptiveLimiter limiter = limiter(2, 2, Duration.ofSeconds(5));
+        limiter.acquire();
+        limiter.acquire();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<AdaptiveLimiter.Outcome> waiting = executor.submit(limiter::acquire);
+            while (limiter.waiting() == 0) Thread.onSpinWait();
+
+            // 반납과 동시에 줄의 맨 앞에 자리가 넘어가므로 새로 온 요청이 가져갈 빈 자리가 없다.
+            limiter.release(FAST, false);
+            assertThat(limiter.waiting()).isZero();
+            assertThat(limiter.inFlight()).isEqualTo(2);
+            assertThat(waiting.get(1, TimeUnit.SECONDS)).isEqualTo(AdaptiveLimiter.Outcome.QUEUED);
+        }
+    }
+
+    @Test
+    void queuedRequestGivesUpAfterMaxWait() throws Exception {
+        AdaptiveLimiter limiter = limiter(1, 5, Duration.ofMillis(50));
+        limiter.acquire();
+
+        long started = System.nanoTime();
+        assertThat(CompletableFuture.supplyAsync(() -> {
+            try {
+                return limiter.acquire();
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        }).get(1, TimeUnit.SECONDS)).isEqualTo(AdaptiveLimiter.Outcome.REJECTED_TIMEOUT);
+        assertThat(System.nanoTime() - started).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(50));
+        assertThat(limiter.waiting()).isZero();
+    }
+
+    @Test
+    void limitShrinksOnSlowResponsesAndGrowsBackWhenBusyAndFast() throws Exception {
+        AdaptiveLimiter limiter = limiter(10, 0, Duration.ZERO);
+
+        for (int i = 0; i < 5; i++) {
+            limiter.acquire();
+            limiter.release(SLOW, false);
+        }
+        int shrunk = limiter.limit();
+        assertThat(shrunk).isLessThan(10).isGreaterThanOrEqualTo(2);
+
+        for (int round = 0; round < 50; round++) {
+            for (int i = 0; i < shrunk; i++) limiter.acquire();
+            for (int i = 0; i < shrunk; i++) limiter.release(FAST, false);
+        }
+        assertThat(limiter.limit()).isGreaterThan(shrunk).isLessThanOrEqualTo(20);
+    }
+
+    @Test
+    void retryAfterFollowsObservedLatency() throws Exception {
+        AdaptiveLimiter limiter = limiter(1, 0, Duration.ZERO);
+        limiter.acquire();
+        limiter.release(TimeUnit.SECONDS.toNanos(3), false);
+
+        assertThat(limiter.retryAfterSeconds()).isEqualTo(3);
+    }
+
+    private AdaptiveLimiter limiter(int initialLimit, int maxQueue, Duration maxWait) {
+        AdmissionProperties.Limit settings = new AdmissionProperties.Limit(
+                initialLimit, 2, 20, maxQueue, maxWait, Duration.ofSeconds(1), 0.9);
+        return new AdaptiveLimiter("test", settings, meterRegistry);
+    }
+}
@@ -0,0 +1,134 @@
+package com.sfz.mungpy.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 메모리 H2 두 개를 주 DB 와 복제본으로 두고, 같은 이름의 표에 서로 다른 값을 넣어 어디서 읽었는지 확인한다.
+ * 복제는 일어나지 않으므로 하트비트는 테스트가 복제본에 직접 쓴다.
+ */
+class ReplicaDataSourceTest {
+    private static final Duration INTERVAL = Duration.ofSeconds(1);
+    private static final Duration MAX_LAG = Duration.ofSeconds(2);
+
+    private final DataSource primary = h2("primary");
+    private final DataSource replica = h2("replica");
+    private final JdbcTemplate replicaTemplate = new JdbcTemplate(replica);
+    private final ReadYourWrites readYourWrites = new ReadYourWrites(Duration.ofSeconds(5));
+
+    private ReplicaDataSource replicaDataSource;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate readOnly;
+    private TransactionTemplate readWrite;
+
+    @BeforeEach
+    void setUp() {
+        for (DataSource dataSource : List.of(primary, replica)) {
+            JdbcTemplate template = new JdbcTemplate(dataSource);
+            template.execute("create table source (name varchar(20))");
+            template.update("insert into source values (?)", dataSource == primary ? "primary" : "replica");
+        }
+        replicaTemplate.execute("create table replication_heartbeat (id int not null primary key, beat bigint not null)");
+        beat(System.currentTimeMillis());
+
+        replicaDataSource = new ReplicaDataSource(primary, List.of(new ReplicaDataSource.Replica("replica-1", replica)),
+                readYourWrites, MAX_LAG, INTERVAL, new SimpleMeterRegistry());
+        replicaDataSource.start();
+
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(primary);
+        dataSource.setReadOnlyDataSource(replicaDataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        transactionManager.addListener(readYourWrites);
+
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        readWrite = new TransactionTemplate(transactionManager);
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+        new JdbcTemplate(primary).execute("drop all objects");
+        replicaTemplate.execute("drop all objects");
+    }
+
+    @Test
+    void readOnlyTransactionsGoToReplica() {
+        assertThat(read(readOnly)).isEqualTo("replica");
+        assertThat(read(readWrite)).isEqualTo("primary");
+    }
+
+    @Test
+    void laggingReplicaFallsBackToPrimary() {
+        beat(System.currentTimeMillis() - INTERVAL.toMillis() - MAX_LAG.toMillis() - 1000);
+        replicaDataSource.checkHealth();
+        assertThat(read(readOnly)).isEqualTo("primary");
+
+        beat(System.currentTimeMillis());
+        replicaDataSource.checkHealth();
+        assertThat(read(readOnly)).isEqualTo("replica");
+    }
+
+    @Test
+    void failingReplicaFallsBackToPrimary() {
+        replicaTemplate.execute("drop table replication_heartbeat");
+        replicaDataSource.checkHealth();
+
+        assertThat(read(readOnly)).isEqualTo("primary");
+    }
+
+    @Test
+    void readsFollowWritesForTheSameClient() {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest(), response));
+
+        readWrite.executeWithoutResult(status -> jdbcTemplate.update("insert into source values ('written')"));
+        assertThat(read(readOnly)).isEqualTo("primary");
+
+        Cookie cookie = response.getCookie(ReadYourWrites.COOKIE);
+        assertThat(cookie).isNotNull();
+
+        MockHttpServletRequest next = new MockHttpServletRequest();
+        next.setCookies(cookie);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(next, new MockHttpServletResponse()));
+        assertThat(read(readOnly)).isEqualTo("primary");
+
+        RequestContextHolder.setRequestAttributes(
+                new ServletRequestAttributes(new MockHttpServletRequest(), new MockHttpServletResponse()));
+        assertThat(read(readOnly)).isEqualTo("replica");
+    }
+
+    private String read(TransactionTemplate transactionTemplate) {
+        return transactionTemplate.execute(status ->
+                jdbcTemplate.queryForObject("select name from source order by name limit 1", String.class));
+    }
+
+    private void beat(long millis) {
+        if (replicaTemplate.update("update replication_heartbeat set beat = ? where id = 1", millis) == 0) {
+            replicaTemplate.update("insert into replication_heartbeat (id, beat) values (1, ?)", millis);
+        }
+    }
+
+    private static DataSource h2(String name) {
+        return new DriverManagerDataSource("jdbc:h2:mem:" + name + ";MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "");
+    }
+}
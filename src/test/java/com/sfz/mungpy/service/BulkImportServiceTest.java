@@ -0,0 +1,151 @@
+package com.sfz.mungpy.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sfz.mungpy.dto.ImportReport;
+import com.sfz.mungpy.entity.Dog;
+import com.sfz.mungpy.event.ShelterChangedEvent;
+import com.sfz.mungpy.repository.DogRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+// upsert SQL(on duplicate key update)이 돌도록 MySQL 모드 H2 를 그대로 쓰고, DB 이름은 따로 쓴다.
+// 배치 실패가 테스트 트랜잭션을 롤백 전용으로 만들지 않도록 트랜잭션 없이 돌리고 직접 지운다.
+@DataJpaTest(properties = "spring.datasource.url=jdbc:h2:mem:bulk-import;MODE=MySQL;DB_CLOSE_DELAY=-1")
+@AutoConfigureTestDatabase(replace = Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class BulkImportServiceTest {
+    private static final String HEADER = "externalId,name,image,personality,age,expirationDate\n";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private DogRepository dogRepository;
+
+    private final List<Object> events = new ArrayList<>();
+    private final FaceEmbeddingIndex faceEmbeddingIndex = mock(FaceEmbeddingIndex.class);
+    private final MatchAnalysisCache matchAnalysisCache = mock(MatchAnalysisCache.class);
+    private final AnalysisWriteBehind analysisWriteBehind = mock(AnalysisWriteBehind.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private BulkImportService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new BulkImportService(jdbcTemplate, transactionManager, entityManagerFactory, new ObjectMapper(), null,
+                Optional.empty(), faceEmbeddingIndex, matchAnalysisCache, analysisWriteBehind, events::add, meterRegistry, 2, 10, Path.of("build/import"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("delete from dogs");
+        jdbcTemplate.update("delete from shelters");
+    }
+
+    @Test
+    void csvRowsAreUpsertedAndBadRowsReported() throws IOException {
+        ImportReport report = service.importDogs(input(HEADER
+                + "A-1,초코,a1.jpg,\"활발, 외향, 산책, 애교, 독립, 순함\",3,20261231\n"
+                + "A-2,보리,a2.jpg,\"활발, 외향\",2,2026-12-31\n"
+                + "\n"
+                + "A-3,\"콩이, 둘째\",a3.jpg,\"차분, 내향, 집콕, 무심, 의존, 예민\",x,\n"
+                + "A-4,두부,a4.jpg,\"차분, 내향, 집콕, 무심, 의존, 예민\",1,\n"), BulkImportService.Format.CSV);
+
+        assertThat(report.getRows()).isEqualTo(4);
+        assertThat(report.getWritten()).isEqualTo(2);
+        assertThat(report.getFailed()).isEqualTo(2);
+        assertThat(report.getErrors()).extracting(ImportReport.RowError::getLine).containsExactly(3L, 5L);
+        assertThat(report.isAborted()).isFalse();
+
+        Dog dog = dogRepository.findByImage("a1.jpg").orElseThrow();
+        assertThat(dog.getExternalId()).isEqualTo("A-1");
+        assertThat(dog.getTrait6()).isEqualTo("순함");
+        assertThat(dog.getExpirationDate()).hasYear(2026).hasMonthValue(12).hasDayOfMonth(31);
+        verify(faceEmbeddingIndex).rebuild();
+        assertThat(meterRegistry.get("mungpy.import.rows").tag("result", "written").counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    void changedImageClearsEmbeddingAndDescription() throws IOException {
+        service.importDogs(input(HEADER + "A-1,초코,a1.jpg,\"활발, 외향, 산책, 애교, 독립, 순함\",3,\n"), BulkImportService.Format.CSV);
+        jdbcTemplate.update("update dogs set face_embedding = X'01', description = '설명'");
+
+        ImportReport report = service.importDogs(input("""
+                {"externalId":"A-1","name":"초코","image":"a1-new.jpg","personality":"활발, 외향, 산책, 애교, 독립, 순함","age":4}
+                {"externalId":"A-2","name":"보리","image":"a2.jpg","personality":"차분, 내향, 집콕, 무심, 의존, 예민"}
+                """), BulkImportService.Format.NDJSON);
+
+        assertThat(report.getWritten()).isEqualTo(2);
+        assertThat(dogRepository.count()).isEqualTo(2);
+        Dog dog = dogRepository.findByImage("a1-new.jpg").orElseThrow();
+        assertThat(dog.getAge()).isEqualTo(4);
+        assertThat(dog.getFaceEmbedding()).isNull();
+        assertThat(dog.getDescription()).isNull();
+        // 새로 들어온 A-2 는 지울 분석이 없으므로 바뀐 A-1 만 비운다.
+        verify(analysisWriteBehind).discard(Set.of(dog.getId()));
+        verify(matchAnalysisCache).evict(Set.of(dog.getId()));
+    }
+
+    @Test
+    void failingBatchIsRetriedRowByRow() throws IOException {
+        String tooLong = "가".repeat(300);
+        ImportReport report = service.importShelters(input("""
+                externalId,name,address,type
+                S-1,보호소1,제주시,CERTIFIED
+                S-2,%s,제주시,PRIVATE
+                S-3,보호소3,서귀포시,UNKNOWN
+                S-4,보호소4,서귀포시,private
+                """.formatted(tooLong)), BulkImportService.Format.CSV);
+
+        assertThat(report.getWritten()).isEqualTo(2);
+        assertThat(report.getErrors()).extracting(ImportReport.RowError::getLine).containsExactlyInAnyOrder(3L, 4L);
+        assertThat(jdbcTemplate.queryForList("select external_id from shelters order by external_id", String.class))
+                .containsExactly("S-1", "S-4");
+        assertThat(events).singleElement().isInstanceOf(ShelterChangedEvent.class);
+    }
+
+    @Test
+    void importStopsAfterTooManyErrors() throws IOException {
+        StringBuilder csv = new StringBuilder(HEADER);
+        for (int i = 0; i < 20; i++) {
+            csv.append("B-").append(i).append(",이름,b.jpg,없음,1,\n");
+        }
+
+        ImportReport report = service.importDogs(input(csv.toString()), BulkImportService.Format.CSV);
+
+        assertThat(report.isAborted()).isTrue();
+        assertThat(report.getRows()).isEqualTo(11);
+        assertThat(report.getErrors()).hasSize(10);
+    }
+
+    private static InputStream input(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,60 @@
+package com.sfz.mungpy.service;
+
+import com.sfz.mungpy.entity.Dog;
+import com.sfz.mungpy.repository.DogRepository;
+import com.sfz.mungpy.storage.LocalImageStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 벌크 update 가 각자 커밋되도록 테스트 트랜잭션 없이 돌리고 직접 지운다.
+@DataJpaTest(properties = "spring.datasource.url=jdbc:h2:mem:image-migration;MODE=MySQL;DB_CLOSE_DELAY=-1")
+@AutoConfigureTestDatabase(replace = Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ClasspathImageMigrationTest {
+    private static final String NAME = "Jeju-Jeju-2024-00043.jpg";
+
+    @Autowired
+    private DogRepository dogRepository;
+
+    @TempDir
+    Path directory;
+
+    @AfterEach
+    void tearDown() {
+        dogRepository.deleteAll();
+    }
+
+    @Test
+    void migrationKeepsDescriptionAndEmbedding() throws Exception {
+        byte[] embedding = FaceEmbeddingIndex.encode(new float[]{0.6f, 0.8f});
+        Dog dog = dogRepository.save(Dog.builder()
+                .name("보리")
+                .image(NAME)
+                .personality("차분, 내향, 집콕, 순함, 의존, 온순")
+                .description("미리 만든 설명")
+                .faceEmbedding(embedding)
+                .build());
+
+        LocalImageStore imageStore = new LocalImageStore(directory.resolve("store"), DataSize.ofMegabytes(1));
+        ImageDeliveryService imageDeliveryService = new ImageDeliveryService(imageStore, directory.resolve("cache").toString(), false, 0.8f, 100);
+        int migrated = new ClasspathImageMigration(dogRepository, imageStore, imageDeliveryService, true, 10).run();
+
+        Dog stored = dogRepository.findById(dog.getId()).orElseThrow();
+        assertThat(migrated).isEqualTo(1);
+        assertThat(stored.getImageHash()).isNotNull();
+        assertThat(stored.getDescription()).isEqualTo("미리 만든 설명");
+        assertThat(stored.getFaceEmbedding()).isEqualTo(embedding);
+    }
+}
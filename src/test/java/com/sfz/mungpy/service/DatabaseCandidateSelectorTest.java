@@ -0,0 +1,81 @@
+package com.sfz.mungpy.service;
+
+import com.sfz.mungpy.entity.Dog;
+import com.sfz.mungpy.repository.DogRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 운영과 같은 MySQL 모드 H2 에서 돌린다. 다른 테스트 컨텍스트와 데이터가 섞이지 않도록 DB 이름을 따로 쓴다.
+@DataJpaTest(properties = "spring.datasource.url=jdbc:h2:mem:candidate-selector;MODE=MySQL;DB_CLOSE_DELAY=-1")
+@AutoConfigureTestDatabase(replace = Replace.NONE)
+class DatabaseCandidateSelectorTest {
+    private static final List<String> USER = List.of("활발", "외향", "산책", "애교", "독립", "순함");
+
+    @Autowired
+    private DogRepository dogRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private DatabaseCandidateSelector selector;
+
+    @BeforeEach
+    void setUp() {
+        selector = new DatabaseCandidateSelector(dogRepository);
+
+        save("all.jpg", "활발, 외향, 산책, 애교, 독립, 순함");
+        save("five-a.jpg", "활발, 외향, 산책, 애교, 독립, 예민");
+        save("five-b.jpg", "차분, 외향, 산책, 애교, 독립, 순함");
+        save("half.jpg", "활발, 외향, 산책, 무심, 의존, 예민");
+        save("none.jpg", "차분, 내향, 집콕, 무심, 의존, 예민");
+    }
+
+    @Test
+    void traitsAreSplitOnSave() {
+        Dog dog = dogRepository.findByImage("half.jpg").orElseThrow();
+
+        assertThat(List.of(dog.getTrait1(), dog.getTrait2(), dog.getTrait3(), dog.getTrait4(), dog.getTrait5(), dog.getTrait6()))
+                .containsExactly("활발", "외향", "산책", "무심", "의존", "예민");
+    }
+
+    @Test
+    void tiesAtBoundaryAreIncluded() {
+        assertThat(selector.selectCandidates(USER, 1)).containsExactly("all.jpg");
+        assertThat(selector.selectCandidates(USER, 2)).containsExactly("all.jpg", "five-a.jpg", "five-b.jpg");
+        assertThat(selector.selectCandidates(USER, 4)).containsExactly("all.jpg", "five-a.jpg", "five-b.jpg", "half.jpg");
+    }
+
+    @Test
+    void agreesWithPersonalityIndex() {
+        PersonalityIndex index = new PersonalityIndex(dogRepository);
+        index.rebuild();
+
+        for (int candidates = 1; candidates <= 5; candidates++) {
+            assertThat(selector.selectCandidates(USER, candidates))
+                    .containsExactlyInAnyOrderElementsOf(index.selectCandidates(USER, candidates));
+        }
+    }
+
+    @Test
+    void backfillFillsMissingTraits() {
+        jdbcTemplate.update("update dogs set trait1 = null, trait2 = null, trait3 = null, trait4 = null, trait5 = null, trait6 = null");
+        assertThat(selector.selectCandidates(USER, 1)).hasSize(5);
+
+        int updated = new PersonalityTraitBackfill(dogRepository, true, 2).run();
+
+        assertThat(updated).isEqualTo(5);
+        assertThat(selector.selectCandidates(USER, 1)).containsExactly("all.jpg");
+    }
+
+    private void save(String image, String personality) {
+        dogRepository.save(Dog.builder().name(image).image(image).personality(personality).build());
+    }
+}
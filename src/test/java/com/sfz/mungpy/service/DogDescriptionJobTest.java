@@ -0,0 +1,96 @@
+package com.sfz.mungpy.service;
+
+import com.sfz.mungpy.entity.Dog;
+import com.sfz.mungpy.entity.JobCheckpoint;
+import com.sfz.mungpy.repository.DogRepository;
+import com.sfz.mungpy.repository.JobCheckpointRepository;
+import com.sfz.mungpy.storage.LocalImageStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.model.StreamingChatModel;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.data.domain.Limit;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class DogDescriptionJobTest {
+    private static final String IMAGE = "Jeju-Jeju-2024-00043.jpg";
+
+    private DogRepository dogRepository;
+    private JobCheckpointRepository jobCheckpointRepository;
+    private ChatModel chatModel;
+    private DogDescriptionJob job;
+
+    @TempDir
+    Path directory;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        dogRepository = mock(DogRepository.class);
+        jobCheckpointRepository = mock(JobCheckpointRepository.class);
+        chatModel = mock(ChatModel.class);
+        when(chatModel.call(any(Prompt.class)))
+                .thenReturn(new ChatResponse(List.of(new Generation(" 순둥순둥한 방콕러 "))));
+        when(jobCheckpointRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        ImageDeliveryService imageDeliveryService = new ImageDeliveryService(
+                new LocalImageStore(directory.resolve("store"), DataSize.ofMegabytes(1)), directory.resolve("cache").toString(), false, 0.8f, 100);
+
+        job = new DogDescriptionJob(dogRepository, jobCheckpointRepository,
+                new OpenAIAnalysisService(chatModel, mock(StreamingChatModel.class), imageDeliveryService), true, 2, 2, 1000);
+    }
+
+    @Test
+    void storesDescriptionsPageByPage() {
+        when(jobCheckpointRepository.findById(DogDescriptionJob.NAME)).thenReturn(Optional.empty());
+        when(dogRepository.findByDescriptionIsNullAndIdGreaterThanOrderByIdAsc(eq(0L), any(Limit.class)))
+                .thenReturn(List.of(dog(1L), dog(2L)));
+        when(dogRepository.findByDescriptionIsNullAndIdGreaterThanOrderByIdAsc(eq(2L), any(Limit.class)))
+                .thenReturn(List.of(dog(3L)));
+        when(dogRepository.findByDescriptionIsNullAndIdGreaterThanOrderByIdAsc(eq(3L), any(Limit.class)))
+                .thenReturn(List.of());
+
+        DogDescriptionJob.Result result = job.run();
+
+        assertThat(result.getGenerated()).isEqualTo(3);
+        assertThat(result.getFailed()).isZero();
+        verify(dogRepository).updateDescription(1L, "순둥순둥한 방콕러");
+        verify(dogRepository).updateDescription(3L, "순둥순둥한 방콕러");
+        verify(chatModel, times(3)).call(any(Prompt.class));
+    }
+
+    @Test
+    void resumesFromCheckpoint() {
+        when(jobCheckpointRepository.findById(DogDescriptionJob.NAME))
+                .thenReturn(Optional.of(JobCheckpoint.builder().name(DogDescriptionJob.NAME).lastId(2L).build()));
+        when(dogRepository.findByDescriptionIsNullAndIdGreaterThanOrderByIdAsc(anyLong(), any(Limit.class)))
+                .thenReturn(List.of());
+
+        job.run();
+
+        verify(dogRepository).findByDescriptionIsNullAndIdGreaterThanOrderByIdAsc(eq(2L), any(Limit.class));
+        verifyNoInteractions(chatModel);
+    }
+
+    private static Dog dog(Long id) {
+        return Dog.builder()
+                .id(id)
+                .image(IMAGE)
+                .personality("활발, 외향, 산책, 애교, 독립, 순함")
+                .build();
+    }
+}
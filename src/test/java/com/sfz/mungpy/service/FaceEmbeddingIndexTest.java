@@ -0,0 +1,112 @@
+package com.sfz.mungpy.service;
+
+import com.sfz.mungpy.repository.DogRepository;
+import com.sfz.mungpy.repository.FaceEmbeddingView;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class FaceEmbeddingIndexTest {
+    private static final int DIM = 32;
+
+    @Test
+    void findsMostSimilarAmongCandidates() {
+        FaceEmbeddingIndex index = indexOf("flat",
+                view(1L, "a.jpg", new float[]{1, 0, 0}),
+                view(2L, "b.jpg", new float[]{0.9f, 0.1f, 0}),
+                view(3L, "c.jpg", new float[]{0, 1, 0}));
+
+        float[] query = {2, 0.1f, 0};
+        assertThat(index.search(query, 2, null)).containsExactly("a.jpg", "b.jpg");
+        assertThat(index.findMostSimilar(query, List.of("b.jpg", "c.jpg"))).contains("b.jpg");
+        assertThat(index.containsAll(List.of("a.jpg", "z.jpg"))).isFalse();
+    }
+
+    @Test
+    void changesAreAppliedAsNewSnapshots() {
+        FaceEmbeddingIndex index = indexOf("flat", view(1L, "a.jpg", new float[]{1, 0}));
+        long version = index.version();
+
+        index.save(2L, "b.jpg", new float[]{0, 1});
+        index.save(2L, "b.jpg", new float[]{0, 2});
+        assertThat(index.version()).isEqualTo(version + 1);
+        assertThat(index.findMostSimilar(new float[]{0, 1}, List.of("a.jpg", "b.jpg"))).contains("b.jpg");
+
+        index.remove(1L);
+        assertThat(index.size()).isEqualTo(1);
+        assertThat(index.search(new float[]{1, 0}, 5, null)).containsExactly("b.jpg");
+    }
+
+    @Test
+    void ivfAgreesWithFlatOnClusteredData() {
+        Random random = new Random(42);
+        float[][] centers = new float[64][];
+        for (int c = 0; c < centers.length; c++) centers[c] = randomVector(random, 1);
+
+        List<FaceEmbeddingView> views = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            float[] vector = centers[i % centers.length].clone();
+            float[] noise = randomVector(random, 0.05f);
+            for (int d = 0; d < DIM; d++) vector[d] += noise[d];
+            views.add(view((long) i, i + ".jpg", vector));
+        }
+
+        FaceEmbeddingIndex flat = indexOf("flat", views.toArray(FaceEmbeddingView[]::new));
+        FaceEmbeddingIndex ivf = indexOf("ivf", views.toArray(FaceEmbeddingView[]::new));
+
+        int agreed = 0;
+        for (int q = 0; q < 100; q++) {
+            float[] query = centers[q % centers.length].clone();
+            query[q % DIM] += 0.01f;
+            if (flat.search(query, 1, null).equals(ivf.search(query, 1, null))) agreed++;
+        }
+        assertThat(agreed).isGreaterThanOrEqualTo(95);
+    }
+
+    @Test
+    void embeddingsRoundTripThroughBytes() {
+        float[] embedding = {0.5f, -1.25f, 3f};
+        assertThat(FaceEmbeddingIndex.decode(FaceEmbeddingIndex.encode(embedding))).containsExactly(embedding);
+    }
+
+    private static FaceEmbeddingIndex indexOf(String mode, FaceEmbeddingView... views) {
+        DogRepository dogRepository = mock(DogRepository.class);
+        when(dogRepository.findByFaceEmbeddingIsNotNull()).thenReturn(List.of(views));
+
+        FaceEmbeddingIndex index = new FaceEmbeddingIndex(dogRepository, mode, 0, 8, 10000);
+        index.rebuild();
+        return index;
+    }
+
+    private static float[] randomVector(Random random, float scale) {
+        float[] vector = new float[DIM];
+        for (int d = 0; d < DIM; d++) vector[d] = (float) random.nextGaussian() * scale;
+        return vector;
+    }
+
+    private static FaceEmbeddingView view(Long id, String image, float[] embedding) {
+        byte[] bytes = FaceEmbeddingIndex.encode(embedding);
+        return new FaceEmbeddingView() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public String getImage() {
+                return image;
+            }
+
+            @Override
+            public byte[] getFaceEmbedding() {
+                return bytes;
+            }
+        };
+    }
+}
@@ -0,0 +1,71 @@
+package com.sfz.mungpy.service;
+
+import com.sfz.mungpy.client.KakaoLocalClient;
+import com.sfz.mungpy.dto.GeoPoint;
+import com.sfz.mungpy.dto.KakaoMapResponse;
+import com.sfz.mungpy.dto.ShelterRegister;
+import com.sfz.mungpy.entity.Shelter;
+import com.sfz.mungpy.exception.UpstreamUnavailableException;
+import com.sfz.mungpy.repository.ShelterRepository;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 카카오 호출이 실패해도 호출하는 쪽이 원래 예외를 받는지, 찾지 못한 주소를 오래 기억하지 않는지 확인한다.
+ */
+class GeocodeServiceTest {
+    private final KakaoLocalClient kakaoLocalClient = mock(KakaoLocalClient.class);
+    private final GeocodeService geocodeService = new GeocodeService(kakaoLocalClient, 100, Duration.ofMinutes(1), Duration.ZERO);
+
+    @Test
+    void upstreamFailureIsNotWrapped() {
+        when(kakaoLocalClient.searchKeyword(anyString())).thenThrow(new UpstreamUnavailableException("kakao"));
+
+        assertThatThrownBy(() -> geocodeService.geocode("제주시 애월읍"))
+                .isInstanceOf(UpstreamUnavailableException.class);
+    }
+
+    @Test
+    void missIsRetriedButHitIsCached() {
+        KakaoMapResponse.Document document = mock(KakaoMapResponse.Document.class);
+        when(document.getX()).thenReturn("126.5");
+        when(document.getY()).thenReturn("33.5");
+        when(kakaoLocalClient.searchKeyword(anyString())).thenReturn(Optional.empty(), Optional.of(document));
+
+        assertThat(geocodeService.geocode("제주시 애월읍")).isEmpty();
+        assertThat(geocodeService.geocode("제주시 애월읍")).map(GeoPoint::getLatitude).contains(33.5);
+        assertThat(geocodeService.geocode("제주시 애월읍")).map(GeoPoint::getLatitude).contains(33.5);
+
+        verify(kakaoLocalClient, times(2)).searchKeyword(anyString());
+    }
+
+    @Test
+    void shelterIsSavedWithoutLocationWhenGeocodeFails() {
+        when(kakaoLocalClient.searchKeyword(anyString())).thenThrow(new UpstreamUnavailableException("kakao"));
+        ShelterRepository shelterRepository = mock(ShelterRepository.class);
+        ShelterService shelterService = new ShelterService(shelterRepository, geocodeService,
+                mock(ShelterListSnapshot.class), mock(ApplicationEventPublisher.class));
+
+        ShelterRegister register = new ShelterRegister();
+        register.setName("행복 보호소");
+        register.setAddress("제주시 애월읍");
+        shelterService.addShelter(register);
+
+        ArgumentCaptor<Shelter> saved = ArgumentCaptor.forClass(Shelter.class);
+        verify(shelterRepository).save(saved.capture());
+        assertThat(saved.getValue().getLatitude()).isNull();
+        assertThat(saved.getValue().getLongitude()).isNull();
+    }
+}
@@ -0,0 +1,67 @@
+package com.sfz.mungpy.service;
+
+import com.sfz.mungpy.dto.ImageMetadata;
+import com.sfz.mungpy.entity.Dog;
+import com.sfz.mungpy.service.ImageDeliveryService.ImageFile;
+import com.sfz.mungpy.service.ImageDeliveryService.Variant;
+import com.sfz.mungpy.storage.LocalImageStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.util.unit.DataSize;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.InputStream;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ImageDeliveryServiceTest {
+    private static final String NAME = "Jeju-Jeju-2024-00043.jpg";
+
+    @TempDir
+    Path directory;
+
+    private LocalImageStore imageStore;
+    private ImageMetadata metadata;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        imageStore = new LocalImageStore(directory.resolve("store"), DataSize.ofMegabytes(1));
+        try (InputStream in = new ClassPathResource("/static/images/" + NAME).getInputStream()) {
+            metadata = imageStore.put(in);
+        }
+    }
+
+    @Test
+    void urlsCarryContentHash() throws Exception {
+        ImageDeliveryService service = service();
+
+        Dog stored = Dog.builder().image(NAME).imageHash(metadata.getHash()).build();
+        assertThat(service.url(stored, Variant.THUMBNAIL))
+                .isEqualTo("/images/v/" + metadata.getHash() + "/thumb/" + NAME);
+        assertThat(service.url(Dog.builder().image(NAME).build(), Variant.THUMBNAIL))
+                .isEqualTo("/images/" + NAME);
+        assertThat(service.file("0".repeat(64), Variant.ORIGINAL)).isEmpty();
+    }
+
+    @Test
+    void variantsAreResizedOnce() throws Exception {
+        ImageFile thumbnail = service().file(metadata.getHash(), Variant.THUMBNAIL).orElseThrow();
+        BufferedImage decoded = ImageIO.read(thumbnail.getPath().toFile());
+        assertThat(Math.max(decoded.getWidth(), decoded.getHeight())).isLessThanOrEqualTo(Variant.THUMBNAIL.getMaxDimension());
+
+        ImageFile original = service().file(metadata.getHash(), Variant.ORIGINAL).orElseThrow();
+        assertThat(original.getContentType()).isEqualTo("image/jpeg");
+        assertThat(thumbnail.getLength()).isLessThan(original.getLength());
+
+        assertThat(service().file(metadata.getHash(), Variant.THUMBNAIL).orElseThrow().getPath())
+                .isEqualTo(thumbnail.getPath());
+    }
+
+    private ImageDeliveryService service() throws Exception {
+        return new ImageDeliveryService(imageStore, directory.resolve("cache").toString(), false, 0.8f, 100);
+    }
+}
@@ -0,0 +1,79 @@
+package com.sfz.mungpy.service;
+
+import com.sfz.mungpy.dto.DogAnalysis;
+import com.sfz.mungpy.repository.MatchAnalysisRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class MatchAnalysisCacheTest {
+    private static final List<String> USER = List.of("활발", "외향", "산책", "애교", "독립", "순함");
+
+    private final MatchAnalysisRepository repository = mock(MatchAnalysisRepository.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final MatchAnalysisCache cache = new MatchAnalysisCache(repository, mock(PlatformTransactionManager.class),
+            meterRegistry, true, 100);
+
+    @Test
+    void lookupsAreRecordedInCaffeineStats() {
+        when(repository.findByDogIdAndPersonalityKey(anyLong(), anyString())).thenReturn(Optional.empty());
+        DogAnalysis analysis = DogAnalysis.builder().description("순둥순둥한 방콕러").matchReason("당신과 잘 어울려요").build();
+
+        cache.get(1L, "활발, 외향", USER, () -> analysis);
+        cache.get(1L, "활발, 외향", USER, () -> analysis);
+
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "analysis").tag("result", "miss")
+                .functionCounter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "analysis").tag("result", "hit")
+                .functionCounter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void loadFinishingAfterEvictIsNotStored() throws Exception {
+        when(repository.findByDogIdAndPersonalityKey(anyLong(), anyString())).thenReturn(Optional.empty());
+        DogAnalysis stale = DogAnalysis.builder().description("예전 사진 설명").matchReason("예전 이유").build();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch evicted = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+
+        CompletableFuture<DogAnalysis> inFlight = CompletableFuture.supplyAsync(() -> cache.get(1L, "활발, 외향", USER, () -> {
+            loads.incrementAndGet();
+            loading.countDown();
+            try {
+                evicted.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return stale;
+        }));
+
+        assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+        cache.evict(1L);
+        evicted.countDown();
+
+        // 이미 기다리던 요청은 결과를 받지만, 두 계층 어디에도 남지 않는다.
+        assertThat(inFlight.get(5, TimeUnit.SECONDS)).isSameAs(stale);
+        verify(repository, never()).save(any());
+        cache.get(1L, "활발, 외향", USER, () -> {
+            loads.incrementAndGet();
+            return stale;
+        });
+        assertThat(loads).hasValue(2);
+    }
+}
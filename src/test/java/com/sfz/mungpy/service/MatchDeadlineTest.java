@@ -0,0 +1,112 @@
+package com.sfz.mungpy.service;
+
+import com.sfz.mungpy.client.FaceMatcherClient;
+import com.sfz.mungpy.dto.DogAnalysis;
+import com.sfz.mungpy.dto.DogMatch;
+import com.sfz.mungpy.dto.UploadedImage;
+import com.sfz.mungpy.entity.Dog;
+import com.sfz.mungpy.repository.DogRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+/**
+ * 업스트림이 단계별 예산을 넘기면 성향 점수만으로 고른 강아지와 템플릿 설명을 degraded 로 돌려주는지 확인한다.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:deadline;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "matching.dedup.enabled=false",
+        "matching.deadline.total=1s",
+        "matching.deadline.face-match=200ms",
+        "matching.deadline.analysis=200ms"
+})
+class MatchDeadlineTest {
+    private static final Duration SLOW = Duration.ofSeconds(3);
+    private static final List<String> PERSONALITY = List.of("차분", "내향", "집콕", "순함", "의존", "온순");
+
+    @MockBean
+    private FaceMatcherClient faceMatcherClient;
+    @MockBean
+    private OpenAIAnalysisService openAIAnalysisService;
+
+    @Autowired
+    private DogService dogService;
+    @Autowired
+    private DogRepository dogRepository;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Dog best;
+    private Dog other;
+
+    @BeforeEach
+    void setUp() {
+        best = dogRepository.save(Dog.builder().name("보리").image("best.jpg")
+                .personality("차분, 내향, 집콕, 순함, 의존, 온순").build());
+        other = dogRepository.save(Dog.builder().name("콩이").image("other.jpg")
+                .personality("차분, 외향, 산책, 애교, 독립, 예민").build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        dogRepository.deleteAll();
+    }
+
+    @Test
+    void slowUpstreamsFallBackToPersonalityMatch() throws Exception {
+        when(faceMatcherClient.findSimilarDog(any(), anyList())).thenAnswer(invocation -> {
+            Thread.sleep(SLOW);
+            return "other.jpg";
+        });
+        when(openAIAnalysisService.analyze(any(), anyString())).thenAnswer(invocation -> {
+            Thread.sleep(SLOW);
+            return DogAnalysis.builder().description("늦은 설명").matchReason("늦은 이유").build();
+        });
+
+        long started = System.nanoTime();
+        DogMatch match = dogService.matchDog(PERSONALITY, image());
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - started);
+
+        assertThat(match.isDegraded()).isTrue();
+        assertThat(match.getId()).isEqualTo(best.getId());
+        assertThat(match.getDescription()).isEqualTo("차분, 내향, 집콕, 순함, 의존, 온순 성향의 아이");
+        assertThat(match.getMatchReason()).contains("차분", "온순");
+        assertThat(elapsed).isLessThan(Duration.ofSeconds(1));
+
+        assertThat(meterRegistry.get("mungpy.match.degraded").tag("stage", "face_match").tag("reason", "timeout")
+                .counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("mungpy.match.degraded").tag("stage", "analysis").tag("reason", "timeout")
+                .counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void fastUpstreamsAreNotDegraded() throws Exception {
+        when(faceMatcherClient.findSimilarDog(any(), anyList())).thenReturn("other.jpg");
+        when(openAIAnalysisService.analyze(any(), anyString()))
+                .thenReturn(DogAnalysis.builder().description("씩씩한 산책러").matchReason("당신과 잘 어울려요").build());
+
+        DogMatch match = dogService.matchDog(PERSONALITY, image());
+
+        assertThat(match.isDegraded()).isFalse();
+        assertThat(match.getId()).isEqualTo(other.getId());
+        assertThat(match.getDescription()).isEqualTo("씩씩한 산책러");
+    }
+
+    private static UploadedImage image() {
+        return UploadedImage.of(new MockMultipartFile("image", "face.jpg", "image/jpeg", new byte[]{(byte) 0xFF, (byte) 0xD8, (byte) 0xFF}), "image/jpeg");
+    }
+}
@@ -0,0 +1,109 @@
+package com.sfz.mungpy.service;
+
+import com.sfz.mungpy.client.FaceMatcherClient;
+import com.sfz.mungpy.dto.DogAnalysis;
+import com.sfz.mungpy.dto.DogMatch;
+import com.sfz.mungpy.dto.UploadedImage;
+import com.sfz.mungpy.entity.Dog;
+import com.sfz.mungpy.repository.DogRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+/**
+ * 업스트림이 느려져도 matchDog 가 그동안 DB 커넥션을 잡고 있지 않는지 확인한다.
+ * 풀은 5개, 동시 요청은 20개라 커넥션을 잡은 채로 기다린다면 요청이 줄을 서서 지연의 몇 배가 걸린다.
+ */
+@SpringBootTest
+class MatchDogConnectionPoolTest {
+    private static final Duration UPSTREAM_LATENCY = Duration.ofMillis(400);
+    private static final int REQUESTS = 20;
+
+    @MockBean
+    private FaceMatcherClient faceMatcherClient;
+    @MockBean
+    private OpenAIAnalysisService openAIAnalysisService;
+
+    @Autowired
+    private DogService dogService;
+    @Autowired
+    private DogRepository dogRepository;
+    @Autowired
+    private AnalysisWriteBehind analysisWriteBehind;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void connectionsAreNotHeldWhileWaitingOnUpstreams() throws Exception {
+        for (int i = 0; i < 12; i++) {
+            dogRepository.save(Dog.builder()
+                    .name("dog" + i)
+                    .image("dog" + i + ".jpg")
+                    .personality("활발, 외향, 산책, 애교, 독립, 순함")
+                    .build());
+        }
+
+        when(faceMatcherClient.findSimilarDog(any(), anyList())).thenAnswer(invocation -> {
+            Thread.sleep(UPSTREAM_LATENCY);
+            List<String> candidates = invocation.getArgument(1);
+            return candidates.get(0);
+        });
+        when(openAIAnalysisService.analyze(any(), anyString())).thenAnswer(invocation -> {
+            Thread.sleep(UPSTREAM_LATENCY);
+            return DogAnalysis.builder().description("순둥순둥한 방콕러").matchReason("당신과 잘 어울려요").build();
+        });
+
+        Set<Long> matched = new HashSet<>();
+        long started = System.nanoTime();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<DogMatch>> results = IntStream.range(0, REQUESTS)
+                    .mapToObj(i -> executor.submit(() -> dogService.matchDog(personality(i), image())))
+                    .toList();
+            for (Future<DogMatch> result : results) {
+                DogMatch match = result.get();
+                assertThat(match.getDescription()).isEqualTo("순둥순둥한 방콕러");
+                matched.add(match.getId());
+            }
+        }
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - started);
+
+        // 업스트림 두 번(얼굴 매칭, 분석)의 지연에 여유를 조금 더한 시간 안에 모두 끝나야 한다.
+        assertThat(elapsed).isLessThan(UPSTREAM_LATENCY.multipliedBy(4));
+        assertThat(meterRegistry.get("hikaricp.connections.usage").timer().max(TimeUnit.MILLISECONDS))
+                .isLessThan(UPSTREAM_LATENCY.toMillis() / 2);
+
+        analysisWriteBehind.flush();
+        assertThat(jdbcTemplate.queryForObject("select count(*) from dogs where description = ?", Integer.class, "순둥순둥한 방콕러"))
+                .isEqualTo(matched.size());
+    }
+
+    private static List<String> personality(int request) {
+        return List.of("활발", "외향", "산책", "애교", "독립", "성향" + request);
+    }
+
+    private static UploadedImage image() {
+        return UploadedImage.of(new MockMultipartFile("image", "face.jpg", "image/jpeg", new byte[]{(byte) 0xFF, (byte) 0xD8, (byte) 0xFF}), "image/jpeg");
+    }
+}
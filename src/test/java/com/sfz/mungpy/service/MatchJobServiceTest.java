@@ -0,0 +1,102 @@
+package com.sfz.mungpy.service;
+
+import com.sfz.mungpy.dto.DogMatch;
+import com.sfz.mungpy.dto.MatchJobStatus;
+import com.sfz.mungpy.dto.MatchJobStatus.State;
+import com.sfz.mungpy.exception.DogNotFoundException;
+import com.sfz.mungpy.exception.IdempotencyKeyConflictException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class MatchJobServiceTest {
+    private static final List<String> PERSONALITY = List.of("활발", "외향", "산책", "애교", "독립", "순함");
+
+    private final DogService dogService = mock(DogService.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final MatchJobService service = new MatchJobService(dogService,
+            new UploadImageService(DataSize.ofMegabytes(10), false, 640, 0.85f), meterRegistry, 1, 1, Duration.ofMinutes(1));
+
+    @AfterEach
+    void tearDown() {
+        service.close();
+    }
+
+    @Test
+    void retriesWithSameKeyAttachToExistingJob() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        when(dogService.matchDog(anyList(), any())).thenAnswer(invocation -> {
+            release.await();
+            return DogMatch.builder().id(1L).name("초코").build();
+        });
+
+        MatchJobStatus first = service.submit("key-1", PERSONALITY, image());
+        MatchJobStatus retry = service.submit("key-1", PERSONALITY, image());
+        assertThat(retry.getId()).isEqualTo(first.getId());
+
+        release.countDown();
+        MatchJobStatus done = service.completion(first.getId()).orElseThrow().get(1, TimeUnit.SECONDS);
+        assertThat(done.getState()).isEqualTo(State.SUCCEEDED);
+        assertThat(done.getResult().getName()).isEqualTo("초코");
+        verify(dogService, times(1)).matchDog(anyList(), any());
+        assertThat(meterRegistry.get("mungpy.match.jobs").tag("result", "attached").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void reusedKeyWithDifferentPayloadIsRefused() {
+        when(dogService.matchDog(anyList(), any())).thenReturn(DogMatch.builder().id(1L).build());
+
+        service.submit("key-1", PERSONALITY, image());
+
+        assertThatThrownBy(() -> service.submit("key-1", List.of("차분", "내향", "집콕", "무심", "의존", "예민"), image()))
+                .isInstanceOf(IdempotencyKeyConflictException.class);
+        assertThat(meterRegistry.get("mungpy.match.jobs").tag("result", "conflict").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void rejectsWhenWorkersAndQueueAreFull() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(dogService.matchDog(anyList(), any())).thenAnswer(invocation -> {
+            started.countDown();
+            release.await();
+            throw new DogNotFoundException();
+        });
+
+        MatchJobStatus running = service.submit("a", PERSONALITY, image());
+        started.await(1, TimeUnit.SECONDS);
+        MatchJobStatus queued = service.submit("b", PERSONALITY, image());
+        assertThat(service.status(queued.getId()).orElseThrow().getState()).isEqualTo(State.QUEUED);
+
+        assertThatThrownBy(() -> service.submit("c", PERSONALITY, image())).isInstanceOf(RejectedExecutionException.class);
+        // 거절된 키는 남기지 않아 나중에 다시 보낼 수 있다.
+        release.countDown();
+        MatchJobStatus failed = service.completion(running.getId()).orElseThrow().get(1, TimeUnit.SECONDS);
+        assertThat(failed.getState()).isEqualTo(State.FAILED);
+        assertThat(failed.getMessage()).isEqualTo("매칭되는 강아지가 존재하지 않습니다.");
+
+        service.completion(queued.getId()).orElseThrow().get(1, TimeUnit.SECONDS);
+        assertThat(service.submit("c", PERSONALITY, image()).getId()).isNotNull();
+    }
+
+    private static MockMultipartFile image() {
+        return new MockMultipartFile("image", "face.jpg", "image/jpeg", new byte[]{(byte) 0xFF, (byte) 0xD8, (byte) 0xFF});
+    }
+}
@@ -0,0 +1,65 @@
+package com.sfz.mungpy.service;
+
+import com.sfz.mungpy.config.MetricsConfig;
+import com.sfz.mungpy.exception.UpstreamUnavailableException;
+import com.sfz.mungpy.repository.DogRepository;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import io.micrometer.core.instrument.observation.DefaultMeterObservationHandler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+class MatchMetricsTest {
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ObservationRegistry observationRegistry = ObservationRegistry.create();
+
+    private MatchMetrics metrics(double sampleRate) {
+        meterRegistry.config().meterFilter(new MetricsConfig().matchPercentiles());
+        observationRegistry.observationConfig().observationHandler(new DefaultMeterObservationHandler(meterRegistry));
+        return new MatchMetrics(observationRegistry, meterRegistry, Optional.of(new PersonalityIndex(mock(DogRepository.class))), sampleRate);
+    }
+
+    @Test
+    void stagesAreTimedWithPercentiles() {
+        MatchMetrics metrics = metrics(0);
+
+        for (int i = 0; i < 10; i++) {
+            assertThat(metrics.observe(MatchMetrics.Stage.CANDIDATES, () -> "ok")).isEqualTo("ok");
+        }
+        metrics.run(MatchMetrics.Stage.WRITE, () -> { });
+
+        Timer candidates = meterRegistry.get(MatchMetrics.STAGE).tag("stage", "candidates").timer();
+        assertThat(candidates.count()).isEqualTo(10);
+        assertThat(Arrays.stream(candidates.takeSnapshot().percentileValues()).map(ValueAtPercentile::percentile))
+                .containsExactly(0.5, 0.95, 0.99);
+        assertThat(meterRegistry.get(MatchMetrics.STAGE).tag("stage", "write").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void upstreamStageFailuresAreCounted() {
+        MatchMetrics metrics = metrics(0);
+
+        assertThatThrownBy(() -> metrics.observe(MatchMetrics.Stage.FACE_MATCH, () -> {
+            throw new UpstreamUnavailableException("face-matcher");
+        })).isInstanceOf(UpstreamUnavailableException.class);
+
+        assertThat(meterRegistry.get("mungpy.match.upstream.errors").tag("stage", "face_match").counter().count())
+                .isEqualTo(1);
+        assertThat(meterRegistry.get(MatchMetrics.STAGE).tag("stage", "face_match")
+                .tag("error", "UpstreamUnavailableException").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void logSamplingFollowsRate() {
+        assertThat(metrics(0).sampled()).isFalse();
+        assertThat(metrics(1).sampled()).isTrue();
+    }
+}
@@ -0,0 +1,94 @@
+package com.sfz.mungpy.service;
+
+import com.sfz.mungpy.dto.DogMatch;
+import com.sfz.mungpy.dto.UploadedImage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MatchRequestCacheTest {
+    private static final List<String> PERSONALITY = List.of("활발", "외향", "산책", "애교", "독립", "순함");
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final MatchRequestCache cache = new MatchRequestCache(meterRegistry, true, 100, Duration.ofMinutes(1));
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    void sameImageAndPersonalityIsServedFromMemory() {
+        DogMatch first = cache.get(image(1), PERSONALITY, () -> load(false));
+        DogMatch second = cache.get(image(1), List.of(" 활발", "외향 ", "산책", "애교", "독립", "순함"), () -> load(false));
+
+        assertThat(second).isSameAs(first);
+        assertThat(loads).hasValue(1);
+        assertThat(meterRegistry.get("mungpy.match.dedup.requests").tag("result", "hit").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("mungpy.match.dedup.bytes.saved").counter().count()).isEqualTo(3);
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "match_requests").tag("result", "hit")
+                .functionCounter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void differentImageOrOrderIsNotShared() {
+        cache.get(image(1), PERSONALITY, () -> load(false));
+        cache.get(image(2), PERSONALITY, () -> load(false));
+        cache.get(image(1), PERSONALITY.reversed(), () -> load(false));
+
+        assertThat(loads).hasValue(3);
+    }
+
+    @Test
+    void concurrentDuplicatesWaitForRunningRequest() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<DogMatch> running = executor.submit(() -> cache.get(image(1), PERSONALITY, () -> {
+                awaitQuietly(release);
+                return load(false);
+            }));
+            while (meterRegistry.get("mungpy.match.dedup.requests").tag("result", "miss").counter().count() == 0) {
+                Thread.onSpinWait();
+            }
+            Future<DogMatch> duplicate = executor.submit(() -> cache.get(image(1), PERSONALITY, () -> load(false)));
+
+            release.countDown();
+            assertThat(duplicate.get(1, TimeUnit.SECONDS)).isSameAs(running.get(1, TimeUnit.SECONDS));
+        }
+        assertThat(loads).hasValue(1);
+        assertThat(meterRegistry.get("mungpy.match.dedup.requests").tag("result", "coalesced").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void degradedResultIsNotKept() {
+        cache.get(image(1), PERSONALITY, () -> load(true));
+        DogMatch retried = cache.get(image(1), PERSONALITY, () -> load(false));
+
+        assertThat(retried.isDegraded()).isFalse();
+        assertThat(loads).hasValue(2);
+    }
+
+    private DogMatch load(boolean degraded) {
+        return DogMatch.builder().id((long) loads.incrementAndGet()).degraded(degraded).build();
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static UploadedImage image(int seed) {
+        return UploadedImage.of(new MockMultipartFile("image", "face.jpg", "image/jpeg",
+                new byte[]{(byte) 0xFF, (byte) 0xD8, (byte) seed}), "image/jpeg");
+    }
+}
@@ -0,0 +1,80 @@
+package com.sfz.mungpy.service;
+
+import com.sfz.mungpy.entity.Dog;
+import com.sfz.mungpy.event.DogChangedEvent;
+import com.sfz.mungpy.repository.DogRepository;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PersonalityIndexTest {
+    private static final List<String> USER = List.of("활발", "외향", "산책", "애교", "독립", "순함");
+
+    @Test
+    void scoreCountsMatchingTraits() {
+        PersonalityIndex index = indexOf(
+                dog(1L, "all.jpg", "활발, 외향, 산책, 애교, 독립, 순함"),
+                dog(2L, "none.jpg", "차분, 내향, 집콕, 무심, 의존, 예민"),
+                dog(3L, "half.jpg", "활발, 외향, 산책, 무심, 의존, 예민"));
+
+        assertThat(index.selectCandidates(USER, 1)).containsExactly("all.jpg");
+        assertThat(index.selectCandidates(USER, 2)).containsExactly("all.jpg", "half.jpg");
+        assertThat(index.selectCandidates(USER, 3)).containsExactly("all.jpg", "half.jpg", "none.jpg");
+    }
+
+    @Test
+    void tiesAtBoundaryAreIncluded() {
+        PersonalityIndex index = indexOf(
+                dog(1L, "a.jpg", "활발, 외향, 산책, 애교, 독립, 순함"),
+                dog(2L, "b.jpg", "활발, 외향, 산책, 애교, 의존, 예민"),
+                dog(3L, "c.jpg", "활발, 외향, 산책, 애교, 의존, 예민"),
+                dog(4L, "d.jpg", "차분, 내향, 집콕, 무심, 의존, 예민"));
+
+        assertThat(index.selectCandidates(USER, 2)).containsExactly("a.jpg", "b.jpg", "c.jpg");
+    }
+
+    @Test
+    void unknownOrMissingTraitsNeverMatch() {
+        PersonalityIndex index = indexOf(dog(1L, "short.jpg", "활발, 외향"));
+
+        assertThat(index.selectCandidates(List.of("모름", "모름", "모름", "모름", "모름", "모름"), 1))
+                .containsExactly("short.jpg");
+    }
+
+    @Test
+    void changesAreAppliedAsNewSnapshots() {
+        PersonalityIndex index = indexOf(dog(1L, "a.jpg", "차분, 내향, 집콕, 무심, 의존, 예민"));
+        long version = index.version();
+
+        index.onDogChanged(DogChangedEvent.saved(dog(2L, "b.jpg", "활발, 외향, 산책, 애교, 독립, 순함")));
+        assertThat(index.selectCandidates(USER, 1)).containsExactly("b.jpg");
+
+        index.onDogChanged(DogChangedEvent.saved(dog(2L, "b.jpg", "활발, 외향, 산책, 애교, 독립, 순함")));
+        assertThat(index.version()).isEqualTo(version + 1);
+
+        index.onDogChanged(DogChangedEvent.removed(dog(2L, "b.jpg", null)));
+        assertThat(index.selectCandidates(USER, 1)).containsExactly("a.jpg");
+        assertThat(index.size()).isEqualTo(1);
+    }
+
+    private static PersonalityIndex indexOf(Dog... dogs) {
+        DogRepository dogRepository = mock(DogRepository.class);
+        when(dogRepository.findAll()).thenReturn(List.of(dogs));
+
+        PersonalityIndex index = new PersonalityIndex(dogRepository);
+        index.rebuild();
+        return index;
+    }
+
+    private static Dog dog(Long id, String image, String personality) {
+        return Dog.builder()
+                .id(id)
+                .image(image)
+                .personality(personality)
+                .build();
+    }
+}
@@ -0,0 +1,112 @@
+package com.sfz.mungpy.service;
+
+import com.sfz.mungpy.client.FaceMatcherClient;
+import com.sfz.mungpy.dto.DogAnalysis;
+import com.sfz.mungpy.entity.Dog;
+import com.sfz.mungpy.repository.DogRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class SecondLevelCacheTest {
+    @MockBean
+    private FaceMatcherClient faceMatcherClient;
+    @MockBean
+    private OpenAIAnalysisService openAIAnalysisService;
+
+    @Autowired
+    private DogRepository dogRepository;
+    @Autowired
+    private AnalysisWriteBehind analysisWriteBehind;
+    @Autowired
+    private BulkImportService bulkImportService;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private Dog dog;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        dog = dogRepository.save(Dog.builder()
+                .externalId("C-1")
+                .name("초코")
+                .image("cache.jpg")
+                .personality("활발, 외향, 산책, 애교, 독립, 순함")
+                .build());
+        statistics.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        dogRepository.deleteAll();
+    }
+
+    @Test
+    void repeatedReadsAreServedFromCache() {
+        dogRepository.findById(dog.getId()).orElseThrow();
+        dogRepository.findById(dog.getId()).orElseThrow();
+        dogRepository.findByImage("cache.jpg").orElseThrow();
+        dogRepository.findByImage("cache.jpg").orElseThrow();
+
+        assertThat(statistics.getDomainDataRegionStatistics(Dog.CACHE_REGION).getHitCount()).isGreaterThanOrEqualTo(3);
+        assertThat(statistics.getQueryRegionStatistics(DogRepository.BY_IMAGE_REGION).getHitCount()).isEqualTo(1);
+        // 쿼리 캐시를 처음 채울 때 한 번만 DB 에 간다.
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void singleRowUpdateKeepsOtherDogsCached() {
+        Dog other = dogRepository.save(Dog.builder()
+                .name("보리")
+                .image("other.jpg")
+                .personality("차분, 내향, 집콕, 순함, 의존, 온순")
+                .build());
+        dogRepository.findById(dog.getId()).orElseThrow();
+        dogRepository.findById(other.getId()).orElseThrow();
+        statistics.clear();
+
+        dogRepository.updateLocation(dog.getId(), 33.5, 126.5);
+
+        assertThat(dogRepository.findById(other.getId()).orElseThrow().getName()).isEqualTo("보리");
+        assertThat(statistics.getDomainDataRegionStatistics(Dog.CACHE_REGION).getHitCount()).isEqualTo(1);
+        assertThat(dogRepository.findById(dog.getId()).orElseThrow().getLatitude()).isEqualTo(33.5);
+        assertThat(statistics.getDomainDataRegionStatistics(Dog.CACHE_REGION).getMissCount()).isEqualTo(1);
+    }
+
+    @Test
+    void writeBehindEvictsUpdatedDog() {
+        dogRepository.findById(dog.getId()).orElseThrow();
+
+        analysisWriteBehind.enqueue(dog.getId(), DogAnalysis.builder().description("새 설명").matchReason("이유").build());
+        analysisWriteBehind.flush();
+
+        assertThat(dogRepository.findById(dog.getId()).orElseThrow().getDescription()).isEqualTo("새 설명");
+    }
+
+    @Test
+    void bulkImportEvictsEntitiesAndImageLookups() throws IOException {
+        dogRepository.findByImage("cache.jpg").orElseThrow();
+
+        bulkImportService.importDogs(new ByteArrayInputStream("""
+                {"externalId":"C-1","name":"초코","image":"cache-new.jpg","personality":"활발, 외향, 산책, 애교, 독립, 순함"}
+                """.getBytes(StandardCharsets.UTF_8)), BulkImportService.Format.NDJSON);
+
+        assertThat(dogRepository.findByImage("cache.jpg")).isEmpty();
+        assertThat(dogRepository.findById(dog.getId()).orElseThrow().getImage()).isEqualTo("cache-new.jpg");
+    }
+}
@@ -0,0 +1,83 @@
+package com.sfz.mungpy.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sfz.mungpy.dto.ShelterPage;
+import com.sfz.mungpy.entity.Shelter;
+import com.sfz.mungpy.entity.ShelterType;
+import com.sfz.mungpy.event.ShelterChangedEvent;
+import com.sfz.mungpy.repository.ShelterRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+class ShelterListSnapshotTest {
+    @Autowired
+    private ShelterRepository shelterRepository;
+
+    private ShelterListSnapshot snapshot;
+    private ShelterService shelterService;
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < 5; i++) {
+            save("보호소" + i, i % 2 == 0 ? ShelterType.CERTIFIED : ShelterType.PRIVATE);
+        }
+        snapshot = new ShelterListSnapshot(shelterRepository, new ObjectMapper(), 2);
+        shelterService = new ShelterService(shelterRepository, null, snapshot, event -> { });
+    }
+
+    @Test
+    void snapshotIsReusedUntilSheltersChange() throws IOException {
+        ShelterListSnapshot.Snapshot first = snapshot.get(null);
+        assertThat(first.count()).isEqualTo(5);
+        assertThat(snapshot.get(null)).isSameAs(first);
+        assertThat(gunzip(first.gzip())).isEqualTo(first.json());
+
+        save("보호소5", ShelterType.PRIVATE);
+        assertThat(snapshot.get(null)).isSameAs(first);
+
+        snapshot.onShelterChanged(new ShelterChangedEvent(6L, ShelterType.PRIVATE));
+        ShelterListSnapshot.Snapshot second = snapshot.get(null);
+        assertThat(second.count()).isEqualTo(6);
+        assertThat(second.version()).isNotEqualTo(first.version());
+    }
+
+    @Test
+    void snapshotsAreKeptPerType() {
+        assertThat(snapshot.get(ShelterType.CERTIFIED).count()).isEqualTo(3);
+        assertThat(snapshot.get(ShelterType.PRIVATE).count()).isEqualTo(2);
+    }
+
+    @Test
+    void pagesFollowCursor() {
+        ShelterPage first = shelterService.getShelterPage(null, null, 2);
+        ShelterPage second = shelterService.getShelterPage(null, first.getNextCursor(), 2);
+        ShelterPage last = shelterService.getShelterPage(null, second.getNextCursor(), 2);
+
+        assertThat(first.getShelters()).extracting("name").containsExactly("보호소0", "보호소1");
+        assertThat(second.getShelters()).extracting("name").containsExactly("보호소2", "보호소3");
+        assertThat(last.getShelters()).extracting("name").containsExactly("보호소4");
+        assertThat(last.getNextCursor()).isNull();
+
+        assertThat(shelterService.getShelterPage(ShelterType.PRIVATE, null, 5).getShelters())
+                .extracting("name").containsExactly("보호소1", "보호소3");
+    }
+
+    private void save(String name, ShelterType type) {
+        shelterRepository.save(Shelter.builder().name(name).address("제주시").type(type).build());
+    }
+
+    private static byte[] gunzip(byte[] gzip) throws IOException {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzip))) {
+            return in.readAllBytes();
+        }
+    }
+}
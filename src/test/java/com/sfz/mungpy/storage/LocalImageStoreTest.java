@@ -0,0 +1,66 @@
+package com.sfz.mungpy.storage;
+
+import com.sfz.mungpy.dto.ImageMetadata;
+import com.sfz.mungpy.exception.InvalidImageException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LocalImageStoreTest {
+    private static final String IMAGE = "/static/images/Jeju-Jeju-2024-00043.jpg";
+
+    @TempDir
+    Path root;
+
+    @Test
+    void sameContentIsStoredOnce() throws Exception {
+        LocalImageStore store = new LocalImageStore(root, DataSize.ofMegabytes(1));
+
+        ImageMetadata first = put(store);
+        ImageMetadata second = put(store);
+
+        assertThat(second.getHash()).isEqualTo(first.getHash());
+        assertThat(first.getMimeType()).isEqualTo("image/jpeg");
+        assertThat(first.getWidth()).isEqualTo(976);
+        assertThat(first.getHeight()).isEqualTo(648);
+        try (var files = Files.walk(root)) {
+            assertThat(files.filter(Files::isRegularFile).count()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    void mappedReadsReturnStoredBytes() throws Exception {
+        LocalImageStore store = new LocalImageStore(root, DataSize.ofMegabytes(1));
+        ImageMetadata metadata = put(store);
+
+        byte[] expected = new ClassPathResource(IMAGE).getContentAsByteArray();
+        assertThat(store.load(metadata.getHash()).getContentAsByteArray()).isEqualTo(expected);
+        try (InputStream in = store.load(metadata.getHash()).getInputStream()) {
+            assertThat(in.readAllBytes()).isEqualTo(expected);
+        }
+        assertThat(store.load("0".repeat(64)).exists()).isFalse();
+    }
+
+    @Test
+    void rejectsNonImages() throws Exception {
+        LocalImageStore store = new LocalImageStore(root, DataSize.ofMegabytes(1));
+
+        assertThatThrownBy(() -> store.put(new ByteArrayInputStream("not an image".getBytes())))
+                .isInstanceOf(InvalidImageException.class);
+    }
+
+    private static ImageMetadata put(LocalImageStore store) throws Exception {
+        try (InputStream in = new ClassPathResource(IMAGE).getInputStream()) {
+            return store.put(in);
+        }
+    }
+}